@@ -0,0 +1,437 @@
+package com.progressoft.fxdealsystem.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An immutable archive file of deals, sorted by dealUniqueId and stored column by column in row
+ * groups of {@link #ROWS_PER_GROUP} deals.
+ * <p>
+ * The header is read once when the file is opened: row count, id range, a Bloom filter of the ids
+ * and the directory of row groups (first id, size). Each group is deflate-compressed on its own
+ * and holds its columns one after the other: ids (prefix-compressed against the previous id), a
+ * currency dictionary with one index per row for each currency column, timestamps as deltas in
+ * microseconds, amounts as scale and unscaled bytes, then database ids and creation times as
+ * deltas. A lookup decodes the one group whose id range covers the id.
+ */
+public final class ArchiveFile {
+
+    static final String EXTENSION = ".fxa";
+
+    static final int ROWS_PER_GROUP = 1024;
+
+    private static final int MAGIC = 0x46584131; // "FXA1"
+
+    private final Path path;
+    private final int count;
+    private final String minId;
+    private final String maxId;
+    private final BloomFilter bloom;
+    private final String[] groupFirstIds;
+    private final long[] groupOffsets;
+    private final int[] groupLengths;
+
+    private ArchiveFile(Path path, int count, String minId, String maxId, BloomFilter bloom, String[] groupFirstIds,
+                        long[] groupOffsets, int[] groupLengths) {
+        this.path = path;
+        this.count = count;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.bloom = bloom;
+        this.groupFirstIds = groupFirstIds;
+        this.groupOffsets = groupOffsets;
+        this.groupLengths = groupLengths;
+    }
+
+    /**
+     * Writes the deals to a temporary file and moves it into place, so that a file under its final
+     * name is always complete. The file is made read-only.
+     */
+    static ArchiveFile write(Path path, List<ArchivedDeal> deals, double falsePositiveRate) throws IOException {
+        List<ArchivedDeal> sorted = new ArrayList<>(deals);
+        sorted.sort(Comparator.comparing(ArchivedDeal::dealUniqueId));
+        BloomFilter bloom = BloomFilter.create(sorted.size(), falsePositiveRate);
+        sorted.forEach(d -> bloom.add(d.dealUniqueId()));
+
+        List<byte[]> groups = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            for (int from = 0; from < sorted.size(); from += ROWS_PER_GROUP) {
+                groups.add(compress(sorted.subList(from, Math.min(sorted.size(), from + ROWS_PER_GROUP)), deflater));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(sorted.size());
+            out.writeUTF(sorted.get(0).dealUniqueId());
+            out.writeUTF(sorted.get(sorted.size() - 1).dealUniqueId());
+            bloom.writeTo(out);
+            out.writeInt(groups.size());
+            for (int g = 0; g < groups.size(); g++) {
+                out.writeUTF(sorted.get(g * ROWS_PER_GROUP).dealUniqueId());
+                out.writeInt(groups.get(g).length);
+            }
+            for (byte[] group : groups) {
+                out.write(group);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        path.toFile().setReadOnly();
+        return open(path);
+    }
+
+    /**
+     * Reads the header only; groups are decoded on lookup.
+     */
+    static ArchiveFile open(Path path) throws IOException {
+        try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             DataInputStream in = new DataInputStream(counting)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a deal archive file: " + path);
+            }
+            int count = in.readInt();
+            String minId = in.readUTF();
+            String maxId = in.readUTF();
+            BloomFilter bloom = BloomFilter.readFrom(in);
+            int groups = in.readInt();
+            String[] firstIds = new String[groups];
+            int[] lengths = new int[groups];
+            for (int g = 0; g < groups; g++) {
+                firstIds[g] = in.readUTF();
+                lengths[g] = in.readInt();
+            }
+            long[] offsets = new long[groups];
+            long offset = counting.position;
+            for (int g = 0; g < groups; g++) {
+                offsets[g] = offset;
+                offset += lengths[g];
+            }
+            return new ArchiveFile(path, count, minId, maxId, bloom, firstIds, offsets, lengths);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    int bloomSizeInBytes() {
+        return bloom.sizeInBytes();
+    }
+
+    /**
+     * False when the id is certainly not in this file; true when it probably is.
+     */
+    boolean mightContain(String dealUniqueId) {
+        return dealUniqueId.compareTo(minId) >= 0 && dealUniqueId.compareTo(maxId) <= 0
+                && bloom.mightContain(dealUniqueId);
+    }
+
+    /**
+     * Decodes the row group covering the id, keeping only the matching row: ids are compared as
+     * they are decoded (sorted, so a missing id stops the read), and the other columns are only
+     * decoded when the id is there.
+     */
+    Optional<ArchivedDeal> find(String dealUniqueId) throws IOException {
+        int group = Arrays.binarySearch(groupFirstIds, dealUniqueId);
+        if (group < 0) {
+            group = -group - 2;
+        }
+        if (group < 0) {
+            return Optional.empty();
+        }
+        int rows = rows(group);
+        try (DataInputStream in = group(group)) {
+            int row = -1;
+            StringBuilder id = new StringBuilder();
+            for (int i = 0; i < rows && row < 0; i++) {
+                id.setLength((int) readVarLong(in));
+                id.append(in.readUTF());
+                int order = CharSequence.compare(id, dealUniqueId);
+                if (order == 0) {
+                    row = i;
+                } else if (order > 0) {
+                    return Optional.empty();
+                }
+            }
+            if (row < 0) {
+                return Optional.empty();
+            }
+            for (int i = row + 1; i < rows; i++) {
+                readVarLong(in);
+                in.readUTF();
+            }
+            String[] codes = new String[(int) readVarLong(in)];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = in.readUTF();
+            }
+            String from = codes[(int) nth(in, rows, row, false)];
+            String to = codes[(int) nth(in, rows, row, false)];
+            long timestamp = nth(in, rows, row, true);
+            BigDecimal amount = null;
+            for (int i = 0; i < rows; i++) {
+                int scale = (int) readVarLong(in);
+                byte[] unscaled = new byte[(int) readVarLong(in)];
+                in.readFully(unscaled);
+                if (i == row) {
+                    amount = new BigDecimal(new BigInteger(unscaled), scale);
+                }
+            }
+            long databaseId = nth(in, rows, row, true);
+            long createdAt = nth(in, rows, row, true);
+            return Optional.of(new ArchivedDeal(databaseId, dealUniqueId, from, to, dateTime(timestamp), amount,
+                    dateTime(createdAt)));
+        }
+    }
+
+    /**
+     * Every deal of the file, in dealUniqueId order.
+     */
+    void forEach(Consumer<ArchivedDeal> deals) throws IOException {
+        for (int g = 0; g < groupFirstIds.length; g++) {
+            int rows = rows(g);
+            try (DataInputStream in = group(g)) {
+                String[] ids = new String[rows];
+                String previous = "";
+                for (int i = 0; i < rows; i++) {
+                    int common = (int) readVarLong(in);
+                    previous = previous.substring(0, common) + in.readUTF();
+                    ids[i] = previous;
+                }
+                String[] codes = new String[(int) readVarLong(in)];
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = in.readUTF();
+                }
+                long[] from = column(in, rows, false);
+                long[] to = column(in, rows, false);
+                long[] timestamps = column(in, rows, true);
+                BigDecimal[] amounts = new BigDecimal[rows];
+                for (int i = 0; i < rows; i++) {
+                    int scale = (int) readVarLong(in);
+                    byte[] unscaled = new byte[(int) readVarLong(in)];
+                    in.readFully(unscaled);
+                    amounts[i] = new BigDecimal(new BigInteger(unscaled), scale);
+                }
+                long[] databaseIds = column(in, rows, true);
+                long[] createdAt = column(in, rows, true);
+                for (int i = 0; i < rows; i++) {
+                    deals.accept(new ArchivedDeal(databaseIds[i], ids[i], codes[(int) from[i]], codes[(int) to[i]],
+                            dateTime(timestamps[i]), amounts[i], dateTime(createdAt[i])));
+                }
+            }
+        }
+    }
+
+    private int rows(int group) {
+        return group == groupFirstIds.length - 1 ? count - group * ROWS_PER_GROUP : ROWS_PER_GROUP;
+    }
+
+    private DataInputStream group(int group) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(groupLengths[group]);
+        try (FileChannel channel = FileChannel.open(path)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, groupOffsets[group] + bytes.position()) < 0) {
+                    throw new IOException("Truncated archive file: " + path);
+                }
+            }
+        }
+        return new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(bytes.array())), 16 * 1024));
+    }
+
+    private static byte[] compress(List<ArchivedDeal> deals, Deflater deflater) throws IOException {
+        deflater.reset();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DeflaterOutputStream deflated = new DeflaterOutputStream(bytes, deflater, 16 * 1024);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated, 16 * 1024));
+
+        String previous = "";
+        for (ArchivedDeal deal : deals) {
+            String id = deal.dealUniqueId();
+            int common = commonPrefix(previous, id);
+            writeVarLong(out, common);
+            out.writeUTF(id.substring(common));
+            previous = id;
+        }
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        for (ArchivedDeal deal : deals) {
+            for (String code : List.of(deal.fromCurrencyIsoCode(), deal.toCurrencyIsoCode())) {
+                if (dictionary.putIfAbsent(code, codes.size()) == null) {
+                    codes.add(code);
+                }
+            }
+        }
+        writeVarLong(out, codes.size());
+        for (String code : codes) {
+            out.writeUTF(code);
+        }
+        for (ArchivedDeal deal : deals) {
+            writeVarLong(out, dictionary.get(deal.fromCurrencyIsoCode()));
+        }
+        for (ArchivedDeal deal : deals) {
+            writeVarLong(out, dictionary.get(deal.toCurrencyIsoCode()));
+        }
+
+        long last = 0;
+        for (ArchivedDeal deal : deals) {
+            long micros = micros(deal.dealTimestamp());
+            writeZigZag(out, micros - last);
+            last = micros;
+        }
+        for (ArchivedDeal deal : deals) {
+            writeVarLong(out, deal.dealAmount().scale());
+            byte[] unscaled = deal.dealAmount().unscaledValue().toByteArray();
+            writeVarLong(out, unscaled.length);
+            out.write(unscaled);
+        }
+        last = 0;
+        for (ArchivedDeal deal : deals) {
+            writeZigZag(out, deal.id() - last);
+            last = deal.id();
+        }
+        last = 0;
+        for (ArchivedDeal deal : deals) {
+            long micros = micros(deal.createdAt());
+            writeZigZag(out, micros - last);
+            last = micros;
+        }
+        out.flush();
+        deflated.finish();
+        return bytes.toByteArray();
+    }
+
+    private static long[] column(DataInputStream in, int rows, boolean delta) throws IOException {
+        long[] values = new long[rows];
+        long sum = 0;
+        for (int i = 0; i < rows; i++) {
+            sum = delta ? sum + readZigZag(in) : readVarLong(in);
+            values[i] = sum;
+        }
+        return values;
+    }
+
+    /**
+     * Reads a whole varint column and returns the value at row; delta columns are summed up to it.
+     */
+    private static long nth(DataInputStream in, int rows, int row, boolean delta) throws IOException {
+        long value = 0;
+        long sum = 0;
+        for (int i = 0; i < rows; i++) {
+            sum = delta ? sum + readZigZag(in) : readVarLong(in);
+            if (i == row) {
+                value = sum;
+            }
+        }
+        return value;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        // never split a surrogate pair
+        return i > 0 && Character.isHighSurrogate(b.charAt(i - 1)) ? i - 1 : i;
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeZigZag(DataOutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readZigZag(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long position;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.progressoft.fxdealsystem.archive;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease on the archival run, held in a row of fx_locks so that only one of the instances sharing
+ * the database archives at a time. Plain SQL on a table instead of MySQL's GET_LOCK: it also works
+ * on H2, and does not tie the lock to one pooled connection. A lease left by a crashed instance
+ * expires after fx.archive.lock-lease.
+ */
+final class ArchiveLock {
+
+    static final String TABLE_SQL = "CREATE TABLE IF NOT EXISTS fx_locks (name VARCHAR(64) NOT NULL, "
+            + "locked_until DATETIME(6) NOT NULL, locked_by VARCHAR(255) NOT NULL, PRIMARY KEY (name))";
+
+    private static final String NAME = "deal-archive";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    ArchiveLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void createTable() {
+        jdbcTemplate.execute(TABLE_SQL);
+    }
+
+    /**
+     * Takes the lease when it is free or expired; false while another instance holds it.
+     */
+    boolean tryAcquire(Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update("UPDATE fx_locks SET locked_until = ?, locked_by = ? WHERE name = ? AND locked_until <= ?",
+                now.plus(lease), owner, NAME, now) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update("INSERT INTO fx_locks (name, locked_until, locked_by) VALUES (?, ?, ?)",
+                    NAME, now.plus(lease), owner) == 1;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    void release() {
+        jdbcTemplate.update("UPDATE fx_locks SET locked_until = ? WHERE name = ? AND locked_by = ?",
+                LocalDateTime.now(), NAME, owner);
+    }
+}
@@ -0,0 +1,60 @@
+package com.progressoft.fxdealsystem.archive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Archival of cold deals to compressed columnar files on disk.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.archive")
+public class ArchiveProperties {
+
+    private boolean enabled;
+
+    /**
+     * Where archive files are written and loaded from. With several instances this must be one
+     * shared directory (NFS, EFS...): every instance reads the files the archiving one writes.
+     */
+    private String directory = "data/archive";
+
+    /**
+     * Deals whose dealTimestamp is older than this are archived.
+     */
+    private Duration maxAge = Duration.ofDays(365);
+
+    /**
+     * Cron expression of the archival run; "-" disables the schedule.
+     */
+    private String schedule = "0 30 2 * * *";
+
+    /**
+     * Deals per archive file, read from the table in one query.
+     */
+    private int batchSize = 10_000;
+
+    /**
+     * Ids per DELETE once a file is written.
+     */
+    private int deleteChunkSize = 1_000;
+
+    /**
+     * How long an archival run may hold the cluster-wide lock before another instance can take it
+     * over; longer than the slowest run.
+     */
+    private Duration lockLease = Duration.ofHours(6);
+
+    /**
+     * A lookup missing every known file lists the directory again at most this often, to pick up
+     * files written by another instance.
+     */
+    private Duration rescanInterval = Duration.ofSeconds(5);
+
+    /**
+     * Bloom filter false positive rate per file: the share of files that a lookup of an id they
+     * don't hold still has to decode.
+     */
+    private double falsePositiveRate = 0.01;
+}
@@ -0,0 +1,11 @@
+package com.progressoft.fxdealsystem.archive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A deal row as moved out of the deals table, id and createdAt included.
+ */
+public record ArchivedDeal(long id, String dealUniqueId, String fromCurrencyIsoCode, String toCurrencyIsoCode,
+                           LocalDateTime dealTimestamp, BigDecimal dealAmount, LocalDateTime createdAt) {
+}
@@ -0,0 +1,263 @@
+package com.progressoft.fxdealsystem.archive;
+
+import com.progressoft.fxdealsystem.replica.ReadRouting;
+import com.progressoft.fxdealsystem.sharding.DealShards;
+import com.progressoft.fxdealsystem.sharding.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Moves deals older than fx.archive.max-age out of the deals table into immutable archive files,
+ * batch by batch: a file is written and moved into place before its deals are deleted, so a deal
+ * is always in the table, an archive file or both. Lookups that miss the table fall back to
+ * {@link #find}, which only decodes the files whose Bloom filter matches the id.
+ *
+ * Several instances share the database and the archive directory: a lease in fx_locks lets one of
+ * them archive at a time, and the others pick up its files when a lookup misses (see ArchiveLock).
+ *
+ * Metrics: fx.archive.files, fx.archive.deals (archived since startup), fx.archive.false-positives
+ * (files decoded for an id they don't hold).
+ */
+@Component
+@ConditionalOnProperty(prefix = "fx.archive", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ArchiveProperties.class)
+@EnableScheduling
+@Slf4j
+public class DealArchive {
+
+    static final String SELECT_SQL = "SELECT id, deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+            + "deal_timestamp, deal_amount, created_at FROM deals WHERE deal_timestamp < ? ORDER BY id LIMIT ?";
+
+    private static final RowMapper<ArchivedDeal> ROW = (rs, rowNum) -> new ArchivedDeal(rs.getLong(1),
+            rs.getString(2), rs.getString(3), rs.getString(4), rs.getObject(5, LocalDateTime.class),
+            rs.getObject(6, BigDecimal.class), rs.getObject(7, LocalDateTime.class));
+
+    private final ArchiveProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final DealShards shards;
+    private final Path directory;
+    private final List<ArchiveFile> files = new CopyOnWriteArrayList<>();
+    private final Set<Path> loaded = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final ArchiveLock lock;
+    private final Object scanLock = new Object();
+    private volatile long lastScan;
+    private final Counter archived;
+    private final Counter falsePositives;
+
+    public DealArchive(ArchiveProperties properties, JdbcTemplate jdbcTemplate, ObjectProvider<DealShards> shards,
+                       ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards.getIfAvailable();
+        this.directory = Files.createDirectories(Path.of(properties.getDirectory()));
+        this.lock = new ArchiveLock(jdbcTemplate);
+        onLockShard(() -> {
+            lock.createTable();
+            return null;
+        });
+        files.addAll(scan());
+        lastScan = System.nanoTime();
+        log.info("Deal archive: {} files, {} deals in {}", files.size(),
+                files.stream().mapToLong(ArchiveFile::count).sum(), directory);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.archived = registry == null ? null : Counter.builder("fx.archive.deals").register(registry);
+        this.falsePositives = registry == null ? null : Counter.builder("fx.archive.false-positives").register(registry);
+        if (registry != null) {
+            Gauge.builder("fx.archive.files", files, List::size).register(registry);
+        }
+    }
+
+    /**
+     * The archived deal with this id, from the newest file holding it.
+     */
+    public Optional<ArchivedDeal> find(String dealUniqueId) {
+        Optional<ArchivedDeal> deal = find(dealUniqueId, files);
+        if (deal.isEmpty()) {
+            List<ArchiveFile> added = rescan();
+            if (!added.isEmpty()) {
+                deal = find(dealUniqueId, added);
+            }
+        }
+        return deal;
+    }
+
+    private Optional<ArchivedDeal> find(String dealUniqueId, List<ArchiveFile> candidates) {
+        for (ArchiveFile file : candidates) {
+            if (!file.mightContain(dealUniqueId)) {
+                continue;
+            }
+            try {
+                Optional<ArchivedDeal> deal = file.find(dealUniqueId);
+                if (deal.isPresent()) {
+                    return deal;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot read archive file " + file.path(), ex);
+            }
+            if (falsePositives != null) {
+                falsePositives.increment();
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean contains(String dealUniqueId) {
+        return find(dealUniqueId).isPresent();
+    }
+
+    public List<ArchiveFile> files() {
+        return List.copyOf(files);
+    }
+
+    @Scheduled(cron = "${fx.archive.schedule:0 30 2 * * *}")
+    public void archive() {
+        try {
+            archiveOlderThan(LocalDateTime.now().minus(properties.getMaxAge()));
+        } catch (RuntimeException ex) {
+            log.error("Deal archival failed, will retry on the next run: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Archives every deal with a dealTimestamp before the cutoff, shard by shard when sharded.
+     * Returns the number of deals archived, 0 when another instance holds the archival lock.
+     */
+    public synchronized int archiveOlderThan(LocalDateTime cutoff) {
+        if (!onLockShard(() -> lock.tryAcquire(properties.getLockLease()))) {
+            log.info("Deal archival skipped: another instance is archiving");
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            int shardCount = shards == null ? 1 : shards.getShardCount();
+            int total = 0;
+            for (int shard = 0; shard < shardCount; shard++) {
+                total += shards == null ? archiveBatches(cutoff) : ShardContext.callOn(shard, () -> archiveBatches(cutoff));
+            }
+            log.info("Archived {} deals older than {} in {} ms", total, cutoff, (System.nanoTime() - start) / 1_000_000);
+            return total;
+        } finally {
+            onLockShard(() -> {
+                lock.release();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * The lock row lives on the first shard when sharded.
+     */
+    private <T> T onLockShard(Supplier<T> action) {
+        return shards == null ? action.get() : ShardContext.callOn(0, action);
+    }
+
+    /**
+     * Files of the directory not loaded yet, newest first: recent archives are the likeliest to be
+     * looked up.
+     */
+    private List<ArchiveFile> scan() throws IOException {
+        List<ArchiveFile> found = new ArrayList<>();
+        try (Stream<Path> existing = Files.list(directory)) {
+            for (Path path : existing.filter(p -> p.getFileName().toString().endsWith(ArchiveFile.EXTENSION))
+                    .filter(p -> !loaded.contains(p))
+                    .sorted(Comparator.reverseOrder()).toList()) {
+                found.add(ArchiveFile.open(path));
+                loaded.add(path);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Loads the files another instance wrote since the last scan, at most once per rescan-interval.
+     */
+    private List<ArchiveFile> rescan() {
+        if (System.nanoTime() - lastScan < properties.getRescanInterval().toNanos()) {
+            return List.of();
+        }
+        synchronized (scanLock) {
+            if (System.nanoTime() - lastScan < properties.getRescanInterval().toNanos()) {
+                return List.of();
+            }
+            try {
+                List<ArchiveFile> added = scan();
+                files.addAll(0, added);
+                return added;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot list archive directory " + directory, ex);
+            } finally {
+                lastScan = System.nanoTime();
+            }
+        }
+    }
+
+    private int archiveBatches(LocalDateTime cutoff) {
+        int total = 0;
+        List<ArchivedDeal> batch;
+        do {
+            batch = ReadRouting.onPrimary(() -> jdbcTemplate.query(SELECT_SQL, ROW, cutoff, properties.getBatchSize()));
+            if (batch.isEmpty()) {
+                break;
+            }
+            ArchiveFile file = write(batch);
+            loaded.add(file.path());
+            files.add(0, file);
+            delete(batch);
+            total += batch.size();
+            if (archived != null) {
+                archived.increment(batch.size());
+            }
+            log.debug("Archived {} deals to {}", batch.size(), file.path());
+        } while (batch.size() == properties.getBatchSize());
+        return total;
+    }
+
+    private ArchiveFile write(List<ArchivedDeal> batch) {
+        Path path = directory.resolve("deals-%d-%04d%s".formatted(System.currentTimeMillis(),
+                sequence.getAndIncrement() % 10_000, ArchiveFile.EXTENSION));
+        try {
+            return ArchiveFile.write(path, batch, properties.getFalsePositiveRate());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write archive file " + path, ex);
+        }
+    }
+
+    private void delete(List<ArchivedDeal> batch) {
+        int chunkSize = properties.getDeleteChunkSize();
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<ArchivedDeal> chunk = batch.subList(from, Math.min(batch.size(), from + chunkSize));
+            String placeholders = chunk.stream().map(d -> "?").collect(Collectors.joining(","));
+            jdbcTemplate.update("DELETE FROM deals WHERE id IN (" + placeholders + ")",
+                    chunk.stream().map(ArchivedDeal::id).toArray());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.progressoft.fxdealsystem.chunking;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Chunk size and parallelism of bulk imports (fx.bulk.*), tuned by {@link ChunkTuner} from the
+ * latency of every chunk, or pinned through PUT /api/admin/bulk-chunking.
+ *
+ * Chunks of a bulk written in parallel run on fx.bulk.max-parallelism worker threads shared by all
+ * bulks; with a parallelism of 1 they stay on the caller's thread. Either way a chunk first takes
+ * one of fx.lanes.batch.threads connection permits ({@link #withConnection}), so that all bulks
+ * together hold no more connections than the batch lane's share of the pool. The permits are a
+ * semaphore in front of the shared Hikari pool, not a partition of it: only bulk chunks take them.
+ * Without lanes (fx.lanes.enabled=false, as in the virtual-threads profile) there are none.
+ * Metrics: fx.bulk.chunk-size, fx.bulk.parallelism and fx.bulk.chunk.latency.
+ */
+@Component
+@EnableConfigurationProperties(ChunkingProperties.class)
+@Slf4j
+public class BulkChunking implements DisposableBean {
+
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final ChunkTuner tuner;
+    private final ExecutorService workers;
+    private final Semaphore connections;
+    private final Timer latency;
+
+    public BulkChunking(ChunkingProperties properties, ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${fx.lanes.enabled:true}") boolean lanesEnabled,
+                        @Value("${fx.lanes.batch.threads:4}") int batchThreads) {
+        this.tuner = new ChunkTuner(properties, System::nanoTime);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getMaxParallelism(), r -> {
+            Thread t = new Thread(r, "bulk-chunk-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // without lanes, bulks run on request threads as before: no budget
+        this.connections = lanesEnabled ? new Semaphore(Math.max(1, batchThreads)) : null;
+        if (connections != null && properties.getMaxParallelism() > batchThreads) {
+            log.info("fx.bulk.max-parallelism ({}) is above fx.lanes.batch.threads ({}): parallel chunks beyond it "
+                    + "wait for a connection", properties.getMaxParallelism(), batchThreads);
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("fx.bulk.chunk-size", tuner, ChunkTuner::getChunkSize)
+                    .description("Deals per bulk transaction").register(registry);
+            Gauge.builder("fx.bulk.parallelism", tuner, ChunkTuner::getParallelism)
+                    .description("Chunks of a bulk written at once").register(registry);
+            latency = Timer.builder("fx.bulk.chunk.latency")
+                    .description("Time to validate, check and commit one bulk chunk")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+        } else {
+            latency = null;
+        }
+    }
+
+    public int getChunkSize() {
+        return tuner.getChunkSize();
+    }
+
+    public int getParallelism() {
+        return tuner.getParallelism();
+    }
+
+    public ChunkTuner getTuner() {
+        return tuner;
+    }
+
+    /**
+     * Records a committed chunk of the given size.
+     */
+    public void record(int deals, long nanos) {
+        tuner.record(deals, nanos);
+        if (latency != null) {
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs a chunk once it holds one of the batch connection permits, shared by all bulks.
+     */
+    public <T> T withConnection(Supplier<T> chunk) {
+        if (connections == null) {
+            return chunk.get();
+        }
+        connections.acquireUninterruptibly();
+        try {
+            return chunk.get();
+        } finally {
+            connections.release();
+        }
+    }
+
+    /**
+     * Runs one chunk on a worker, with the caller's MDC and current observation.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> chunk) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        ContextSnapshot context = SNAPSHOTS.captureAll();
+        return CompletableFuture.supplyAsync(() -> {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try (ContextSnapshot.Scope scope = context.setThreadLocals()) {
+                return chunk.get();
+            } finally {
+                MDC.clear();
+            }
+        }, workers);
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdown();
+    }
+}
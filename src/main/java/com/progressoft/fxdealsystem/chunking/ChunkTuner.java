@@ -0,0 +1,175 @@
+package com.progressoft.fxdealsystem.chunking;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Chunk size and parallelism of bulk imports, adjusted from the measured chunk latencies.
+ * <ul>
+ *     <li>Chunk size: after each full-size chunk, the size that would commit in the target
+ *     latency at the observed cost per deal (moving average), at most halved or doubled at a time.
+ *     With a fixed cost per transaction a and a cost per deal b, this converges to a + b * size =
+ *     target: as large as the target allows, so that a is amortized, and no larger.</li>
+ *     <li>Parallelism: one step per window of chunks, towards the neighbouring value with the best
+ *     throughput (deals per second of wall-clock time, by more than 5 %), trying each value once on the way up. A neighbour is
+ *     measured again every few windows, since the best value moves with the database load. It
+ *     steps down while chunks take more than twice the target even at the minimum size.</li>
+ * </ul>
+ * Chunks much smaller than the current size (the tail of a bulk, small bulks) are not sampled:
+ * their cost per deal is mostly transaction overhead.
+ */
+public final class ChunkTuner {
+
+    private static final double COST_SMOOTHING = 0.3;
+    private static final double BETTER = 1.05;
+    private static final int PROBE_EVERY = 10;
+
+    private final ChunkingProperties settings;
+    private final LongSupplier clock;
+    private int chunkSize;
+    private int parallelism;
+    private boolean adaptive;
+    private double nanosPerDeal;
+    private int windowChunks;
+    private long windowDeals;
+    private long windowNanos;
+    private long windowStart;
+    private final double[] throughput;
+    private boolean settling;
+    private int windowsSinceProbe;
+    private boolean probeUp = true;
+    private long samples;
+
+    public ChunkTuner(ChunkingProperties settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+        this.chunkSize = Math.max(1, settings.getChunkSize());
+        this.parallelism = clamp(settings.getParallelism(), 1, settings.getMaxParallelism());
+        this.adaptive = settings.isAdaptive();
+        this.throughput = new double[settings.getMaxParallelism() + 2];
+    }
+
+    public synchronized int getChunkSize() {
+        return chunkSize;
+    }
+
+    public synchronized int getParallelism() {
+        return parallelism;
+    }
+
+    public synchronized boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Latest cost per deal in nanoseconds, 0 before the first sample.
+     */
+    public synchronized double getNanosPerDeal() {
+        return nanosPerDeal;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Records one committed chunk.
+     */
+    public synchronized void record(int deals, long nanos) {
+        if (!adaptive || deals < chunkSize / 2 || nanos <= 0) {
+            return;
+        }
+        samples++;
+        resize(deals, nanos);
+        long now = clock.getAsLong();
+        if (windowChunks == 0) {
+            windowStart = now - nanos;
+        }
+        windowChunks++;
+        windowDeals += deals;
+        windowNanos += nanos;
+        if (windowChunks >= settings.getWindow()) {
+            retune(now - windowStart);
+            windowChunks = 0;
+            windowDeals = 0;
+            windowNanos = 0;
+        }
+    }
+
+    /**
+     * Fixes chunk size and parallelism until {@link #resume()}; values are kept within the
+     * configured bounds.
+     */
+    public synchronized void pin(int chunkSize, int parallelism) {
+        this.chunkSize = clamp(chunkSize, settings.getMinChunkSize(), settings.getMaxChunkSize());
+        this.parallelism = clamp(parallelism, 1, settings.getMaxParallelism());
+        this.adaptive = false;
+    }
+
+    /**
+     * Adapts again, starting from the current values.
+     */
+    public synchronized void resume() {
+        adaptive = true;
+        nanosPerDeal = 0;
+        Arrays.fill(throughput, 0);
+        settling = false;
+        windowsSinceProbe = 0;
+        windowChunks = 0;
+        windowDeals = 0;
+        windowNanos = 0;
+    }
+
+    private void resize(int deals, long nanos) {
+        double perDeal = (double) nanos / deals;
+        nanosPerDeal = nanosPerDeal == 0 ? perDeal : nanosPerDeal + (perDeal - nanosPerDeal) * COST_SMOOTHING;
+        double target = settings.getTargetLatency().toNanos() / nanosPerDeal;
+        target = Math.max(chunkSize / 2.0, Math.min(chunkSize * 2.0, target));
+        chunkSize = clamp((int) Math.round(chunkSize + (target - chunkSize) / 2),
+                settings.getMinChunkSize(), settings.getMaxChunkSize());
+    }
+
+    private void retune(long wallNanos) {
+        if (settling) {
+            // first window after a change: chunk sizes still adjusting to the new parallelism
+            settling = false;
+            return;
+        }
+        if (wallNanos > 2 * windowNanos) {
+            // far longer than its chunks one after the other: the window spans idle time between bulks
+            return;
+        }
+        double meanLatency = (double) windowNanos / windowChunks;
+        // deals per nanosecond, all bulks together
+        throughput[parallelism] = windowDeals / (double) wallNanos;
+        windowsSinceProbe++;
+
+        int next = parallelism;
+        if (meanLatency > 2.0 * settings.getTargetLatency().toNanos() && chunkSize == settings.getMinChunkSize()) {
+            next = parallelism - 1;
+        } else if (parallelism < settings.getMaxParallelism() && throughput[parallelism + 1] == 0) {
+            next = parallelism + 1;
+        } else {
+            for (int neighbour : new int[]{parallelism - 1, parallelism + 1}) {
+                if (neighbour >= 1 && neighbour <= settings.getMaxParallelism()
+                        && throughput[neighbour] > throughput[next] * BETTER) {
+                    next = neighbour;
+                }
+            }
+            if (next == parallelism && windowsSinceProbe >= PROBE_EVERY) {
+                // conditions change: measure a neighbour again once in a while
+                windowsSinceProbe = 0;
+                next = (probeUp && parallelism < settings.getMaxParallelism()) || parallelism == 1
+                        ? parallelism + 1 : parallelism - 1;
+                probeUp = !probeUp;
+            }
+        }
+        next = clamp(next, 1, settings.getMaxParallelism());
+        settling = next != parallelism;
+        parallelism = next;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
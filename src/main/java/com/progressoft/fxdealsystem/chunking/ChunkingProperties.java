@@ -0,0 +1,50 @@
+package com.progressoft.fxdealsystem.chunking;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Chunking of POST /api/deals/bulk: deals per transaction and chunks written at once.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.bulk")
+public class ChunkingProperties {
+
+    /**
+     * Deals per transaction at startup, and for good when adaptive=false.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Chunks of one bulk written at once at startup, and for good when adaptive=false.
+     */
+    private int parallelism = 1;
+
+    /**
+     * Adjusts chunk size and parallelism from the measured chunk latencies.
+     */
+    private boolean adaptive = true;
+
+    /**
+     * Commit latency aimed at for one chunk: long enough to amortize the per-transaction cost,
+     * short enough to keep locks and connections briefly.
+     */
+    private Duration targetLatency = Duration.ofMillis(250);
+
+    private int minChunkSize = 50;
+
+    private int maxChunkSize = 5_000;
+
+    /**
+     * Also the number of worker threads shared by all bulks. Their connections come out of the
+     * batch lane's fx.lanes.batch.threads, so a value above it only queues chunks.
+     */
+    private int maxParallelism = 4;
+
+    /**
+     * Chunks measured between two parallelism adjustments.
+     */
+    private int window = 8;
+}
@@ -0,0 +1,154 @@
+package com.progressoft.fxdealsystem.config;
+
+import com.progressoft.fxdealsystem.exception.PayloadTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Accepts request bodies sent with Content-Encoding: gzip (any format: JSON, CBOR, Smile).
+ * The body is inflated as it is read, never buffered whole, and cut off with 413 once it goes past
+ * fx.gzip.max-inflated-size, whatever the endpoint.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private final long maxInflatedBytes;
+
+    public GzipRequestFilter(@Value("${fx.gzip.max-inflated-size:64MB}") DataSize maxInflatedSize) {
+        this.maxInflatedBytes = maxInflatedSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(new InflatedRequest(request, maxInflatedBytes), response);
+    }
+
+    private static class InflatedRequest extends HttpServletRequestWrapper {
+
+        private final long maxBytes;
+        private ServletInputStream body;
+
+        InflatedRequest(HttpServletRequest request, long maxBytes) {
+            super(request);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new InflatingInputStream(new GZIPInputStream(super.getInputStream(), 8192), maxBytes);
+            }
+            return body;
+        }
+
+        // the compressed length and encoding no longer describe what the application reads
+        @Override
+        public String getHeader(String name) {
+            return hidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        private boolean hidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static class InflatingInputStream extends ServletInputStream {
+
+        private final InputStream in;
+        private final long maxBytes;
+        private long inflated;
+        private boolean finished;
+
+        InflatingInputStream(InputStream in, long maxBytes) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            if (b >= 0) {
+                inflated(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            finished = n < 0;
+            if (n > 0) {
+                inflated(n);
+            }
+            return n;
+        }
+
+        // a few MB of gzip can inflate to GBs: stop at the limit rather than fill the heap or the disk
+        private void inflated(int n) {
+            inflated += n;
+            if (inflated > maxBytes) {
+                throw new PayloadTooLargeException("Request body over " + maxBytes + " bytes once inflated");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Async reads are not supported for gzip bodies");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
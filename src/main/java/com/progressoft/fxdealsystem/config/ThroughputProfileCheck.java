@@ -0,0 +1,46 @@
+package com.progressoft.fxdealsystem.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Warns at startup when a production profile runs without the high-throughput tuning
+ * (pool sizing, statement caching, batch rewriting, SQL logging off).
+ */
+@Component
+@Slf4j
+public class ThroughputProfileCheck {
+
+    static final String HIGH_THROUGHPUT = "high-throughput";
+
+    private final Environment environment;
+    private final List<String> productionProfiles;
+
+    public ThroughputProfileCheck(Environment environment,
+                                  @Value("${fx.production-profiles:docker,prod}") List<String> productionProfiles) {
+        this.environment = environment;
+        this.productionProfiles = productionProfiles;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkProfiles() {
+        boolean production = productionProfiles.stream().anyMatch(p -> environment.acceptsProfiles(Profiles.of(p)));
+        if (!production) {
+            return;
+        }
+        if (!environment.acceptsProfiles(Profiles.of(HIGH_THROUGHPUT))) {
+            log.warn("Production profile active without the '{}' profile: connection pool, JDBC statement caching "
+                    + "and batching run on defaults", HIGH_THROUGHPUT);
+        }
+        if (environment.getProperty("spring.jpa.show-sql", Boolean.class, false)) {
+            log.warn("spring.jpa.show-sql is enabled in production, every SQL statement is logged");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.progressoft.fxdealsystem.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Binary formats next to JSON, picked by Content-Type / Accept: application/cbor and
+ * application/x-jackson-smile. Same DTOs, same validation; only the encoding differs.
+ * Timestamps go on the wire as [y, M, d, h, m, s] instead of a formatted string, and CBOR carries
+ * dealAmount as a native decimal fraction, so neither needs text parsing.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cbor(builder));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smile(builder));
+    }
+
+    /**
+     * Same formats for the reactive mode. WebFlux has no default slot for CBOR and custom codecs
+     * are consulted before JSON, so CBOR only answers to an explicit application/cbor.
+     */
+    @Bean
+    public CodecCustomizer binaryCodecs(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cbor = cbor(builder);
+        ObjectMapper smile = smile(builder);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smile));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cbor) {
+                @Override
+                public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+                    return explicitCbor(mimeType) && super.canDecode(elementType, mimeType);
+                }
+            });
+            configurer.customCodecs().register(new Jackson2CborEncoder(cbor) {
+                @Override
+                public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+                    return explicitCbor(mimeType) && super.canEncode(elementType, mimeType);
+                }
+            });
+        };
+    }
+
+    private static boolean explicitCbor(MimeType mimeType) {
+        return mimeType != null && mimeType.isConcrete() && MediaType.APPLICATION_CBOR.isCompatibleWith(mimeType);
+    }
+
+    // not beans: an ObjectMapper bean would replace Boot's JSON one
+    public static ObjectMapper cbor(Jackson2ObjectMapperBuilder builder) {
+        return binary(builder.build().copyWith(new CBORFactory()));
+    }
+
+    public static ObjectMapper smile(Jackson2ObjectMapperBuilder builder) {
+        return binary(builder.build().copyWith(new SmileFactory()));
+    }
+
+    static ObjectMapper binary(ObjectMapper mapper) {
+        return mapper
+                .addMixIn(DealRequest.class, BinaryTimestamps.class)
+                .addMixIn(DealResponse.class, BinaryTimestamps.class);
+    }
+
+    /**
+     * Overrides the string pattern declared on the DTOs for the binary formats only.
+     */
+    abstract static class BinaryTimestamps {
+        @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+        LocalDateTime dealTimestamp;
+        @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+        LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.progressoft.fxdealsystem.controller;
+
+import com.progressoft.fxdealsystem.exception.AdminAccessDeniedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the /api/admin/** endpoints, which share the public port with the import API: callers
+ * must send the shared secret fx.admin.token in X-Admin-Token. With no token configured the admin
+ * endpoints refuse every call, so a deployment has to opt in to runtime reconfiguration.
+ */
+@Component
+public class AdminAccess {
+
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+
+    public AdminAccess(@Value("${fx.admin.token:}") String token) {
+        this.token = token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @throws AdminAccessDeniedException when admin endpoints are disabled or the token does not match
+     */
+    public void check(String presented) {
+        if (token == null) {
+            throw new AdminAccessDeniedException("Admin endpoints are disabled; set fx.admin.token to enable them");
+        }
+        // comparaison en temps constant : la durée ne révèle pas le préfixe correct
+        if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            throw new AdminAccessDeniedException("Missing or invalid " + HEADER + " header");
+        }
+    }
+}
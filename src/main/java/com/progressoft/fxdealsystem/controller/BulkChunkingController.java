@@ -0,0 +1,61 @@
+package com.progressoft.fxdealsystem.controller;
+
+import com.progressoft.fxdealsystem.chunking.BulkChunking;
+import com.progressoft.fxdealsystem.chunking.ChunkTuner;
+import com.progressoft.fxdealsystem.exception.InvalidConfigException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Consultation et forçage à chaud du découpage des imports en masse (fx.bulk.*), réservés aux
+ * appels portant fx.admin.token (voir AdminAccess)
+ */
+@RestController
+@RequestMapping("/api/admin/bulk-chunking")
+@RequiredArgsConstructor
+@Slf4j
+public class BulkChunkingController {
+
+    private final BulkChunking chunking;
+    private final AdminAccess adminAccess;
+
+    @GetMapping
+    public ChunkingView getChunking(@RequestHeader(value = AdminAccess.HEADER, required = false) String token) {
+        adminAccess.check(token);
+        return view();
+    }
+
+    /**
+     * Fige chunkSize et parallelism (bornés par fx.bulk.*) ; avec adaptive=true, l'ajustement reprend
+     * à partir de ces valeurs. Un champ absent garde la valeur courante
+     */
+    @PutMapping
+    public ChunkingView updateChunking(@RequestHeader(value = AdminAccess.HEADER, required = false) String token,
+                                       @RequestBody ChunkingUpdate update) {
+        adminAccess.check(token);
+        ChunkTuner tuner = chunking.getTuner();
+        if ((update.chunkSize() != null && update.chunkSize() < 1) || (update.parallelism() != null && update.parallelism() < 1)) {
+            throw new InvalidConfigException("chunkSize and parallelism must be positive");
+        }
+        tuner.pin(update.chunkSize() == null ? tuner.getChunkSize() : update.chunkSize(),
+                update.parallelism() == null ? tuner.getParallelism() : update.parallelism());
+        if (Boolean.TRUE.equals(update.adaptive())) {
+            tuner.resume();
+        }
+        log.info("Bulk chunking updated: {}", view());
+        return view();
+    }
+
+    private ChunkingView view() {
+        ChunkTuner tuner = chunking.getTuner();
+        return new ChunkingView(tuner.getChunkSize(), tuner.getParallelism(), tuner.isAdaptive(),
+                tuner.getNanosPerDeal() / 1_000, tuner.getSamples());
+    }
+
+    public record ChunkingUpdate(Integer chunkSize, Integer parallelism, Boolean adaptive) {
+    }
+
+    public record ChunkingView(int chunkSize, int parallelism, boolean adaptive, double microsPerDeal, long samples) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.progressoft.fxdealsystem.controller;
+
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * HTTP caching of deal reads. An imported deal never changes, so a single deal is served with an
+ * ETag (database id and creation time), Last-Modified and an immutable Cache-Control; a request
+ * carrying a matching If-None-Match or If-Modified-Since gets 304 without a body.
+ *
+ * The ETag is weak: it names the deal, not the bytes. The same deal is sent as JSON, CBOR or Smile
+ * depending on Accept, and with a different message from the table, the recent-deals store or the
+ * archive, so the representations are only semantically equivalent.
+ */
+public final class DealCaching {
+
+    /**
+     * Private: deals are business data, not to be kept by shared caches.
+     */
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+
+    private DealCaching() {
+    }
+
+    public static String etag(DealResponse deal) {
+        return "W/\"deal-" + deal.getId() + "-" + micros(deal) + "\"";
+    }
+
+    /**
+     * 200 with the caching headers; Spring turns it into a 304 when the request's validators match.
+     */
+    public static ResponseEntity<DealResponse> ok(DealResponse deal) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag(deal))
+                .cacheControl(IMMUTABLE)
+                .varyBy(HttpHeaders.ACCEPT);
+        if (deal.getCreatedAt() != null) {
+            response.lastModified(deal.getCreatedAt().atZone(ZoneId.systemDefault()));
+        }
+        return response.body(deal);
+    }
+
+    private static long micros(DealResponse deal) {
+        return deal.getCreatedAt() == null ? 0 : deal.getCreatedAt().toEpochSecond(ZoneOffset.UTC) * 1_000_000
+                + deal.getCreatedAt().getNano() / 1_000;
+    }
+}
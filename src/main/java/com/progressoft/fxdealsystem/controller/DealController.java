@@ -1,65 +1,219 @@
 package com.progressoft.fxdealsystem.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.progressoft.fxdealsystem.dto.DealRequest;
 import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
 import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.lanes.ImportLanes;
+import com.progressoft.fxdealsystem.lanes.LaneProperties;
+import com.progressoft.fxdealsystem.limit.ImportLimiter;
+import com.progressoft.fxdealsystem.payload.BulkPayload;
+import com.progressoft.fxdealsystem.payload.BulkPayloads;
 import com.progressoft.fxdealsystem.service.DealService;
-import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/deals")
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class DealController {
 
     private final DealService dealService;
 
+    private final ImportLanes importLanes;
+
+    private final ObjectMapper objectMapper;
+
+    private final BulkPayloads bulkPayloads;
+
+    private final LaneProperties laneProperties;
+
+    @Value("${fx.lookup.max-ids:100000}")
+    private int maxLookupIds = 100_000;
+
+    /**
+     * Admission control, present when fx.limits.enabled=true
+     */
+    @Autowired(required = false)
+    private ImportLimiter importLimiter;
+
     /**
      * Importer un seul deal
      */
     @PostMapping
-    public ResponseEntity<DealResponse> importDeal(@Valid @RequestBody DealRequest request) {
-        log.info("Received request to import deal: {}", request.getDealUniqueId());
-        DealResponse response = dealService.importDeal(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    public DeferredResult<ResponseEntity<DealResponse>> importDeal(@RequestBody DealRequest request,
+                                                                   HttpServletRequest httpRequest) {
+        log.debug("Received request to import deal: {}", request.getDealUniqueId());
+        ImportLimiter.Permit permit = acquire(httpRequest, 1);
+        return deferred(importLanes.interactive(() -> dealService.importDeal(request))
+                .whenComplete((response, ex) -> release(permit, ex))
+                .thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response)),
+                laneProperties.getInteractive().getTimeout());
     }
 
     /**
-     * Importer plusieurs deals (bulk)
+     * Importer plusieurs deals (bulk). Corps lu par BulkPayloads : au-delà du seuil, écrit sur disque puis importé par tranches.
+     * Client en dette ou service saturé : refus avant la lecture du corps
      */
     @PostMapping("/bulk")
-    public ResponseEntity<List<DealResponse>> importDeals(@Valid @RequestBody List<DealRequest> requests) {
-        log.info("Received bulk request with {} deals", requests.size());
-        List<DealResponse> responses = dealService.importDeals(requests);
-        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+    public DeferredResult<ResponseEntity<?>> importDeals(HttpServletRequest httpRequest) throws IOException {
+        if (importLimiter != null) {
+            importLimiter.admit(httpRequest);
+        }
+        BulkPayload payload = bulkPayloads.read(httpRequest);
+        log.debug("Received bulk request with {} deals ({} bytes)", payload.size(), payload.getBytes());
+        ImportLimiter.Permit permit;
+        try {
+            permit = acquire(httpRequest, payload.size());
+        } catch (RuntimeException ex) {
+            payload.close();
+            throw ex;
+        }
+        CompletableFuture<ResponseEntity<?>> result;
+        if (payload.isSpilled()) {
+            MediaType responseType = bulkPayloads.responseType(httpRequest, payload);
+            result = importLanes.batch(() -> bulkPayloads.importInSlices(payload, dealService::importDeals, responseType))
+                    .thenApply(responses -> ResponseEntity.status(HttpStatus.CREATED).contentType(responseType).body(responses));
+        } else {
+            result = importLanes.batch(() -> payload.measure(() -> dealService.importDeals(payload.getDeals())))
+                    .thenApply(responses -> ResponseEntity.status(HttpStatus.CREATED).body(responses));
+        }
+        return deferred(result.whenComplete((response, ex) -> {
+            release(permit, ex);
+            payload.close();
+        }), laneProperties.getBatch().getTimeout());
+    }
+
+    /**
+     * Attente de l'import avec le délai de son couloir (0 : aucun) plutôt que celui de spring.mvc.async.
+     * Passé ce délai : 503, l'import continue
+     */
+    private static <T> DeferredResult<T> deferred(CompletableFuture<T> future, Duration timeout) {
+        DeferredResult<T> result = new DeferredResult<>(timeout.toMillis());
+        result.onTimeout(() -> result.setErrorResult(new ImportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 1,
+                "Import still running after " + timeout.toMillis() + " ms; look the deals up before retrying")));
+        future.whenComplete((value, ex) -> {
+            if (ex != null) {
+                result.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            } else {
+                result.setResult(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Null when admission control is disabled
+     */
+    private ImportLimiter.Permit acquire(HttpServletRequest httpRequest, int deals) {
+        return importLimiter == null ? null : importLimiter.acquire(httpRequest, deals);
+    }
+
+    /**
+     * Import terminé : échantillon de latence ; échec : voir Permit.fail
+     */
+    private static void release(ImportLimiter.Permit permit, Throwable failure) {
+        if (permit == null) {
+            return;
+        }
+        if (failure == null) {
+            permit.close();
+        } else {
+            permit.fail(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+        }
     }
 
     /**
-     * Récupérer tous les deals
+     * Récupérer tous les deals. L'ETag est vérifié avant de lire la liste : un client à jour reçoit 304 sans requête complète
      */
     @GetMapping
-    public ResponseEntity<List<DealResponse>> getAllDeals() {
-        log.info("Request to get all deals");
-        return ResponseEntity.ok(dealService.getAllDeals());
+    public ResponseEntity<List<DealResponse>> getAllDeals(WebRequest webRequest) {
+        log.debug("Request to get all deals");
+        // version lue avant la liste : au pire la liste est plus récente que son ETag, et le prochain appel la renvoie.
+        // ETag faible : Tomcat ne compresse pas une réponse portant un ETag fort
+        String etag = "W/\"deals-" + dealService.getListingVersion() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(dealService.getAllDeals());
     }
 
     /**
-     * Récupérer un deal par uniqueId
+     * Récupérer un deal par uniqueId (ETag faible, immuable : 304 si le client l'a déjà)
      */
     @GetMapping("/{dealUniqueId}")
     public ResponseEntity<DealResponse> getDealByUniqueId(@PathVariable String dealUniqueId) {
-        log.info("Request to get deal: {}", dealUniqueId);
+        log.debug("Request to get deal: {}", dealUniqueId);
 
         DealResponse response = dealService.getDealByUniqueId(dealUniqueId);
 
-        return ResponseEntity.ok(response);
+        return DealCaching.ok(response);
+    }
+
+    /**
+     * Rechercher plusieurs deals en un appel : {"found": [...], "missing": [...]}, écrit au fil des lots
+     */
+    @PostMapping(value = "/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> lookupDeals(@RequestBody List<String> dealUniqueIds) {
+        log.debug("Lookup of {} deals", dealUniqueIds.size());
+        if (dealUniqueIds.size() > maxLookupIds) {
+            throw new InvalidDealException("At most " + maxLookupIds + " deal ids per lookup, got " + dealUniqueIds.size());
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> writeLookup(dealUniqueIds, out));
+    }
+
+    private void writeLookup(List<String> dealUniqueIds, OutputStream out) throws IOException {
+        List<String> missing = new ArrayList<>();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("found");
+            dealService.lookupDeals(dealUniqueIds, deal -> {
+                try {
+                    json.writeObject(deal);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, missing::add);
+            json.writeEndArray();
+            json.writeArrayFieldStart("missing");
+            for (String id : missing) {
+                json.writeString(id);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
     }
 
     /**
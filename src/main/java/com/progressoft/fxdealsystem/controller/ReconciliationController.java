@@ -0,0 +1,68 @@
+package com.progressoft.fxdealsystem.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progressoft.fxdealsystem.reconcile.DealReconciler;
+import com.progressoft.fxdealsystem.reconcile.ReconcilePlan;
+import com.progressoft.fxdealsystem.reconcile.ReconcileSummary;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Rapprochement d'un fichier de deals (JSON ou CSV) avec la table : {"differences": [...], "summary": {...}}
+ */
+@RestController
+@RequestMapping("/api/deals/reconcile")
+@Profile("!reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationController {
+
+    private final DealReconciler dealReconciler;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Le fichier est lu et découpé avant la réponse (erreur de format : 400), les différences sont écrites au fil de l'eau
+     */
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> reconcile(HttpServletRequest request) throws IOException {
+        boolean csv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+        ReconcilePlan plan = dealReconciler.prepare(request.getInputStream(), csv);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            try (plan) {
+                writeReconciliation(plan, out);
+            }
+        });
+    }
+
+    private void writeReconciliation(ReconcilePlan plan, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("differences");
+            ReconcileSummary summary = dealReconciler.run(plan, difference -> {
+                try {
+                    json.writeObject(difference);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            json.writeEndArray();
+            json.writeObjectField("summary", summary);
+            json.writeEndObject();
+            log.info("Reconciliation done: {}", summary);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+}
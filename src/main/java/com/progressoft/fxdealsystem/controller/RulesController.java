@@ -0,0 +1,49 @@
+package com.progressoft.fxdealsystem.controller;
+
+import com.progressoft.fxdealsystem.rules.RuleProperties;
+import com.progressoft.fxdealsystem.service.DealValidator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultation et remplacement à chaud des règles de validation (fx.rules.*), réservés aux appels
+ * portant fx.admin.token (voir AdminAccess)
+ */
+@RestController
+@RequestMapping("/api/admin/rules")
+@RequiredArgsConstructor
+@Slf4j
+public class RulesController {
+
+    private final DealValidator dealValidator;
+    private final AdminAccess adminAccess;
+
+    @GetMapping
+    public RulesView getRules(@RequestHeader(value = AdminAccess.HEADER, required = false) String token) {
+        adminAccess.check(token);
+        return view();
+    }
+
+    /**
+     * Remplace la configuration entière; une configuration invalide est refusée (400) et l'ancienne reste active
+     */
+    @PutMapping
+    public RulesView updateRules(@RequestHeader(value = AdminAccess.HEADER, required = false) String token,
+                                 @RequestBody RuleProperties properties) {
+        adminAccess.check(token);
+        dealValidator.reconfigure(properties);
+        log.info("Validation rules updated: {}", properties);
+        return view();
+    }
+
+    private RulesView view() {
+        return new RulesView(dealValidator.getProperties(), dealValidator.getRuleNames(), dealValidator.getRejections());
+    }
+
+    public record RulesView(RuleProperties config, List<String> rules, Map<String, Long> rejections) {
+    }
+}
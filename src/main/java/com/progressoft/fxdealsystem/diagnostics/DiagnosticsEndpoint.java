@@ -0,0 +1,54 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * /actuator/diagnostics: slowest recent imports and JFR recordings.
+ * <ul>
+ *   <li>GET: slowest imports with stage timings, recording files</li>
+ *   <li>POST {"duration": "60s"}: records from now on; without a duration, dumps the continuous recording</li>
+ *   <li>GET /{name}: downloads a recording, to open in JDK Mission Control or with {@code jfr print}</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(prefix = "fx.diagnostics", name = "enabled", havingValue = "true")
+@Endpoint(id = "diagnostics")
+public class DiagnosticsEndpoint {
+
+    private final ImportDiagnostics diagnostics;
+
+    public DiagnosticsEndpoint(ImportDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    @ReadOperation
+    public DiagnosticsView diagnostics() {
+        return new DiagnosticsView(diagnostics.getSlowest(), diagnostics.isContinuous(),
+                diagnostics.getRunningRecording().orElse(null), diagnostics.getRecordings());
+    }
+
+    @WriteOperation
+    public RecordingFile record(@Nullable Duration duration) {
+        return diagnostics.record(duration);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public Resource recording(@Selector String name) {
+        return diagnostics.getRecordingFile(name).map(FileSystemResource::new).orElse(null);
+    }
+
+    public record DiagnosticsView(List<SlowestRequests.Entry> slowest, boolean continuousRecording,
+                                  RecordingFile running, List<RecordingFile> recordings) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * In-process diagnostics: slow import capture and JFR recordings (/actuator/diagnostics).
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.diagnostics")
+public class DiagnosticsProperties {
+
+    private boolean enabled;
+
+    /**
+     * A single-deal import slower than this is slow: logged, and a recording is captured.
+     */
+    private Duration singleThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Same for a bulk import, whatever its size.
+     */
+    private Duration bulkThreshold = Duration.ofSeconds(30);
+
+    /**
+     * Slowest imports kept, with their stage timings.
+     */
+    private int slowestSize = 20;
+
+    /**
+     * Imports older than this leave the slowest list, so that it shows recent trouble.
+     */
+    private Duration slowestWindow = Duration.ofHours(1);
+
+    /**
+     * Low-overhead JFR recording ("default" settings) of the last {@link #continuousMaxAge},
+     * dumped to a file when a slow import is seen. Without it, a capture records what follows.
+     */
+    private boolean continuous;
+
+    private Duration continuousMaxAge = Duration.ofMinutes(2);
+
+    /**
+     * Length of on-demand recordings started without a duration, and of captures when
+     * {@link #continuous} is off. Uses the "profile" settings.
+     */
+    private Duration recordingDuration = Duration.ofSeconds(30);
+
+    private Duration maxRecordingDuration = Duration.ofMinutes(10);
+
+    /**
+     * Automatic captures are at most one per cooldown, however many imports are slow.
+     */
+    private Duration captureCooldown = Duration.ofMinutes(5);
+
+    private String directory = "logs/diagnostics";
+
+    /**
+     * Recording files kept in {@link #directory}; the oldest are deleted.
+     */
+    private int maxFiles = 10;
+}
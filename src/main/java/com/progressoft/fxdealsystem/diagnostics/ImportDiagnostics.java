@@ -0,0 +1,135 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import com.progressoft.fxdealsystem.logging.CorrelationIdFilter;
+import com.progressoft.fxdealsystem.logging.SampledLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Times importDeal / importDeals and their stages (fx.diagnostics.*). Keeps the slowest recent
+ * imports, and an import over its threshold is logged and triggers a JFR capture (at most one
+ * per fx.diagnostics.capture-cooldown).
+ *
+ * Metric: fx.diagnostics.slow-imports, tagged with the operation.
+ */
+@Component
+@ConditionalOnProperty(prefix = "fx.diagnostics", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DiagnosticsProperties.class)
+public class ImportDiagnostics implements DisposableBean {
+
+    public static final String SINGLE = "importDeal";
+    public static final String BULK = "importDeals";
+
+    private static final SampledLog SLOW_LOG = new SampledLog(LoggerFactory.getLogger(ImportDiagnostics.class), 1);
+
+    private final DiagnosticsProperties properties;
+    private final SlowestRequests slowest;
+    private final JfrRecordings recordings;
+    private final Counter slowSingles;
+    private final Counter slowBulks;
+
+    public ImportDiagnostics(DiagnosticsProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.slowest = new SlowestRequests(properties.getSlowestSize(), properties.getSlowestWindow());
+        this.recordings = new JfrRecordings(properties);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.slowSingles = registry == null ? null : Counter.builder("fx.diagnostics.slow-imports")
+                .tag("operation", SINGLE).register(registry);
+        this.slowBulks = registry == null ? null : Counter.builder("fx.diagnostics.slow-imports")
+                .tag("operation", BULK).register(registry);
+    }
+
+    /**
+     * Starts timing an import on this thread; null when an enclosing import is already timed.
+     */
+    public RequestTimings start(String operation, int deals) {
+        return RequestTimings.begin(operation, deals);
+    }
+
+    public void finish(RequestTimings timings) {
+        if (timings == null) {
+            return;
+        }
+        long nanos = timings.end();
+        boolean single = SINGLE.equals(timings.getOperation());
+        Duration threshold = single ? properties.getSingleThreshold() : properties.getBulkThreshold();
+        boolean slow = nanos >= threshold.toNanos();
+        SlowestRequests.Entry entry = null;
+        if (slow || nanos / 1e6 > slowest.floorMillis()) {
+            entry = entry(timings, nanos);
+            slowest.offer(entry);
+        }
+        if (!slow) {
+            return;
+        }
+        Counter counter = single ? slowSingles : slowBulks;
+        if (counter != null) {
+            counter.increment();
+        }
+        boolean captured = recordings.capture("slow-" + timings.getOperation());
+        SLOW_LOG.warn("Slow {} of {} deals: {} ms over {} ms, stages {}{}", timings.getOperation(),
+                timings.getDeals(), Math.round(entry.millis()), threshold.toMillis(), entry.stagesMs(),
+                captured ? ", JFR capture started" : "");
+    }
+
+    public List<SlowestRequests.Entry> getSlowest() {
+        return slowest.snapshot(Instant.now());
+    }
+
+    public List<RecordingFile> getRecordings() {
+        return recordings.list();
+    }
+
+    public Optional<RecordingFile> getRunningRecording() {
+        return recordings.running();
+    }
+
+    public boolean isContinuous() {
+        return recordings.isContinuous();
+    }
+
+    /**
+     * Without a duration, dumps the continuous recording (or, when it is off, records for
+     * fx.diagnostics.recording-duration); with one, records from now on.
+     */
+    public RecordingFile record(Duration duration) {
+        if (duration == null) {
+            Optional<RecordingFile> dumped = recordings.dump("on-demand");
+            if (dumped.isPresent()) {
+                return dumped.get();
+            }
+        }
+        return recordings.start("on-demand", duration != null ? duration : properties.getRecordingDuration());
+    }
+
+    public Optional<Path> getRecordingFile(String name) {
+        return recordings.file(name);
+    }
+
+    @Override
+    public void destroy() {
+        recordings.close();
+    }
+
+    private static SlowestRequests.Entry entry(RequestTimings timings, long nanos) {
+        Map<String, Double> stages = new LinkedHashMap<>();
+        timings.getStageNanos().forEach((stage, stageNanos) -> stages.put(stage, Math.round(stageNanos / 1e4) / 100.0));
+        return new SlowestRequests.Entry(Instant.now(), timings.getOperation(), timings.getDeals(),
+                Math.round(nanos / 1e4) / 100.0, stages, MDC.get(CorrelationIdFilter.MDC_KEY));
+    }
+}
@@ -0,0 +1,217 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * JFR recordings written to fx.diagnostics.directory: the continuous recording dumped on demand
+ * or after a slow import, and time-boxed "profile" recordings.
+ */
+@Slf4j
+class JfrRecordings implements AutoCloseable {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+            .withZone(ZoneOffset.UTC);
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.jfr");
+    // environment, system properties, JVM and process command lines: where passwords end up
+    private static final List<String> SECRET_EVENTS = List.of("jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.SystemProcess");
+
+    private final DiagnosticsProperties properties;
+    private final Path directory;
+    private final Recording continuous;
+    private final ExecutorService captures = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "jfr-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong lastCapture = new AtomicLong();
+    private Recording timed;
+    private Path timedFile;
+
+    JfrRecordings(DiagnosticsProperties properties) {
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.continuous = properties.isContinuous() ? startContinuous() : null;
+    }
+
+    /**
+     * Captures a recording around a slow import, off the calling thread. Returns false during the
+     * cooldown that follows a capture.
+     */
+    boolean capture(String reason) {
+        long now = System.nanoTime();
+        long last = lastCapture.get();
+        if (last != 0 && now - last < properties.getCaptureCooldown().toNanos()) {
+            return false;
+        }
+        if (!lastCapture.compareAndSet(last, now == 0 ? 1 : now)) {
+            return false;
+        }
+        captures.execute(() -> {
+            try {
+                if (continuous != null) {
+                    dump(reason);
+                } else {
+                    start(reason, properties.getRecordingDuration());
+                }
+            } catch (RuntimeException ex) {
+                log.warn("JFR capture failed: {}", ex.getMessage());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Writes what the continuous recording holds (the last fx.diagnostics.continuous-max-age).
+     */
+    Optional<RecordingFile> dump(String reason) {
+        if (continuous == null) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(fileName(reason));
+        try {
+            continuous.dump(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        prune();
+        log.info("JFR recording written to {}", file);
+        return Optional.of(RecordingFile.of(file, "complete"));
+    }
+
+    /**
+     * Starts a "profile" recording written to a file when it ends. One at a time: while one runs,
+     * it is returned instead.
+     */
+    synchronized RecordingFile start(String reason, Duration duration) {
+        if (timed != null && timed.getState() == RecordingState.RUNNING) {
+            return RecordingFile.running(timedFile);
+        }
+        Duration length = duration.compareTo(properties.getMaxRecordingDuration()) > 0
+                ? properties.getMaxRecordingDuration() : duration;
+        timedFile = directory.resolve(fileName(reason));
+        try {
+            timed = withoutSecrets(new Recording(Configuration.getConfiguration("profile")));
+            timed.setName("fx-" + reason);
+            timed.setDestination(timedFile);
+        } catch (IOException | ParseException ex) {
+            throw new IllegalStateException("Cannot create JFR recording: " + ex.getMessage(), ex);
+        }
+        timed.setDuration(length);
+        timed.start();
+        prune();
+        log.info("JFR recording of {} started, written to {}", length, timedFile);
+        return RecordingFile.running(timedFile);
+    }
+
+    synchronized List<RecordingFile> list() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> FILE_NAME.matcher(f.getFileName().toString()).matches())
+                    .map(f -> RecordingFile.of(f, "complete"))
+                    .sorted(Comparator.comparing(RecordingFile::modified).reversed())
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The time-boxed recording in progress; its file only appears once it ends.
+     */
+    synchronized Optional<RecordingFile> running() {
+        return timed != null && timed.getState() == RecordingState.RUNNING
+                ? Optional.of(RecordingFile.running(timedFile)) : Optional.empty();
+    }
+
+    /**
+     * A recording file of the directory, by name; empty for unknown or malformed names.
+     */
+    Optional<Path> file(String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    boolean isContinuous() {
+        return continuous != null;
+    }
+
+    @Override
+    public synchronized void close() {
+        captures.shutdownNow();
+        if (continuous != null) {
+            continuous.close();
+        }
+        if (timed != null) {
+            // stopping writes what was recorded so far
+            if (timed.getState() == RecordingState.RUNNING) {
+                timed.stop();
+            }
+            timed.close();
+        }
+    }
+
+    private Recording startContinuous() {
+        try {
+            Recording recording = withoutSecrets(new Recording(Configuration.getConfiguration("default")));
+            recording.setName("fx-continuous");
+            recording.setToDisk(true);
+            recording.setMaxAge(properties.getContinuousMaxAge());
+            recording.start();
+            return recording;
+        } catch (IOException | ParseException ex) {
+            throw new IllegalStateException("Cannot start the continuous JFR recording: " + ex.getMessage(), ex);
+        }
+    }
+
+    private synchronized void prune() {
+        List<RecordingFile> files = list();
+        for (RecordingFile old : files.subList(Math.min(files.size(), properties.getMaxFiles()), files.size())) {
+            Path path = directory.resolve(old.name());
+            if (!path.equals(timedFile)) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ex) {
+                    log.warn("Could not delete old recording {}: {}", path, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Recording withoutSecrets(Recording recording) {
+        SECRET_EVENTS.forEach(recording::disable);
+        return recording;
+    }
+
+    private static String fileName(String reason) {
+        return "fx-" + reason + "-" + STAMP.format(Instant.now()) + ".jfr";
+    }
+}
@@ -0,0 +1,25 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * A JFR recording file; state is "running" until a time-boxed recording has been written.
+ */
+public record RecordingFile(String name, long bytes, Instant modified, String state) {
+
+    static RecordingFile of(Path file, String state) {
+        try {
+            return new RecordingFile(file.getFileName().toString(), Files.size(file),
+                    Files.getLastModifiedTime(file).toInstant(), state);
+        } catch (IOException ex) {
+            return running(file);
+        }
+    }
+
+    static RecordingFile running(Path file) {
+        return new RecordingFile(file.getFileName().toString(), 0, Instant.now(), "running");
+    }
+}
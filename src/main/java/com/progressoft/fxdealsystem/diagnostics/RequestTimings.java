@@ -0,0 +1,90 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Stage durations of the import running on the current thread. Stages repeated per chunk add up,
+ * including those of chunks run on shard or chunk workers ({@link #callWith}), so a stage can
+ * exceed the wall-clock time of the import.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final String operation;
+    private final int deals;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private RequestTimings(String operation, int deals) {
+        this.operation = operation;
+        this.deals = deals;
+    }
+
+    /**
+     * Timings of the import in progress on this thread, or null.
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts timing an import on this thread, or returns null when one is already timed (a bulk
+     * falling back to single-deal imports).
+     */
+    static RequestTimings begin(String operation, int deals) {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        RequestTimings timings = new RequestTimings(operation, deals);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Runs the action with the given timings as current, on a worker thread doing part of the
+     * import. Null timings run the action as is.
+     */
+    public static <T> T callWith(RequestTimings timings, Supplier<T> action) {
+        if (timings == null) {
+            return action.get();
+        }
+        RequestTimings previous = CURRENT.get();
+        CURRENT.set(timings);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    long end() {
+        CURRENT.remove();
+        return System.nanoTime() - startNanos;
+    }
+
+    public void record(String stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    int getDeals() {
+        return deals;
+    }
+
+    Map<String, Long> getStageNanos() {
+        synchronized (stageNanos) {
+            return new LinkedHashMap<>(stageNanos);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The N slowest imports of the last window. Offering an import faster than all kept ones, once
+ * the list is full, only reads a volatile.
+ */
+public class SlowestRequests {
+
+    private final int size;
+    private final Duration window;
+    private final PriorityQueue<Entry> fastestFirst = new PriorityQueue<>(Comparator.comparingDouble(Entry::millis));
+    private volatile double floorMillis;
+
+    public SlowestRequests(int size, Duration window) {
+        this.size = Math.max(1, size);
+        this.window = window;
+    }
+
+    public void offer(Entry entry) {
+        if (entry.millis() <= floorMillis) {
+            return;
+        }
+        synchronized (fastestFirst) {
+            evictExpired(entry.at());
+            fastestFirst.add(entry);
+            if (fastestFirst.size() > size) {
+                fastestFirst.poll();
+            }
+            floorMillis = fastestFirst.size() < size ? 0 : fastestFirst.peek().millis();
+        }
+    }
+
+    /**
+     * Duration an import must exceed to enter the full list.
+     */
+    double floorMillis() {
+        return floorMillis;
+    }
+
+    /**
+     * Slowest first.
+     */
+    public List<Entry> snapshot(Instant now) {
+        synchronized (fastestFirst) {
+            evictExpired(now);
+            floorMillis = fastestFirst.size() < size ? 0 : fastestFirst.peek().millis();
+            List<Entry> entries = new ArrayList<>(fastestFirst);
+            entries.sort(Comparator.comparingDouble(Entry::millis).reversed());
+            return entries;
+        }
+    }
+
+    private void evictExpired(Instant now) {
+        Instant oldest = now.minus(window);
+        fastestFirst.removeIf(e -> e.at().isBefore(oldest));
+    }
+
+    /**
+     * One import: stage timings in milliseconds, in the order the stages first ran.
+     */
+    public record Entry(Instant at, String operation, int deals, double millis, Map<String, Double> stagesMs,
+                        String correlationId) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.progressoft.fxdealsystem.dto;
+
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Currency codes accepted for deals (ISO 4217 as known to the JVM, minus the XXX "no currency"
+ * code), numbered 0..n-1. Encoding a code is a table lookup on its three letters, case-insensitive,
+ * without building any String.
+ */
+public final class CurrencyCodes {
+
+    /**
+     * Not three letters, or not an accepted currency.
+     */
+    public static final short UNKNOWN = -1;
+
+    private static final String[] CODES;
+    private static final short[] BY_LETTERS = new short[26 * 26 * 26];
+
+    static {
+        CODES = Currency.getAvailableCurrencies().stream()
+                .map(Currency::getCurrencyCode)
+                .filter(code -> code.matches("[A-Z]{3}") && !"XXX".equals(code))
+                .sorted()
+                .toArray(String[]::new);
+        Arrays.fill(BY_LETTERS, UNKNOWN);
+        for (short i = 0; i < CODES.length; i++) {
+            BY_LETTERS[key(CODES[i])] = i;
+        }
+    }
+
+    private CurrencyCodes() {
+    }
+
+    public static short encode(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return UNKNOWN;
+        }
+        int key = key(code);
+        return key < 0 ? UNKNOWN : BY_LETTERS[key];
+    }
+
+    public static String decode(short index) {
+        return CODES[index];
+    }
+
+    public static int count() {
+        return CODES.length;
+    }
+
+    private static int key(CharSequence code) {
+        int key = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = Character.toUpperCase(code.charAt(i)) - 'A';
+            if (letter < 0 || letter >= 26) {
+                return -1;
+            }
+            key = key * 26 + letter;
+        }
+        return key;
+    }
+}
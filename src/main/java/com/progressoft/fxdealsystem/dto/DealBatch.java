@@ -0,0 +1,244 @@
+package com.progressoft.fxdealsystem.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A chunk of imported deals in struct-of-arrays form: one primitive array per field instead of one
+ * object graph per deal. Validation and JDBC binding read the columns directly, so a chunk costs a
+ * handful of arrays rather than an entity, upper-cased codes and copies of every value per deal.
+ * <ul>
+ *     <li>ids: one shared char buffer, with offset and length per row (length -1 when null)</li>
+ *     <li>currencies: {@link CurrencyCodes} index, {@link CurrencyCodes#UNKNOWN} or {@link #MISSING}</li>
+ *     <li>amounts: unscaled long at {@link #AMOUNT_SCALE}, the scale of the deal_amount column;
+ *     {@link #WIDE_AMOUNT} with the BigDecimal kept aside for the rare amounts a long cannot hold
+ *     (above about 9.22e14) that still fit DECIMAL(19,4)</li>
+ *     <li>timestamps: microseconds since 1970-01-01T00:00 (local date-time, no zone)</li>
+ * </ul>
+ * Not thread-safe; one batch belongs to one import call.
+ */
+public final class DealBatch {
+
+    public static final int AMOUNT_SCALE = 4;
+
+    /**
+     * Currency code null or blank.
+     */
+    public static final short MISSING = -2;
+
+    public static final long NO_AMOUNT = Long.MIN_VALUE;
+    public static final long AMOUNT_OUT_OF_RANGE = Long.MIN_VALUE + 1;
+    public static final long WIDE_AMOUNT = Long.MIN_VALUE + 2;
+    /**
+     * Digits of the deal_amount column, DECIMAL(19,4).
+     */
+    public static final int AMOUNT_PRECISION = 19;
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private int size;
+    private char[] idChars;
+    private int idCharCount;
+    private int[] idOffset;
+    private int[] idLength;
+    private short[] fromCurrency;
+    private short[] toCurrency;
+    private long[] amount;
+    private long[] timestamp;
+    // raw input of unknown currency codes, kept only for error messages
+    private String[] rawCurrency;
+    // amounts stored as WIDE_AMOUNT, scaled to AMOUNT_SCALE
+    private BigDecimal[] wideAmount;
+
+    public DealBatch(int capacity) {
+        idChars = new char[Math.max(capacity, 1) * 16];
+        idOffset = new int[capacity];
+        idLength = new int[capacity];
+        fromCurrency = new short[capacity];
+        toCurrency = new short[capacity];
+        amount = new long[capacity];
+        timestamp = new long[capacity];
+    }
+
+    public static DealBatch of(List<DealRequest> requests) {
+        DealBatch batch = new DealBatch(requests.size());
+        for (DealRequest request : requests) {
+            batch.add(request);
+        }
+        return batch;
+    }
+
+    public int add(DealRequest request) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        addId(row, request.getDealUniqueId());
+        fromCurrency[row] = currency(row, 0, request.getFromCurrencyIsoCode());
+        toCurrency[row] = currency(row, 1, request.getToCurrencyIsoCode());
+        amount[row] = scaledAmount(row, request.getDealAmount());
+        timestamp[row] = request.getDealTimestamp() == null ? NO_TIMESTAMP : epochMicros(request.getDealTimestamp());
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* ----------------- Column access ----------------- */
+
+    public boolean idIsBlank(int row) {
+        for (int i = idOffset[row], end = i + idLength[row]; i < end; i++) {
+            if (!Character.isWhitespace(idChars[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Materializes the id; only needed where a String is unavoidable (statement binding, messages).
+     */
+    public String id(int row) {
+        return idLength[row] < 0 ? null : new String(idChars, idOffset[row], idLength[row]);
+    }
+
+    public short fromCurrency(int row) {
+        return fromCurrency[row];
+    }
+
+    public short toCurrency(int row) {
+        return toCurrency[row];
+    }
+
+    /**
+     * Upper-case code of a known currency, shared instance from {@link CurrencyCodes}.
+     */
+    public String fromCode(int row) {
+        return CurrencyCodes.decode(fromCurrency[row]);
+    }
+
+    public String toCode(int row) {
+        return CurrencyCodes.decode(toCurrency[row]);
+    }
+
+    /**
+     * The code as received, for error messages about unknown currencies.
+     */
+    public String rawFromCurrency(int row) {
+        return rawCurrency == null ? null : rawCurrency[2 * row];
+    }
+
+    public String rawToCurrency(int row) {
+        return rawCurrency == null ? null : rawCurrency[2 * row + 1];
+    }
+
+    /**
+     * The amount unscaled, or one of {@link #NO_AMOUNT}, {@link #AMOUNT_OUT_OF_RANGE}, {@link #WIDE_AMOUNT}.
+     */
+    public long amountUnscaled(int row) {
+        return amount[row];
+    }
+
+    public BigDecimal amount(int row) {
+        return amount[row] == WIDE_AMOUNT ? wideAmount[row] : BigDecimal.valueOf(amount[row], AMOUNT_SCALE);
+    }
+
+    public int amountSignum(int row) {
+        return amount[row] == WIDE_AMOUNT ? wideAmount[row].signum() : Long.signum(amount[row]);
+    }
+
+    /**
+     * Whether the amount is at most the given unscaled amount; wide amounts included.
+     */
+    public boolean amountAtMost(int row, long maxUnscaled) {
+        return amount[row] == WIDE_AMOUNT
+                ? wideAmount[row].compareTo(BigDecimal.valueOf(maxUnscaled, AMOUNT_SCALE)) <= 0
+                : amount[row] <= maxUnscaled;
+    }
+
+    public long timestampMicros(int row) {
+        return timestamp[row];
+    }
+
+    public LocalDateTime timestamp(int row) {
+        long micros = timestamp[row];
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    public static long epochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1000;
+    }
+
+    /* ----------------- Encoding ----------------- */
+
+    private void addId(int row, String id) {
+        if (id == null) {
+            idOffset[row] = idCharCount;
+            idLength[row] = -1;
+            return;
+        }
+        if (idCharCount + id.length() > idChars.length) {
+            idChars = Arrays.copyOf(idChars, Math.max(idChars.length * 2, idCharCount + id.length()));
+        }
+        id.getChars(0, id.length(), idChars, idCharCount);
+        idOffset[row] = idCharCount;
+        idLength[row] = id.length();
+        idCharCount += id.length();
+    }
+
+    private short currency(int row, int side, String code) {
+        if (code == null || code.isBlank()) {
+            return MISSING;
+        }
+        short index = CurrencyCodes.encode(code);
+        if (index == CurrencyCodes.UNKNOWN) {
+            if (rawCurrency == null) {
+                rawCurrency = new String[2 * idOffset.length];
+            }
+            rawCurrency[2 * row + side] = code;
+        }
+        return index;
+    }
+
+    private long scaledAmount(int row, BigDecimal value) {
+        if (value == null) {
+            return NO_AMOUNT;
+        }
+        // deal_amount is DECIMAL(19,4): extra decimals are rounded by the database in the same way
+        BigDecimal scaled = value.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+        if (scaled.precision() > AMOUNT_PRECISION) {
+            return AMOUNT_OUT_OF_RANGE;
+        }
+        long unscaled = scaled.unscaledValue().bitLength() > 63 ? WIDE_AMOUNT : scaled.unscaledValue().longValue();
+        if (unscaled <= WIDE_AMOUNT) {
+            if (wideAmount == null) {
+                wideAmount = new BigDecimal[idOffset.length];
+            }
+            wideAmount[row] = scaled;
+            return WIDE_AMOUNT;
+        }
+        return unscaled;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= idOffset.length) {
+            return;
+        }
+        int grown = Math.max(capacity, idOffset.length * 2);
+        idOffset = Arrays.copyOf(idOffset, grown);
+        idLength = Arrays.copyOf(idLength, grown);
+        fromCurrency = Arrays.copyOf(fromCurrency, grown);
+        toCurrency = Arrays.copyOf(toCurrency, grown);
+        amount = Arrays.copyOf(amount, grown);
+        timestamp = Arrays.copyOf(timestamp, grown);
+        if (rawCurrency != null) {
+            rawCurrency = Arrays.copyOf(rawCurrency, 2 * grown);
+        }
+        if (wideAmount != null) {
+            wideAmount = Arrays.copyOf(wideAmount, grown);
+        }
+    }
+}
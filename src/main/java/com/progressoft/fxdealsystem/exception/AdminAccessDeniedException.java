@@ -0,0 +1,11 @@
+package com.progressoft.fxdealsystem.exception;
+
+/**
+ * Call to /api/admin/** without the configured fx.admin.token, or while no token is configured.
+ * Refused with 403 before the endpoint changes anything.
+ */
+public class AdminAccessDeniedException extends RuntimeException {
+    public AdminAccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -1,28 +1,44 @@
 package com.progressoft.fxdealsystem.exception;
 
+import com.progressoft.fxdealsystem.logging.SampledLog;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+    // rejected deals are client errors: WARN, at most 20 lines per second per kind, so that a flood
+    // of one kind does not hide the others
+    private static final SampledLog DUPLICATES = new SampledLog(log, 20);
+    private static final SampledLog INVALID_DEALS = new SampledLog(log, 20);
+    private static final SampledLog ADMISSION = new SampledLog(log, 20);
+    private static final SampledLog TOO_LARGE = new SampledLog(log, 20);
+    private static final SampledLog UNREADABLE = new SampledLog(log, 20);
+    private static final SampledLog VALIDATION = new SampledLog(log, 20);
+    private static final SampledLog NOT_FOUND = new SampledLog(log, 20);
+
     /**
      * Gestion des exceptions de duplication de deal -> 409
      */
     @ExceptionHandler(DuplicateDealException.class)
     public ResponseEntity<ErrorResponse> handleDuplicateDealException(DuplicateDealException ex) {
-        log.error("Duplicate deal error: {}", ex.getMessage());
+        DUPLICATES.warn("Duplicate deal error: {}", ex.getMessage());
 
         ErrorResponse error = new ErrorResponse(
                 LocalDateTime.now(),
@@ -39,7 +55,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(InvalidDealException.class)
     public ResponseEntity<ErrorResponse> handleInvalidDealException(InvalidDealException ex) {
-        log.error("Invalid deal error: {}", ex.getMessage());
+        INVALID_DEALS.warn("Invalid deal error: {}", ex.getMessage());
 
         ErrorResponse error = new ErrorResponse(
                 LocalDateTime.now(),
@@ -51,6 +67,115 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Import refusé par le contrôle d'admission -> 429 (débit du client) ou 503 (capacité du service)
+     */
+    @ExceptionHandler(ImportRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleImportRejectedException(ImportRejectedException ex) {
+        ADMISSION.warn("Import rejected: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                ex.getStatus().value(),
+                ex.getStatus().getReasonPhrase(),
+                ex.getMessage()
+        );
+
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Corps de bulk trop gros (octets ou nombre de deals) -> 413
+     */
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<ErrorResponse> handlePayloadTooLargeException(PayloadTooLargeException ex) {
+        TOO_LARGE.warn("Bulk body refused: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Payload Too Large",
+                ex.getMessage()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    /**
+     * Corps de requête illisible -> 400, ou 413 s'il a dépassé la taille permise une fois décompressé
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleHttpMessageNotReadable(HttpMessageNotReadableException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof PayloadTooLargeException tooLarge) {
+                return handlePayloadTooLargeException(tooLarge);
+            }
+        }
+        UNREADABLE.warn("Unreadable request body: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Malformed Request Body",
+                "The request body could not be read"
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Configuration de règles refusée (PUT /api/admin/rules) -> 400
+     */
+    @ExceptionHandler(InvalidRuleConfigException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRuleConfigException(InvalidRuleConfigException ex) {
+        log.error("Invalid rule configuration: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Rule Configuration",
+                ex.getMessage()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Réglage refusé par un endpoint d'administration (PUT /api/admin/bulk-chunking) -> 400
+     */
+    @ExceptionHandler(InvalidConfigException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidConfigException(InvalidConfigException ex) {
+        log.error("Invalid configuration: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Configuration",
+                ex.getMessage()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Appel d'administration sans fx.admin.token valide -> 403
+     */
+    @ExceptionHandler(AdminAccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAdminAccessDeniedException(AdminAccessDeniedException ex) {
+        log.warn("Admin call refused: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.FORBIDDEN.value(),
+                "Forbidden",
+                ex.getMessage()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
+    }
+
     /**
      * Gestion des erreurs de validation (@Valid) -> 400
      */
@@ -58,10 +183,22 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ValidationErrorResponse> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
 
-        log.error("Validation error: {}", ex.getMessage());
+        VALIDATION.warn("Validation error: {}", ex.getMessage());
+        return validationFailed(ex.getBindingResult().getAllErrors());
+    }
+
+    /**
+     * Même chose pour le mode réactif (WebFlux) -> 400
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ValidationErrorResponse> handleReactiveValidationExceptions(WebExchangeBindException ex) {
+        VALIDATION.warn("Validation error: {}", ex.getMessage());
+        return validationFailed(ex.getBindingResult().getAllErrors());
+    }
 
+    private ResponseEntity<ValidationErrorResponse> validationFailed(List<ObjectError> allErrors) {
         Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach((error) -> {
+        allErrors.forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
@@ -82,7 +219,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(DealNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleDealNotFound(DealNotFoundException ex) {
-        log.warn("Deal not found: {}", ex.getMessage());
+        NOT_FOUND.warn("Deal not found: {}", ex.getMessage());
 
         ErrorResponse error = new ErrorResponse(
                 LocalDateTime.now(),
@@ -0,0 +1,21 @@
+package com.progressoft.fxdealsystem.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Import refused by admission control: 429 when the client is over its rate, 503 when the service
+ * is at its concurrency limit. Answered with Retry-After.
+ */
+@Getter
+public class ImportRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public ImportRejectedException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
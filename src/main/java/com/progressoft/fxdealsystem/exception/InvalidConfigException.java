@@ -0,0 +1,11 @@
+package com.progressoft.fxdealsystem.exception;
+
+/**
+ * Runtime setting refused by an admin endpoint (e.g. PUT /api/admin/bulk-chunking). Mapped to 400;
+ * the current settings stay active.
+ */
+public class InvalidConfigException extends RuntimeException {
+    public InvalidConfigException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.progressoft.fxdealsystem.exception;
+
+public class InvalidRuleConfigException extends RuntimeException {
+    public InvalidRuleConfigException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.progressoft.fxdealsystem.exception;
+
+/**
+ * Request body over a size limit: fx.gzip.max-inflated-size once inflated, or for bulks
+ * fx.bulk.payload.max-bytes / max-deals. Refused with 413 before any import.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
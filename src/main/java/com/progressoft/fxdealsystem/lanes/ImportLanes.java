@@ -0,0 +1,194 @@
+package com.progressoft.fxdealsystem.lanes;
+
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bulkheads between latency-sensitive single-deal imports and bulk backfills (fx.lanes.*).
+ * Each lane has a bounded pool and queue, so a backfill can only occupy the batch threads. Bulk
+ * chunks, on a batch thread or on the chunk workers of BulkChunking, each take one of
+ * fx.lanes.batch.threads connection permits, so backfills hold at most that many database
+ * connections; the rest of the pool stays available to trade capture. Bulks also pause between chunks while the interactive lane is busy
+ * ({@link #yieldToInteractive()}).
+ *
+ * Metrics per lane: fx.lanes.latency (queue wait included, with p50/p99), fx.lanes.queue-depth,
+ * fx.lanes.active and fx.lanes.rejections. Tasks run with the submitter's MDC and current
+ * observation, so their logs and spans stay attached to the request.
+ */
+@Component
+@EnableConfigurationProperties(LaneProperties.class)
+@Slf4j
+public class ImportLanes implements DisposableBean {
+
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final LaneProperties properties;
+    private final Lane interactive;
+    private final Lane batch;
+
+    public ImportLanes(LaneProperties properties, ObjectProvider<MeterRegistry> meterRegistry,
+                       @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        this.properties = properties;
+        MeterRegistry registry = properties.isEnabled() ? meterRegistry.getIfAvailable() : null;
+        this.interactive = properties.isEnabled() ? new Lane("interactive", properties.getInteractive(), registry) : null;
+        this.batch = properties.isEnabled() ? new Lane("batch", properties.getBatch(), registry) : null;
+        if (properties.isEnabled() && properties.getBatch().getThreads() >= connectionPoolSize) {
+            log.warn("fx.lanes.batch.threads ({}) leaves no connection of the pool ({}) to single-deal imports",
+                    properties.getBatch().getThreads(), connectionPoolSize);
+        }
+    }
+
+    /**
+     * Runs a single-deal import on the interactive lane.
+     */
+    public <T> CompletableFuture<T> interactive(Supplier<T> task) {
+        return interactive == null ? inline(task) : interactive.submit(task);
+    }
+
+    /**
+     * Runs a bulk import on the batch lane.
+     */
+    public <T> CompletableFuture<T> batch(Supplier<T> task) {
+        return batch == null ? inline(task) : batch.submit(task);
+    }
+
+    /**
+     * Called by bulk imports before each chunk. On a batch thread, waits while the interactive lane
+     * is busy, at most fx.lanes.max-yield; elsewhere returns immediately.
+     */
+    public void yieldToInteractive() {
+        if (batch == null || !(Thread.currentThread() instanceof LaneThread thread) || thread.lane != batch) {
+            return;
+        }
+        long deadline = System.nanoTime() + properties.getMaxYield().toNanos();
+        while (interactive.load() >= properties.getInteractiveBusyThreshold() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (interactive != null) {
+            interactive.executor.shutdown();
+            batch.executor.shutdown();
+        }
+    }
+
+    private static <T> CompletableFuture<T> inline(Supplier<T> task) {
+        try {
+            return CompletableFuture.completedFuture(task.get());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private static final class Lane {
+
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Timer latency;
+        private final Counter rejections;
+
+        Lane(String name, LaneProperties.Lane settings, MeterRegistry registry) {
+            this.name = name;
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(settings.getThreads(), settings.getThreads(),
+                    0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                    r -> new LaneThread(this, r, "lane-" + name + "-" + threadNumber.incrementAndGet()));
+            if (registry == null) {
+                latency = null;
+                rejections = null;
+                return;
+            }
+            latency = Timer.builder("fx.lanes.latency").tag("lane", name)
+                    .description("Import latency on the lane, queue wait included")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            rejections = Counter.builder("fx.lanes.rejections").tag("lane", name).register(registry);
+            Gauge.builder("fx.lanes.queue-depth", executor, e -> e.getQueue().size()).tag("lane", name)
+                    .register(registry);
+            Gauge.builder("fx.lanes.active", executor, ThreadPoolExecutor::getActiveCount).tag("lane", name)
+                    .register(registry);
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            long queuedAt = System.nanoTime();
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            ContextSnapshot context = SNAPSHOTS.captureAll();
+            try {
+                executor.execute(() -> {
+                    if (mdc != null) {
+                        MDC.setContextMap(mdc);
+                    }
+                    // latency recorded before completion: whoever sees the result also sees it counted
+                    try (ContextSnapshot.Scope scope = context.setThreadLocals()) {
+                        T value;
+                        try {
+                            value = task.get();
+                        } catch (Throwable ex) {
+                            recordLatency(queuedAt);
+                            result.completeExceptionally(ex);
+                            return;
+                        }
+                        recordLatency(queuedAt);
+                        result.complete(value);
+                    } finally {
+                        MDC.clear();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                if (rejections != null) {
+                    rejections.increment();
+                }
+                result.completeExceptionally(new ImportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 1,
+                        "The " + name + " import lane is full, retry later"));
+            }
+            return result;
+        }
+
+        private void recordLatency(long queuedAt) {
+            if (latency != null) {
+                latency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        int load() {
+            return executor.getActiveCount() + executor.getQueue().size();
+        }
+    }
+
+    private static final class LaneThread extends Thread {
+
+        private final Lane lane;
+
+        LaneThread(Lane lane, Runnable task, String name) {
+            super(task, name);
+            this.lane = lane;
+            setDaemon(true);
+        }
+    }
+}
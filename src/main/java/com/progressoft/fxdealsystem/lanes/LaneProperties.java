@@ -0,0 +1,68 @@
+package com.progressoft.fxdealsystem.lanes;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Execution lanes of the import endpoints: single deals run on the interactive lane, bulks on the
+ * batch lane. Each lane has its own threads and queue.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.lanes")
+public class LaneProperties {
+
+    /**
+     * When false, imports run on the request thread as before.
+     */
+    private boolean enabled = true;
+
+    private Lane interactive = new Lane(32, 1_000, Duration.ofSeconds(30));
+
+    /**
+     * Each batch thread holds at most one connection at a time (one chunk transaction), so the
+     * thread count is the share of the connection pool that backfills can take.
+     */
+    private Lane batch = new Lane(4, 50, Duration.ZERO);
+
+    /**
+     * Interactive imports running or queued from which the batch lane pauses between chunks.
+     */
+    private int interactiveBusyThreshold = 8;
+
+    /**
+     * Longest pause of a bulk before each chunk, so that a busy interactive lane cannot stall it.
+     */
+    private Duration maxYield = Duration.ofMillis(100);
+
+    @Data
+    public static class Lane {
+
+        private int threads;
+
+        /**
+         * Requests waiting for a thread; beyond this the lane answers 503.
+         */
+        private int queueCapacity;
+
+        /**
+         * Longest wait of the HTTP request for its import, 0 for none. Past it the client gets 503
+         * while the import carries on, so bulks, which may run for minutes, have none by default.
+         */
+        private Duration timeout = Duration.ZERO;
+
+        public Lane() {
+        }
+
+        public Lane(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Lane(int threads, int queueCapacity, Duration timeout) {
+            this(threads, queueCapacity);
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.progressoft.fxdealsystem.limit;
+
+/**
+ * Limit on deals in flight, adjusted from observed latency (gradient method).
+ * Little's law: at a fixed throughput, every deal admitted beyond what the database absorbs only
+ * waits in a queue and adds latency. So while the latency stays near the no-load latency the limit
+ * grows by about sqrt(limit) per sample, and it shrinks in proportion as latency rises above it.
+ *
+ * Latency is sampled per transaction (one single deal, or one bulk chunk) so that single deals and
+ * bulks feed comparable samples.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    private final LimitProperties.Concurrency settings;
+    private double limit;
+    private long inFlight;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimit(LimitProperties.Concurrency settings) {
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+    }
+
+    /**
+     * Admits the deals if they fit under the limit. A request alone is always admitted, whatever
+     * its weight, so that a weight above the limit cannot be refused forever.
+     */
+    public synchronized boolean tryAcquire(long weight) {
+        if (inFlight > 0 && inFlight + weight > limit) {
+            return false;
+        }
+        inFlight += weight;
+        return true;
+    }
+
+    /**
+     * Releases the deals and records how long each of its transactions took.
+     */
+    public synchronized void release(long weight, long nanosPerTransaction) {
+        long inFlightBefore = inFlight;
+        inFlight -= weight;
+        sample(nanosPerTransaction, inFlightBefore);
+    }
+
+    /**
+     * Releases without a sample, for requests that failed before reaching the database.
+     */
+    public synchronized void release(long weight) {
+        inFlight -= weight;
+    }
+
+    /**
+     * True when no request would be admitted now, whatever its weight.
+     */
+    public synchronized boolean isFull() {
+        return inFlight > 0 && inFlight >= limit;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Expected time for the work in flight to drain, in nanoseconds; 0 before the first sample.
+     */
+    public synchronized long drainNanos() {
+        return (long) shortRtt;
+    }
+
+    private void sample(long rtt, long inFlightBefore) {
+        samples++;
+        if (samples == 1 || samples % settings.getLongWindow() == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) / Math.min(samples, settings.getLongWindow());
+        }
+        shortRtt = shortRtt == 0 ? rtt : shortRtt + (rtt - shortRtt) / 10;
+
+        // not enough load to tell whether a higher limit would help
+        if (inFlightBefore < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, settings.getTolerance() * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = limit * (1 - settings.getSmoothing()) + estimate * settings.getSmoothing();
+        limit = Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), limit));
+    }
+}
@@ -0,0 +1,221 @@
+package com.progressoft.fxdealsystem.limit;
+
+import com.progressoft.fxdealsystem.chunking.BulkChunking;
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control of the import endpoints (fx.limits.enabled=true):
+ * <ul>
+ *     <li>per client, a {@link TokenBucket} charged with the number of deals of the request -> 429;</li>
+ *     <li>for the whole service, an {@link AdaptiveConcurrencyLimit} on deals in flight -> 503.</li>
+ * </ul>
+ * A bulk holds only the chunks it has in flight (chunk size times parallelism, as currently tuned)
+ * of the concurrency limit: a large bulk pays its full size in rate tokens but cannot crowd out
+ * single-deal traffic. A request refused with 503 gets its rate tokens back, also when the 503
+ * comes from a full import lane. Only imports that ran are latency samples. A bulk is also
+ * checked by {@link #admit} before its body is read, so that a refused client costs no parsing.
+ *
+ * Clients are keyed by remote address, or by fx.limits.client-header when a trusted gateway sets
+ * it. At most fx.limits.max-clients buckets are kept: idle ones are dropped, and while every
+ * tracked client is active, new clients share one overflow bucket.
+ */
+@Component
+@EnableConfigurationProperties(LimitProperties.class)
+@ConditionalOnProperty(prefix = "fx.limits", name = "enabled", havingValue = "true")
+@Slf4j
+public class ImportLimiter {
+
+    private final LimitProperties properties;
+    private final BulkChunking chunking;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final AdaptiveConcurrencyLimit concurrency;
+    private final Counter rateRejections;
+    private final Counter concurrencyRejections;
+
+    public ImportLimiter(LimitProperties properties, BulkChunking chunking,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.chunking = chunking;
+        this.concurrency = new AdaptiveConcurrencyLimit(properties.getConcurrency());
+        this.overflow = newBucket();
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("fx.limits.concurrency.limit", concurrency, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Deals allowed in flight").register(registry);
+            Gauge.builder("fx.limits.concurrency.in-flight", concurrency, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Deals being imported").register(registry);
+            rateRejections = Counter.builder("fx.limits.rejections").tag("reason", "rate").register(registry);
+            concurrencyRejections = Counter.builder("fx.limits.rejections").tag("reason", "concurrency").register(registry);
+        } else {
+            rateRejections = null;
+            concurrencyRejections = null;
+        }
+    }
+
+    /**
+     * Admits the request or throws {@link ImportRejectedException}. The permit must be closed when
+     * the import is done, or failed with {@link Permit#fail} when it ends with an exception.
+     */
+    public Permit acquire(HttpServletRequest request, int deals) {
+        String client = clientOf(request);
+        TokenBucket bucket = bucket(client);
+        long waitNanos = bucket.tryAcquire(deals);
+        if (waitNanos > 0) {
+            throw rateExceeded(client, waitNanos);
+        }
+
+        // a bulk has `parallelism` chunks in flight, at the current tuned size
+        int chunkSize = chunking.getChunkSize();
+        int parallelism = chunking.getParallelism();
+        long weight = Math.min(deals, (long) chunkSize * parallelism);
+        if (!concurrency.tryAcquire(weight)) {
+            bucket.refund(deals);
+            throw capacityExhausted();
+        }
+        int chunks = (deals + chunkSize - 1) / chunkSize;
+        return new Permit(bucket, deals, weight, Math.max(1, (chunks + parallelism - 1) / parallelism));
+    }
+
+    /**
+     * Refuses a bulk before its body is read, when {@link #acquire} would refuse it whatever its
+     * size: the client is in debt, or the service is at its limit. Charges nothing; the deals are
+     * charged by {@link #acquire} once counted.
+     */
+    public void admit(HttpServletRequest request) {
+        String client = clientOf(request);
+        long waitNanos = bucket(client).debtNanos();
+        if (waitNanos > 0) {
+            throw rateExceeded(client, waitNanos);
+        }
+        if (concurrency.isFull()) {
+            throw capacityExhausted();
+        }
+    }
+
+    public AdaptiveConcurrencyLimit getConcurrency() {
+        return concurrency;
+    }
+
+    private TokenBucket bucket(String client) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxClients()) {
+            dropIdleClients();
+            if (buckets.size() >= properties.getMaxClients()) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(client, c -> newBucket());
+    }
+
+    /**
+     * Drops the clients whose bucket is full again, at most once a second: a scan per new client
+     * would be the cost of a flood of new clients.
+     */
+    private void dropIdleClients() {
+        long last = lastSweep.get();
+        long now = System.nanoTime();
+        if (now - last >= TimeUnit.SECONDS.toNanos(1) && lastSweep.compareAndSet(last, now)) {
+            buckets.values().removeIf(TokenBucket::isFull);
+        }
+    }
+
+    private TokenBucket newBucket() {
+        return new TokenBucket(properties.getDealsPerSecond(), properties.getBurst(), System::nanoTime);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String header = properties.getClientHeader();
+        String client = header == null || header.isBlank() ? null : request.getHeader(header);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+
+    private ImportRejectedException rateExceeded(String client, long waitNanos) {
+        increment(rateRejections);
+        return new ImportRejectedException(HttpStatus.TOO_MANY_REQUESTS, seconds(waitNanos),
+                "Import rate exceeded for client " + client);
+    }
+
+    private ImportRejectedException capacityExhausted() {
+        increment(concurrencyRejections);
+        long drain = concurrency.drainNanos();
+        return new ImportRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                drain > 0 ? seconds(drain) : properties.getConcurrency().getDefaultRetryAfter().toSeconds(),
+                "Import capacity exhausted, retry later");
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999L));
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Deals held in the concurrency limit by one admitted request.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final TokenBucket bucket;
+        private final int deals;
+        private final long weight;
+        private final int transactions;
+        private final long startedAt = System.nanoTime();
+
+        private Permit(TokenBucket bucket, int deals, long weight, int transactions) {
+            this.bucket = bucket;
+            this.deals = deals;
+            this.weight = weight;
+            this.transactions = transactions;
+        }
+
+        /**
+         * The import completed: releases the deals and samples its latency.
+         */
+        @Override
+        public void close() {
+            concurrency.release(weight, (System.nanoTime() - startedAt) / transactions);
+        }
+
+        /**
+         * The import ended with the given exception. A validation rejection never reached the
+         * database and a full lane never ran the import: neither is a latency sample, and a full
+         * lane gives the rate tokens back like any other 503. Other failures are sampled.
+         */
+        public void fail(Throwable failure) {
+            if (failure instanceof ImportRejectedException rejected
+                    && rejected.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+                concurrency.release(weight);
+                bucket.refund(deals);
+            } else if (failure instanceof InvalidDealException) {
+                concurrency.release(weight);
+            } else {
+                close();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.progressoft.fxdealsystem.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Admission control of the import endpoints. Both limits count deals, not requests.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.limits")
+public class LimitProperties {
+
+    private boolean enabled;
+
+    /**
+     * Header naming the calling client, set by a trusted gateway after authentication. Empty (the
+     * default): clients are keyed by remote address, since callers could rotate a header they set
+     * themselves.
+     */
+    private String clientHeader;
+
+    /**
+     * Deals per second each client may import on average.
+     */
+    private double dealsPerSecond = 2_000;
+
+    /**
+     * Deals a client may import at once after being idle. A larger bulk is still accepted when the
+     * bucket is full, and the client then waits until the debt is paid back.
+     */
+    private long burst = 10_000;
+
+    /**
+     * Clients tracked at most; idle clients (full bucket) are dropped beyond this, and while none
+     * is idle new clients share one bucket.
+     */
+    private int maxClients = 10_000;
+
+    private Concurrency concurrency = new Concurrency();
+
+    @Data
+    public static class Concurrency {
+
+        /**
+         * Deals in flight allowed at startup, before any latency has been measured.
+         */
+        private int initialLimit = 1_000;
+
+        private int minLimit = 100;
+
+        private int maxLimit = 10_000;
+
+        /**
+         * Latency increase over the no-load latency tolerated before the limit shrinks.
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Weight of each new estimate of the limit, between 0 and 1.
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * Samples after which the no-load latency estimate is forgotten, so that it can follow
+         * a slower database rather than keep the limit at its minimum.
+         */
+        private int longWindow = 600;
+
+        /**
+         * Retry-After sent with 503 when no latency has been measured yet.
+         */
+        private Duration defaultRetryAfter = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,65 @@
+package com.progressoft.fxdealsystem.limit;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at a fixed rate, charged by deal count.
+ * A request is admitted whenever the bucket is not in debt, even if it costs more than the bucket
+ * holds: a bulk larger than the burst is never refused outright, it only delays the client's next
+ * requests for as long as it took.
+ */
+public final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double perSecond, long capacity, LongSupplier nanoClock) {
+        this.ratePerNano = perSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * @return 0 if the deals are admitted, otherwise the nanoseconds until the bucket is out of debt
+     */
+    public synchronized long tryAcquire(long deals) {
+        refill();
+        if (tokens < 0) {
+            return (long) Math.ceil(-tokens / ratePerNano);
+        }
+        tokens -= deals;
+        return 0;
+    }
+
+    /**
+     * @return 0 if the bucket is not in debt, otherwise the nanoseconds until it is; charges nothing
+     */
+    public synchronized long debtNanos() {
+        refill();
+        return tokens < 0 ? (long) Math.ceil(-tokens / ratePerNano) : 0;
+    }
+
+    /**
+     * Gives back deals charged by a request that was refused further down, so that it costs nothing.
+     */
+    public synchronized void refund(long deals) {
+        refill();
+        tokens = Math.min(capacity, tokens + deals);
+    }
+
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,60 @@
+package com.progressoft.fxdealsystem.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every request a correlation id, taken from X-Correlation-Id when the caller sends a usable
+ * one, generated otherwise, and echoed in the response. The id is in the MDC (correlationId) for
+ * every log line of the request: request thread, import lane and async dispatch.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String MDC_KEY = "correlationId";
+
+    private static final String ATTRIBUTE = CorrelationIdFilter.class.getName();
+    // ids end up in log lines: no spaces, quotes or line breaks from the caller
+    private static final Pattern USABLE = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // imports complete on an async dispatch, where the exception handler logs
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String id = (String) request.getAttribute(ATTRIBUTE);
+        if (id == null) {
+            id = request.getHeader(HEADER);
+            if (id == null || !USABLE.matcher(id).matches()) {
+                id = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+            }
+            request.setAttribute(ATTRIBUTE, id);
+            response.setHeader(HEADER, id);
+        }
+        MDC.put(MDC_KEY, id);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+}
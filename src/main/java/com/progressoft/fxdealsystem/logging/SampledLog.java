@@ -0,0 +1,59 @@
+package com.progressoft.fxdealsystem.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limited logging for per-deal lines: at most {@code perSecond} lines per second from one call
+ * site, the rest are counted and reported on the next line that gets through
+ * ("... (+1234 similar suppressed)"). Under load this keeps per-deal logs readable and cheap
+ * without losing how many there were.
+ */
+public final class SampledLog {
+
+    private final Logger log;
+    private final int perSecond;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger emitted = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public SampledLog(Logger log, int perSecond) {
+        this.log = log;
+        this.perSecond = perSecond;
+    }
+
+    public void debug(String format, Object... args) {
+        if (log.isDebugEnabled()) {
+            emit(Level.DEBUG, format, args);
+        }
+    }
+
+    public void info(String format, Object... args) {
+        if (log.isInfoEnabled()) {
+            emit(Level.INFO, format, args);
+        }
+    }
+
+    public void warn(String format, Object... args) {
+        if (log.isWarnEnabled()) {
+            emit(Level.WARN, format, args);
+        }
+    }
+
+    private void emit(Level level, String format, Object[] args) {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            emitted.set(0);
+        }
+        if (emitted.incrementAndGet() > perSecond) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long skipped = suppressed.getAndSet(0);
+        log.atLevel(level).log(skipped == 0 ? format : format + " (+" + skipped + " similar suppressed)", args);
+    }
+}
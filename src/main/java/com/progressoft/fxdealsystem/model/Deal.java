@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
                 @UniqueConstraint(name = "uk_deal_deal_unique_id", columnNames = "deal_unique_id")
         },
         indexes = {
-                @Index(name = "idx_deal_unique_id", columnList = "deal_unique_id")
+                @Index(name = "idx_deal_unique_id", columnList = "deal_unique_id"),
+                @Index(name = "idx_deal_timestamp", columnList = "deal_timestamp")
         }
 )
 @Data
@@ -0,0 +1,90 @@
+package com.progressoft.fxdealsystem.payload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One bulk body read by {@link BulkPayloads}: its deals in memory, or a spilled file parsed again
+ * during the import. Closing it deletes the file and records the heap the request allocated.
+ */
+public final class BulkPayload implements AutoCloseable {
+
+    final ObjectMapper mapper;
+    final MediaType contentType;
+    final AtomicLong allocated = new AtomicLong();
+    private final Consumer<BulkPayload> onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    List<DealRequest> deals;
+    Path file;
+    long bytes;
+    long buffered;
+    int size;
+
+    BulkPayload(ObjectMapper mapper, MediaType contentType, Consumer<BulkPayload> onClose) {
+        this.mapper = mapper;
+        this.contentType = contentType;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Number of deals in the body.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Body length in bytes, after gzip inflation.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * The parsed deals of a body kept in memory.
+     */
+    public List<DealRequest> getDeals() {
+        if (deals == null) {
+            throw new IllegalStateException("Spilled bulk bodies are read slice by slice");
+        }
+        return deals;
+    }
+
+    /**
+     * Runs part of the request on the current thread, counting the heap it allocates.
+     */
+    public <T> T measure(Supplier<T> work) {
+        long start = BulkPayloads.allocatedBytes();
+        try {
+            return work.get();
+        } finally {
+            addAllocated(start);
+        }
+    }
+
+    void addAllocated(long start) {
+        long end = BulkPayloads.allocatedBytes();
+        if (start >= 0 && end >= start) {
+            allocated.addAndGet(end - start);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.accept(this);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.progressoft.fxdealsystem.payload;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.exception.PayloadTooLargeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Reads POST /api/deals/bulk bodies within fixed memory bounds (fx.bulk.payload.*).
+ * <ul>
+ *     <li>413 before any import: a Content-Length over max-bytes before the body is read, a body
+ *     growing past it while read, a deal beyond max-deals as soon as the parser reaches it.</li>
+ *     <li>503 before the body is read when the bytes it may hold in memory (its Content-Length, or
+ *     spill-threshold without one) do not fit in max-buffered, shared by all bulks in flight.</li>
+ *     <li>Bodies up to spill-threshold are parsed in memory. Larger ones are copied to a file as
+ *     they arrive and parsed once to count and check their deals, then again slice-deals at a time
+ *     during the import; the responses go to a second file, streamed back and deleted. The heap a
+ *     bulk holds is then about one slice, whatever its size.</li>
+ * </ul>
+ * Metrics: fx.bulk.payload.in-flight, fx.bulk.payload.buffered (body bytes held or reserved in
+ * memory by the bulks in flight), fx.bulk.payload.allocated (heap allocated per bulk while read, parsed and
+ * imported on the request and lane threads; virtual threads do not report it),
+ * fx.bulk.payload.spilled and fx.bulk.payload.rejections.
+ */
+@Component
+@Profile("!reactive")
+@EnableConfigurationProperties(PayloadProperties.class)
+@Slf4j
+public class BulkPayloads {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    private final PayloadProperties properties;
+    private final List<AbstractJackson2HttpMessageConverter> converters;
+    private final Path spillDirectory;
+    private final ObservationRegistry observations;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong buffered = new AtomicLong();
+    private final DistributionSummary allocated;
+    private final Counter spilled;
+    private final Counter tooManyBytes;
+    private final Counter tooManyDeals;
+    private final Counter overBudget;
+
+    public BulkPayloads(PayloadProperties properties, ObjectProvider<AbstractJackson2HttpMessageConverter> converters,
+                        ObjectProvider<ObservationRegistry> observations,
+                        ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        this.properties = properties;
+        this.converters = converters.orderedStream().toList();
+        this.spillDirectory = Files.createDirectories(Path.of(StringUtils.hasText(properties.getSpillDirectory())
+                ? properties.getSpillDirectory() : System.getProperty("java.io.tmpdir")));
+        this.observations = observations.getIfAvailable(() -> ObservationRegistry.NOOP);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("fx.bulk.payload.in-flight", inFlight, AtomicInteger::get)
+                    .description("Bulk bodies read and not yet answered").register(registry);
+            Gauge.builder("fx.bulk.payload.buffered", buffered, AtomicLong::get).baseUnit("bytes")
+                    .description("Body bytes held or reserved in memory by the bulks in flight").register(registry);
+            allocated = DistributionSummary.builder("fx.bulk.payload.allocated").baseUnit("bytes")
+                    .description("Heap allocated by one bulk request, from reading its body to its last response")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            spilled = Counter.builder("fx.bulk.payload.spilled")
+                    .description("Bulk bodies over the spill threshold, imported from disk").register(registry);
+            tooManyBytes = Counter.builder("fx.bulk.payload.rejections").tag("reason", "bytes")
+                    .description("Bulk bodies refused with 413").register(registry);
+            tooManyDeals = Counter.builder("fx.bulk.payload.rejections").tag("reason", "deals")
+                    .description("Bulk bodies refused with 413").register(registry);
+            overBudget = Counter.builder("fx.bulk.payload.rejections").tag("reason", "buffered")
+                    .description("Bulk bodies refused with 503, max-buffered reached").register(registry);
+        } else {
+            allocated = null;
+            spilled = null;
+            tooManyBytes = null;
+            tooManyDeals = null;
+            overBudget = null;
+        }
+    }
+
+    /**
+     * Reads and checks the body of a bulk request. The caller closes the payload once answered.
+     */
+    public BulkPayload read(HttpServletRequest request) throws IOException {
+        long maxBytes = properties.getMaxBytes().toBytes();
+        long declared = request.getContentLengthLong();
+        if (declared > maxBytes) {
+            throw tooLarge(tooManyBytes, "Bulk body of " + declared + " bytes, at most " + maxBytes + " accepted");
+        }
+        MediaType contentType = contentType(request);
+        AbstractJackson2HttpMessageConverter converter = converters.stream()
+                .filter(candidate -> candidate.canRead(DealRequest.class, contentType))
+                .findFirst()
+                .orElseThrow(() -> new InvalidDealException("Unsupported bulk content type: " + contentType));
+
+        int threshold = (int) Math.min(properties.getSpillThreshold().toBytes(), Integer.MAX_VALUE - 16);
+        // a longer Content-Length goes straight to disk; otherwise up to one byte more than the threshold is read
+        boolean toDisk = declared > threshold;
+        long reserved = toDisk ? 0 : declared >= 0 ? declared : threshold + 1L;
+        reserve(reserved);
+
+        BulkPayload payload = new BulkPayload(converter.getObjectMapper(), contentType, this::release);
+        payload.buffered = reserved;
+        inFlight.incrementAndGet();
+        long start = allocatedBytes();
+        // same span as the converters put around a request body
+        Observation observation = Observation.createNotStarted("fx.http.deserialize", observations)
+                .lowCardinalityKeyValue("format", converter.getSupportedMediaTypes().get(0).getSubtype())
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            InputStream body = new BoundedInputStream(request.getInputStream(), maxBytes);
+            byte[] head = toDisk ? null : body.readNBytes(threshold + 1);
+            if (head != null && head.length <= threshold) {
+                parseInMemory(payload, head);
+            } else {
+                spill(payload, head, body);
+            }
+            return payload;
+        } catch (IOException | RuntimeException ex) {
+            observation.error(ex);
+            payload.close();
+            throw ex;
+        } finally {
+            observation.stop();
+            payload.addAllocated(start);
+        }
+    }
+
+    /**
+     * Imports a spilled body slice by slice, in order, and writes all the responses as one array
+     * in the given format, to a file deleted once sent.
+     */
+    public Resource importInSlices(BulkPayload payload, Function<List<DealRequest>, List<DealResponse>> importer,
+                                   MediaType responseType) {
+        return payload.measure(() -> {
+            try {
+                return writeResponses(payload, importer, writerFor(responseType));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Format of the responses to a spilled body: the first one of Accept a converter writes,
+     * otherwise the format of the request.
+     */
+    public MediaType responseType(HttpServletRequest request, BulkPayload payload) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (StringUtils.hasText(accept)) {
+            try {
+                List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+                accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+                for (MediaType type : accepted) {
+                    MediaType plain = new MediaType(type.getType(), type.getSubtype());
+                    if (plain.isConcrete() && type.getQualityValue() > 0 && writerFor(plain) != null) {
+                        return plain;
+                    }
+                }
+            } catch (InvalidMediaTypeException ignored) {
+                // same fallback as a missing Accept
+            }
+        }
+        return new MediaType(payload.contentType.getType(), payload.contentType.getSubtype());
+    }
+
+    /**
+     * Takes bytes from the fx.bulk.payload.max-buffered budget before the body is read, or refuses
+     * the bulk with 503. A bulk alone is always admitted, so that a body above the budget is not
+     * refused forever.
+     */
+    private void reserve(long bytes) {
+        long budget = properties.getMaxBuffered().toBytes();
+        while (bytes > 0) {
+            long current = buffered.get();
+            if (current > 0 && current + bytes > budget) {
+                if (overBudget != null) {
+                    overBudget.increment();
+                }
+                throw new ImportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 1,
+                        "Bulk bodies in memory at " + budget + " bytes, retry later");
+            }
+            if (buffered.compareAndSet(current, current + bytes)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives back the part of the reservation the body did not use.
+     */
+    private void keepBuffered(BulkPayload payload, long bytes) {
+        buffered.addAndGet(bytes - payload.buffered);
+        payload.buffered = bytes;
+    }
+
+    private void parseInMemory(BulkPayload payload, byte[] body) throws IOException {
+        payload.bytes = body.length;
+        keepBuffered(payload, body.length);
+        List<DealRequest> deals = new ArrayList<>();
+        try (JsonParser parser = payload.mapper.createParser(body)) {
+            openArray(parser);
+            for (DealRequest deal; (deal = nextDeal(parser, payload.mapper, deals.size())) != null; ) {
+                deals.add(deal);
+            }
+        }
+        payload.deals = deals;
+        payload.size = deals.size();
+    }
+
+    private void spill(BulkPayload payload, byte[] head, InputStream body) throws IOException {
+        payload.file = Files.createTempFile(spillDirectory, "fx-bulk-", ".body");
+        try (OutputStream out = Files.newOutputStream(payload.file)) {
+            long written = 0;
+            if (head != null) {
+                out.write(head);
+                written = head.length;
+            }
+            keepBuffered(payload, 0);
+            payload.bytes = written + body.transferTo(out);
+        }
+        if (spilled != null) {
+            spilled.increment();
+        }
+        // every deal parsed once before the import starts: a malformed or oversized body imports nothing
+        int count = 0;
+        try (JsonParser parser = payload.mapper.createParser(payload.file.toFile())) {
+            openArray(parser);
+            while (nextDeal(parser, payload.mapper, count) != null) {
+                count++;
+            }
+        }
+        payload.size = count;
+        log.debug("Bulk body of {} bytes ({} deals) spilled to {}", payload.bytes, count, payload.file);
+    }
+
+    private Resource writeResponses(BulkPayload payload, Function<List<DealRequest>, List<DealResponse>> importer,
+                                    ObjectMapper writer) throws IOException {
+        Path responses = Files.createTempFile(spillDirectory, "fx-bulk-", ".responses");
+        try (JsonParser parser = payload.mapper.createParser(payload.file.toFile());
+             JsonGenerator out = writer.createGenerator(Files.newOutputStream(responses))) {
+            openArray(parser);
+            out.writeStartArray();
+            int sliceDeals = Math.max(1, properties.getSliceDeals());
+            int read = 0;
+            List<DealRequest> slice = new ArrayList<>(Math.min(sliceDeals, payload.size));
+            for (DealRequest deal; (deal = nextDeal(parser, payload.mapper, read)) != null; read++) {
+                slice.add(deal);
+                if (slice.size() == sliceDeals) {
+                    writeAll(importer.apply(slice), out);
+                    slice = new ArrayList<>(Math.min(sliceDeals, payload.size - read - 1));
+                }
+            }
+            if (!slice.isEmpty()) {
+                writeAll(importer.apply(slice), out);
+            }
+            out.writeEndArray();
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(responses);
+            throw ex;
+        }
+        return new FileSystemResource(responses) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return Files.newInputStream(responses, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+        };
+    }
+
+    private static void writeAll(List<DealResponse> responses, JsonGenerator out) throws IOException {
+        for (DealResponse response : responses) {
+            out.writeObject(response);
+        }
+    }
+
+    private static void openArray(JsonParser parser) throws IOException {
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidDealException("A bulk body is an array of deals");
+            }
+        } catch (JsonProcessingException ex) {
+            throw malformed(ex);
+        }
+    }
+
+    /**
+     * The next deal of the array, null after the last one.
+     */
+    private DealRequest nextDeal(JsonParser parser, ObjectMapper mapper, int index) throws IOException {
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token == null) {
+                throw new InvalidDealException("Bulk body ends before the end of its array");
+            }
+            if (index >= properties.getMaxDeals()) {
+                throw tooLarge(tooManyDeals, "More than " + properties.getMaxDeals() + " deals in one bulk");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new InvalidDealException("Bulk element " + index + " is not a deal");
+            }
+            return mapper.readValue(parser, DealRequest.class);
+        } catch (JsonProcessingException ex) {
+            throw malformed(ex);
+        }
+    }
+
+    private static InvalidDealException malformed(JsonProcessingException ex) {
+        return new InvalidDealException("Malformed bulk body: " + ex.getOriginalMessage());
+    }
+
+    private ObjectMapper writerFor(MediaType type) {
+        return converters.stream()
+                .filter(converter -> converter.canWrite(DealResponse.class, type))
+                .findFirst()
+                .map(AbstractJackson2HttpMessageConverter::getObjectMapper)
+                .orElse(null);
+    }
+
+    private static MediaType contentType(HttpServletRequest request) {
+        try {
+            return StringUtils.hasText(request.getContentType())
+                    ? MediaType.parseMediaType(request.getContentType()) : MediaType.APPLICATION_JSON;
+        } catch (InvalidMediaTypeException ex) {
+            throw new InvalidDealException("Invalid Content-Type: " + request.getContentType());
+        }
+    }
+
+    private static PayloadTooLargeException tooLarge(Counter rejections, String message) {
+        if (rejections != null) {
+            rejections.increment();
+        }
+        return new PayloadTooLargeException(message);
+    }
+
+    private void release(BulkPayload payload) {
+        inFlight.decrementAndGet();
+        buffered.addAndGet(-payload.buffered);
+        if (payload.file != null) {
+            try {
+                Files.deleteIfExists(payload.file);
+            } catch (IOException ex) {
+                log.warn("Could not delete spilled bulk body {}: {}", payload.file, ex.getMessage());
+            }
+        }
+        if (allocated != null) {
+            allocated.record(payload.allocated.get());
+        }
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, -1 when not measurable (virtual threads).
+     */
+    static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Cuts a body off once it goes past max-bytes, for bodies without a Content-Length (chunked, gzip).
+     */
+    private final class BoundedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long count;
+
+        BoundedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                counted(n);
+            }
+            return n;
+        }
+
+        private void counted(int n) {
+            count += n;
+            if (count > maxBytes) {
+                throw tooLarge(tooManyBytes, "Bulk body over " + maxBytes + " bytes");
+            }
+        }
+    }
+}
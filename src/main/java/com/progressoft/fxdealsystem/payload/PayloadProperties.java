@@ -0,0 +1,46 @@
+package com.progressoft.fxdealsystem.payload;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Memory bounds of POST /api/deals/bulk bodies.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.bulk.payload")
+public class PayloadProperties {
+
+    /**
+     * Largest body accepted, counted after gzip inflation. A larger Content-Length answers 413
+     * before the body is read; a body without one is cut off at this size.
+     */
+    private DataSize maxBytes = DataSize.ofMegabytes(512);
+
+    /**
+     * Most deals in one bulk: 413 as soon as the parser reaches the next one, before any import.
+     */
+    private int maxDeals = 1_000_000;
+
+    /**
+     * Bodies up to this size are parsed in memory; larger ones are written to spill-directory
+     * and imported slice by slice, their responses streamed back from another file.
+     */
+    private DataSize spillThreshold = DataSize.ofMegabytes(8);
+
+    /**
+     * Body bytes all bulks in flight may hold in memory together. A bulk is refused with 503 before
+     * its body is read when its Content-Length, or spill-threshold without one, does not fit.
+     */
+    private DataSize maxBuffered = DataSize.ofMegabytes(128);
+
+    /**
+     * Where spilled bodies and their responses are written; the JVM temporary directory when empty.
+     */
+    private String spillDirectory;
+
+    /**
+     * Deals parsed from a spilled body and imported at a time.
+     */
+    private int sliceDeals = 10_000;
+}
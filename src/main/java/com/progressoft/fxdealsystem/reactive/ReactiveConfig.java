@@ -0,0 +1,55 @@
+package com.progressoft.fxdealsystem.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * R2DBC wiring for the reactive deployment mode. Neither the pool nor the reactive transaction
+ * manager are beans on purpose: a ConnectionFactory bean makes Boot skip the JDBC DataSource
+ * (and with it the JPA repositories), and the JPA transaction manager must stay the only one.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(ReactiveProperties.class)
+public class ReactiveConfig implements DisposableBean {
+
+    private final ConnectionPool pool;
+
+    public ReactiveConfig(ReactiveProperties properties) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (properties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .maxSize(properties.getPoolSize())
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(pool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactions() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(pool));
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+}
@@ -0,0 +1,56 @@
+package com.progressoft.fxdealsystem.reactive;
+
+import com.progressoft.fxdealsystem.controller.DealCaching;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same endpoints as DealController for the reactive deployment mode (profile 'reactive').
+ * /bulk accepts a JSON array or NDJSON and answers with a stream of results
+ * (NDJSON when asked for with Accept: application/x-ndjson).
+ */
+@RestController
+@RequestMapping("/api/deals")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveDealController {
+
+    private final ReactiveDealService dealService;
+
+    @PostMapping
+    public Mono<ResponseEntity<DealResponse>> importDeal(@RequestBody DealRequest request) {
+        log.debug("Received request to import deal: {}", request.getDealUniqueId());
+        return dealService.importDeal(request)
+                .map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+    }
+
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<DealResponse>> importDeals(@RequestBody Flux<DealRequest> requests) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(dealService.importDeals(requests));
+    }
+
+    @GetMapping
+    public Flux<DealResponse> getAllDeals() {
+        return dealService.getAllDeals();
+    }
+
+    @GetMapping("/{dealUniqueId}")
+    public Mono<ResponseEntity<DealResponse>> getDealByUniqueId(@PathVariable String dealUniqueId) {
+        return dealService.getDealByUniqueId(dealUniqueId).map(DealCaching::ok);
+    }
+
+    @GetMapping("/health")
+    public Mono<String> health() {
+        return Mono.just("FX Deal System is running!");
+    }
+}
@@ -0,0 +1,216 @@
+package com.progressoft.fxdealsystem.reactive;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.exception.DuplicateDealException;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.rules.RuleContext;
+import com.progressoft.fxdealsystem.service.DealValidator;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindMarkersFactoryResolver;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of DealService: same validation rules and DealResponse contract,
+ * deals written through R2DBC in batched inserts of fx.reactive.chunk-size.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveDealService {
+
+    private static final String COLUMNS = "id, deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+            + "deal_timestamp, deal_amount, created_at";
+
+    private final DatabaseClient db;
+    private final TransactionalOperator transactions;
+    private final int chunkSize;
+    private final String insertSql;
+    private final DealValidator dealValidator;
+
+    public ReactiveDealService(DatabaseClient db, TransactionalOperator transactions, ReactiveProperties properties,
+                               DealValidator dealValidator) {
+        this.db = db;
+        this.dealValidator = dealValidator;
+        this.transactions = transactions;
+        this.chunkSize = properties.getChunkSize();
+        // placeholder syntax differs per driver (? for MySQL, $1 for H2)
+        BindMarkers markers = BindMarkersFactoryResolver.resolve(db.getConnectionFactory()).create();
+        List<String> placeholders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            placeholders.add(markers.next().getPlaceholder());
+        }
+        this.insertSql = "INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+                + "deal_timestamp, deal_amount, created_at) VALUES (" + String.join(", ", placeholders) + ")";
+    }
+
+    public Mono<DealResponse> importDeal(DealRequest request) {
+        return Mono.fromRunnable(() -> dealValidator.validate(request))
+                .then(existingIds(List.of(request.getDealUniqueId())))
+                .flatMap(existing -> existing.isEmpty()
+                        ? insertAll(List.of(request)).single()
+                        : Mono.error(new DuplicateDealException(duplicateMessage(request.getDealUniqueId()))))
+                .onErrorMap(DataIntegrityViolationException.class,
+                        ex -> new DuplicateDealException(duplicateMessage(request.getDealUniqueId())));
+    }
+
+    /**
+     * Deals are pulled from the body one chunk at a time: the next chunk is only requested once
+     * the previous one is written, which is what holds back slow or huge uploads.
+     */
+    public Flux<DealResponse> importDeals(Flux<DealRequest> requests) {
+        return requests
+                .buffer(chunkSize)
+                .concatMap(this::importChunk, 1);
+    }
+
+    public Flux<DealResponse> getAllDeals() {
+        return db.sql("SELECT " + COLUMNS + " FROM deals ORDER BY id")
+                .map(this::toResponse)
+                .all();
+    }
+
+    public Mono<DealResponse> getDealByUniqueId(String dealUniqueId) {
+        if (dealUniqueId == null || dealUniqueId.trim().isEmpty()) {
+            return Mono.error(new InvalidDealException("Deal unique ID cannot be null or empty"));
+        }
+        return db.sql("SELECT " + COLUMNS + " FROM deals WHERE deal_unique_id = :id")
+                .bind("id", dealUniqueId)
+                .map(this::toResponse)
+                .one()
+                .switchIfEmpty(Mono.error(new InvalidDealException("Deal not found with ID: " + dealUniqueId)));
+    }
+
+    private Flux<DealResponse> importChunk(List<DealRequest> chunk) {
+        DealResponse[] responses = new DealResponse[chunk.size()];
+        List<Integer> valid = new ArrayList<>();
+        DealBatch batch = DealBatch.of(chunk);
+        RuleContext context = dealValidator.context();
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = dealValidator.check(batch, i, context);
+            if (error == null) {
+                valid.add(i);
+            } else {
+                responses[i] = failedResponse(chunk.get(i), error);
+            }
+        }
+        if (valid.isEmpty()) {
+            return Flux.fromArray(responses);
+        }
+
+        return existingIds(valid.stream().map(i -> chunk.get(i).getDealUniqueId()).toList())
+                .flatMap(existing -> {
+                    List<Integer> toInsert = new ArrayList<>();
+                    for (int i : valid) {
+                        if (existing.contains(chunk.get(i).getDealUniqueId())) {
+                            responses[i] = failedResponse(chunk.get(i), duplicateMessage(chunk.get(i).getDealUniqueId()));
+                        } else {
+                            toInsert.add(i);
+                        }
+                    }
+                    return insertChunk(chunk, toInsert, responses);
+                })
+                .thenMany(Flux.defer(() -> Flux.fromArray(responses)));
+    }
+
+    private Mono<Void> insertChunk(List<DealRequest> chunk, List<Integer> toInsert, DealResponse[] responses) {
+        if (toInsert.isEmpty()) {
+            return Mono.empty();
+        }
+        return insertAll(toInsert.stream().map(chunk::get).toList())
+                .collectList()
+                .doOnNext(saved -> {
+                    for (int k = 0; k < toInsert.size(); k++) {
+                        responses[toInsert.get(k)] = saved.get(k);
+                    }
+                })
+                .then()
+                // duplicate inside the chunk or concurrent import: settle deal by deal
+                .onErrorResume(ex -> Flux.fromIterable(toInsert)
+                        .concatMap(i -> importDeal(chunk.get(i))
+                                .onErrorResume(e -> Mono.just(failedResponse(chunk.get(i), e.getMessage())))
+                                .doOnNext(r -> responses[i] = r))
+                        .then());
+    }
+
+    private Mono<Set<String>> existingIds(List<String> ids) {
+        return db.sql("SELECT deal_unique_id FROM deals WHERE deal_unique_id IN (:ids)")
+                .bind("ids", ids)
+                .map(row -> row.get(0, String.class))
+                .all()
+                .collect(HashSet::new, Set::add);
+    }
+
+    /**
+     * One batched INSERT in its own transaction; responses come back in request order.
+     */
+    private Flux<DealResponse> insertAll(List<DealRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+        Flux<Long> ids = db.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(insertSql).returnGeneratedValues("id");
+            for (int i = 0; i < requests.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                DealRequest r = requests.get(i);
+                statement.bind(0, r.getDealUniqueId())
+                        .bind(1, r.getFromCurrencyIsoCode().toUpperCase())
+                        .bind(2, r.getToCurrencyIsoCode().toUpperCase())
+                        .bind(3, r.getDealTimestamp())
+                        .bind(4, r.getDealAmount())
+                        .bind(5, now);
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map(row -> row.get(0, Long.class)));
+        });
+        return ids.as(transactions::transactional)
+                .index()
+                .map(t -> importedResponse(requests.get(t.getT1().intValue()), t.getT2(), now));
+    }
+
+    private DealResponse importedResponse(DealRequest r, Long id, LocalDateTime createdAt) {
+        DealResponse response = new DealResponse(id, r.getDealUniqueId(), "SUCCESS", "Deal imported successfully");
+        response.setFromCurrencyIsoCode(r.getFromCurrencyIsoCode().toUpperCase());
+        response.setToCurrencyIsoCode(r.getToCurrencyIsoCode().toUpperCase());
+        response.setDealTimestamp(r.getDealTimestamp());
+        response.setDealAmount(r.getDealAmount());
+        response.setCreatedAt(createdAt);
+        return response;
+    }
+
+    private DealResponse toResponse(Readable row) {
+        DealResponse response = new DealResponse(row.get("id", Long.class), row.get("deal_unique_id", String.class),
+                "SUCCESS", "Deal fetched successfully");
+        response.setFromCurrencyIsoCode(row.get("from_currency_iso_code", String.class));
+        response.setToCurrencyIsoCode(row.get("to_currency_iso_code", String.class));
+        response.setDealTimestamp(row.get("deal_timestamp", LocalDateTime.class));
+        response.setDealAmount(row.get("deal_amount", BigDecimal.class));
+        response.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        return response;
+    }
+
+    private DealResponse failedResponse(DealRequest r, String message) {
+        return new DealResponse(null, r.getDealUniqueId(), "FAILED", message);
+    }
+
+    private String duplicateMessage(String dealUniqueId) {
+        return "Deal with ID " + dealUniqueId + " already exists";
+    }
+}
@@ -0,0 +1,23 @@
+package com.progressoft.fxdealsystem.reactive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "fx.reactive")
+public class ReactiveProperties {
+
+    /**
+     * R2DBC URL, e.g. r2dbc:mysql://fx_mysql:3306/fx_deals_db
+     */
+    private String url;
+    private String username;
+    private String password;
+
+    private int poolSize = 20;
+
+    /**
+     * Deals per batched insert. Also bounds how far ahead of the database the request body is read.
+     */
+    private int chunkSize = 500;
+}
@@ -0,0 +1,95 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+/**
+ * Reads an upstream deal file one deal at a time, never the whole file: a JSON array of deals
+ * (the /bulk format) or CSV with the columns
+ * dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount (header optional).
+ */
+final class DealFileReader {
+
+    private static final String CSV_HEADER = "dealUniqueId";
+
+    private final ObjectMapper objectMapper;
+
+    DealFileReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    void read(InputStream in, boolean csv, Consumer<ReconcileDeal> deals) throws IOException {
+        if (csv) {
+            readCsv(in, deals);
+        } else {
+            readJson(in, deals);
+        }
+    }
+
+    private void readJson(InputStream in, Consumer<ReconcileDeal> deals) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidDealException("Reconciliation file must be a JSON array of deals");
+            }
+            int index = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                DealRequest deal;
+                try {
+                    deal = objectMapper.readValue(parser, DealRequest.class);
+                } catch (JsonProcessingException ex) {
+                    throw new InvalidDealException("Deal " + index + " of the file is malformed: " + ex.getOriginalMessage());
+                }
+                deals.accept(of(deal.getDealUniqueId(), deal.getFromCurrencyIsoCode(), deal.getToCurrencyIsoCode(),
+                        deal.getDealTimestamp(), deal.getDealAmount(), "Deal " + index));
+                index++;
+            }
+        }
+    }
+
+    private void readCsv(InputStream in, Consumer<ReconcileDeal> deals) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isBlank() || (number == 1 && line.startsWith(CSV_HEADER))) {
+                continue;
+            }
+            String[] cells = line.split(",", -1);
+            if (cells.length != 5) {
+                throw new InvalidDealException("Line " + number + " of the file has " + cells.length + " columns, expected 5");
+            }
+            LocalDateTime timestamp;
+            BigDecimal amount;
+            try {
+                timestamp = cells[3].isBlank() ? null : LocalDateTime.parse(cells[3].trim());
+                amount = cells[4].isBlank() ? null : new BigDecimal(cells[4].trim());
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                throw new InvalidDealException("Line " + number + " of the file is malformed: " + ex.getMessage());
+            }
+            deals.accept(of(cells[0].trim(), cells[1].trim(), cells[2].trim(), timestamp, amount, "Line " + number));
+        }
+    }
+
+    private static ReconcileDeal of(String id, String from, String to, LocalDateTime timestamp, BigDecimal amount,
+                                    String position) {
+        if (id == null || id.isBlank()) {
+            throw new InvalidDealException(position + " of the file has no dealUniqueId");
+        }
+        return new ReconcileDeal(id, from, to, timestamp, amount);
+    }
+}
@@ -0,0 +1,295 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import com.progressoft.fxdealsystem.repository.DealRepository;
+import com.progressoft.fxdealsystem.sharding.DealShards;
+import com.progressoft.fxdealsystem.sharding.ShardContext;
+import com.progressoft.fxdealsystem.sharding.ShardKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Set-based diff of an uploaded deal file against the deals table, as a range-partitioned hash join.
+ * The table is cut into key ranges of about rangeSize deals; the file is spilled to disk split the
+ * same way, and ranges the file fills beyond rangeSize are split again. Then each range's file deals
+ * are loaded into a hash map and the matching slice of the table is keyset-scanned against it.
+ * Memory is one range per worker whatever the file or table size, and the table is read once in
+ * index order instead of one lookup per file deal. When sharded, file deals are partitioned by
+ * {@link ShardKeys#shardOf} and each shard is joined against its own file deals and ranges.
+ */
+@Component
+@EnableConfigurationProperties(ReconcileProperties.class)
+@Slf4j
+public class DealReconciler implements DisposableBean {
+
+    /** Every rangeSize-th id in index order: the range boundaries. */
+    static final String BOUNDARIES_SQL = "SELECT deal_unique_id FROM (SELECT deal_unique_id, "
+            + "ROW_NUMBER() OVER (ORDER BY deal_unique_id) AS rn FROM deals) ranked "
+            + "WHERE MOD(rn, ?) = 0 ORDER BY deal_unique_id";
+
+    private static final String SCAN_SQL = "SELECT deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+            + "deal_timestamp, deal_amount FROM deals WHERE 1 = 1";
+
+    private static final RowMapper<ReconcileDeal> STORED = (rs, rowNum) -> new ReconcileDeal(
+            rs.getString(1), rs.getString(2), rs.getString(3),
+            rs.getObject(4, LocalDateTime.class), rs.getBigDecimal(5));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DealRepository dealRepository;
+    private final ReconcileProperties properties;
+    private final DealFileReader reader;
+    private final Semaphore running;
+    private final ExecutorService workers;
+    private final DealShards shards;
+
+    public DealReconciler(JdbcTemplate jdbcTemplate, DealRepository dealRepository, ReconcileProperties properties,
+                          ObjectMapper objectMapper, ObjectProvider<DealShards> shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dealRepository = dealRepository;
+        this.properties = properties;
+        this.shards = shards.getIfAvailable();
+        this.reader = new DealFileReader(objectMapper);
+        this.running = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()), r -> {
+            Thread t = new Thread(r, "deal-reconcile-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reads and spills the file. Parse errors surface here, before any response is written.
+     * The returned plan holds a reconciliation slot until closed.
+     */
+    public ReconcilePlan prepare(InputStream in, boolean csv) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new ImportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 60,
+                    "A reconciliation is already running, retry later");
+        }
+        int shardCount = shards == null ? 1 : shards.getShardCount();
+        List<ReconcileJob> jobs = new ArrayList<>(shardCount);
+        ReconcilePlan plan = new ReconcilePlan(jobs, running::release);
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                List<String> boundaries = onShard(shard,
+                        () -> jdbcTemplate.queryForList(BOUNDARIES_SQL, String.class, properties.getRangeSize()));
+                jobs.add(new ReconcileJob(boundaries, spillDirectory(), () -> { }));
+            }
+            try {
+                reader.read(in, csv, deal -> jobs.get(ShardKeys.shardOf(deal.dealUniqueId(), shardCount)).add(deal));
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            int split = 0;
+            for (ReconcileJob job : jobs) {
+                job.finishWriting();
+                split += job.repartition(properties.getRangeSize());
+            }
+            log.info("Reconciliation of {} file deals over {} ranges ({} added for the file)",
+                    plan.fileDeals(), plan.ranges(), split);
+            return plan;
+        } catch (IOException | RuntimeException ex) {
+            plan.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Joins every range of every shard, reporting differences as they are found (from several
+     * threads, one at a time).
+     */
+    public ReconcileSummary run(ReconcilePlan plan, Consumer<Difference> report) {
+        long start = System.nanoTime();
+        Run run = new Run(report);
+        List<CompletableFuture<Void>> ranges = new ArrayList<>(plan.ranges());
+        for (int shard = 0; shard < plan.shards().size(); shard++) {
+            int s = shard;
+            ReconcileJob job = plan.shards().get(shard);
+            for (int range = 0; range < job.ranges(); range++) {
+                int r = range;
+                ranges.add(CompletableFuture.runAsync(() -> onShard(s, () -> {
+                    run.join(job, r);
+                    return null;
+                }), workers));
+            }
+        }
+        try {
+            CompletableFuture.allOf(ranges.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException ex) {
+            ranges.forEach(f -> f.cancel(false));
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+        run.reconcileMisrouted();
+        return new ReconcileSummary(plan.fileDeals(), run.stored.sum(), run.matched.sum(), run.mismatched.sum(),
+                run.missing.sum(), run.extra.sum(), run.duplicates.sum(), plan.ranges(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Runs on the given shard when sharded; the shard context is per thread, so the range
+     * workers set it themselves.
+     */
+    private <T> T onShard(int shard, Supplier<T> action) {
+        return shards == null ? action.get() : ShardContext.callOn(shard, action);
+    }
+
+    private Path spillDirectory() {
+        String directory = properties.getSpillDirectory();
+        return Path.of(directory == null || directory.isBlank() ? System.getProperty("java.io.tmpdir") : directory);
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * State of one reconciliation. Java's string order and the database collation can disagree near
+     * a boundary, so a deal can sit in one range of the file and another of the table; those few are
+     * held back and joined once every range is done. A stored deal and the file deal with its id
+     * are always on the same shard, so one set of held-back deals serves every shard.
+     */
+    private final class Run {
+
+        private final Consumer<Difference> report;
+        private final LongAdder stored = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder mismatched = new LongAdder();
+        private final LongAdder missing = new LongAdder();
+        private final LongAdder extra = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final Map<String, ReconcileDeal> misroutedFile = new ConcurrentHashMap<>();
+        private final Map<String, ReconcileDeal> misroutedStored = new ConcurrentHashMap<>();
+
+        Run(Consumer<Difference> report) {
+            this.report = report;
+        }
+
+        void join(ReconcileJob job, int range) {
+            Map<String, ReconcileDeal> expected = new HashMap<>();
+            job.forEach(range, deal -> {
+                if (expected.put(deal.dealUniqueId(), deal) != null) {
+                    duplicates.increment();
+                    report(Difference.duplicate(deal));
+                }
+            });
+
+            String lower = job.lower(range);
+            String upper = job.upper(range);
+            String after = null;
+            List<ReconcileDeal> page;
+            do {
+                page = scan(lower, upper, after);
+                for (ReconcileDeal actual : page) {
+                    stored.increment();
+                    ReconcileDeal deal = expected.remove(actual.dealUniqueId());
+                    if (deal != null) {
+                        compare(deal, actual);
+                    } else if (job.rangeOf(actual.dealUniqueId()) != range) {
+                        misroutedStored.put(actual.dealUniqueId(), actual);
+                    } else {
+                        extra.increment();
+                        report(Difference.extra(actual));
+                    }
+                }
+                after = page.isEmpty() ? after : page.get(page.size() - 1).dealUniqueId();
+            } while (page.size() == properties.getPageSize());
+
+            // Left over: not stored in this range. Confirm absence with an IN before reporting it missing
+            List<String> ids = new ArrayList<>(expected.keySet());
+            for (int from = 0; from < ids.size(); from += properties.getPageSize()) {
+                List<String> chunk = ids.subList(from, Math.min(ids.size(), from + properties.getPageSize()));
+                Set<String> existing = new HashSet<>(dealRepository.findExistingDealUniqueIds(chunk));
+                for (String id : chunk) {
+                    ReconcileDeal deal = expected.get(id);
+                    if (existing.contains(id)) {
+                        misroutedFile.put(id, deal);
+                    } else {
+                        missing.increment();
+                        report(Difference.missing(deal));
+                    }
+                }
+            }
+        }
+
+        void reconcileMisrouted() {
+            for (ReconcileDeal actual : misroutedStored.values()) {
+                ReconcileDeal deal = misroutedFile.remove(actual.dealUniqueId());
+                if (deal != null) {
+                    compare(deal, actual);
+                } else {
+                    extra.increment();
+                    report(Difference.extra(actual));
+                }
+            }
+            for (ReconcileDeal deal : misroutedFile.values()) {
+                missing.increment();
+                report(Difference.missing(deal));
+            }
+        }
+
+        private List<ReconcileDeal> scan(String lower, String upper, String after) {
+            StringBuilder sql = new StringBuilder(SCAN_SQL);
+            List<Object> args = new ArrayList<>(4);
+            if (lower != null) {
+                sql.append(" AND deal_unique_id >= ?");
+                args.add(lower);
+            }
+            if (upper != null) {
+                sql.append(" AND deal_unique_id < ?");
+                args.add(upper);
+            }
+            if (after != null) {
+                sql.append(" AND deal_unique_id > ?");
+                args.add(after);
+            }
+            sql.append(" ORDER BY deal_unique_id LIMIT ?");
+            args.add(properties.getPageSize());
+            return jdbcTemplate.query(sql.toString(), STORED, args.toArray());
+        }
+
+        private void compare(ReconcileDeal deal, ReconcileDeal actual) {
+            List<String> fields = deal.differences(actual);
+            if (fields.isEmpty()) {
+                matched.increment();
+            } else {
+                mismatched.increment();
+                report(Difference.mismatch(fields, deal, actual));
+            }
+        }
+
+        private void report(Difference difference) {
+            synchronized (this) {
+                report.accept(difference);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One reconciliation finding. expected is the file's version, actual the stored one.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Difference(Type type, String dealUniqueId, List<String> fields, ReconcileDeal expected,
+                         ReconcileDeal actual) {
+
+    public enum Type {
+        /** In the file, not stored. */
+        MISSING,
+        /** Stored, not in the file. */
+        EXTRA,
+        /** In both, with different fields. */
+        MISMATCH,
+        /** Repeated in the file; the last occurrence is compared. */
+        DUPLICATE
+    }
+
+    static Difference missing(ReconcileDeal expected) {
+        return new Difference(Type.MISSING, expected.dealUniqueId(), null, expected, null);
+    }
+
+    static Difference extra(ReconcileDeal actual) {
+        return new Difference(Type.EXTRA, actual.dealUniqueId(), null, null, actual);
+    }
+
+    static Difference mismatch(List<String> fields, ReconcileDeal expected, ReconcileDeal actual) {
+        return new Difference(Type.MISMATCH, expected.dealUniqueId(), fields, expected, actual);
+    }
+
+    static Difference duplicate(ReconcileDeal expected) {
+        return new Difference(Type.DUPLICATE, expected.dealUniqueId(), null, expected, null);
+    }
+}
@@ -0,0 +1,40 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The compared fields of a deal, from the file or from the table.
+ */
+public record ReconcileDeal(String dealUniqueId, String fromCurrencyIsoCode, String toCurrencyIsoCode,
+                            LocalDateTime dealTimestamp, BigDecimal dealAmount) {
+
+    /**
+     * Names of the fields that differ; empty when the deals match. Currencies are compared
+     * ignoring case and amounts ignoring scale (1000.5 matches 1000.5000).
+     */
+    List<String> differences(ReconcileDeal stored) {
+        List<String> fields = new ArrayList<>(0);
+        if (!equalsIgnoreCase(fromCurrencyIsoCode, stored.fromCurrencyIsoCode)) {
+            fields.add("fromCurrencyIsoCode");
+        }
+        if (!equalsIgnoreCase(toCurrencyIsoCode, stored.toCurrencyIsoCode)) {
+            fields.add("toCurrencyIsoCode");
+        }
+        if (!Objects.equals(dealTimestamp, stored.dealTimestamp)) {
+            fields.add("dealTimestamp");
+        }
+        if (dealAmount == null || stored.dealAmount == null
+                ? dealAmount != stored.dealAmount : dealAmount.compareTo(stored.dealAmount) != 0) {
+            fields.add("dealAmount");
+        }
+        return fields;
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+}
@@ -0,0 +1,235 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * An uploaded file split by key range into spill files, one per range of the table. Range k holds
+ * ids in [boundaries[k-1], boundaries[k]); the first and last ranges are open-ended. Ranges the
+ * file fills beyond rangeSize are split again after writing, see repartition.
+ * Closing deletes the spill files.
+ */
+public final class ReconcileJob implements AutoCloseable {
+
+    /** Ids sampled per sub-range when an oversized range is split. */
+    private static final int SAMPLES_PER_RANGE = 32;
+
+    private final Path directory;
+    private final Runnable onClose;
+    private List<String> boundaries;
+    private DataOutputStream[] writers;
+    private long[] counts;
+    private int generation;
+    private long fileDeals;
+    private boolean closed;
+
+    ReconcileJob(List<String> boundaries, Path spillDirectory, Runnable onClose) throws IOException {
+        this.boundaries = boundaries;
+        this.directory = Files.createTempDirectory(spillDirectory, "reconcile-");
+        this.writers = new DataOutputStream[boundaries.size() + 1];
+        this.counts = new long[boundaries.size() + 1];
+        this.onClose = onClose;
+    }
+
+    int ranges() {
+        return counts.length;
+    }
+
+    long fileDeals() {
+        return fileDeals;
+    }
+
+    String lower(int range) {
+        return range == 0 ? null : boundaries.get(range - 1);
+    }
+
+    String upper(int range) {
+        return range == boundaries.size() ? null : boundaries.get(range);
+    }
+
+    /**
+     * Range of an id by Java's string order, which may differ from the database collation at the
+     * boundaries; the reconciler allows for that.
+     */
+    int rangeOf(String dealUniqueId) {
+        int index = Collections.binarySearch(boundaries, dealUniqueId);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    void add(ReconcileDeal deal) {
+        int range = rangeOf(deal.dealUniqueId());
+        write(range, deal);
+        fileDeals++;
+    }
+
+    private void write(int range, ReconcileDeal deal) {
+        try {
+            DataOutputStream out = writers[range];
+            if (out == null) {
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file(generation, range)), 16 * 1024));
+                writers[range] = out;
+            }
+            out.writeUTF(deal.dealUniqueId());
+            writeNullable(out, deal.fromCurrencyIsoCode());
+            writeNullable(out, deal.toCurrencyIsoCode());
+            writeNullable(out, deal.dealTimestamp() == null ? null : deal.dealTimestamp().toString());
+            writeNullable(out, deal.dealAmount() == null ? null : deal.dealAmount().toPlainString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        counts[range]++;
+    }
+
+    void finishWriting() throws IOException {
+        for (DataOutputStream out : writers) {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Boundaries come from the table, so a file much larger than the table (a first load, a
+     * replay) would land in a few huge ranges, each loaded whole into a hash map. Every range holding
+     * more than rangeSize file deals is cut into sub-ranges at quantiles of a sample of its ids, and
+     * the spill is rewritten once. Sub-ranges hold about rangeSize file deals; sampling keeps memory
+     * bounded by the sample, not the range. Call after finishWriting.
+     *
+     * @return the number of ranges added
+     */
+    int repartition(int rangeSize) throws IOException {
+        List<String> split = new ArrayList<>(boundaries.size());
+        for (int range = 0; range < counts.length; range++) {
+            if (range > 0) {
+                split.add(boundaries.get(range - 1));
+            }
+            if (counts[range] > rangeSize) {
+                split.addAll(quantiles(range, (int) Math.min(Integer.MAX_VALUE / SAMPLES_PER_RANGE,
+                        (counts[range] + rangeSize - 1) / rangeSize)));
+            }
+        }
+        int added = split.size() - boundaries.size();
+        if (added == 0) {
+            return 0;
+        }
+        List<String> previousBoundaries = boundaries;
+        long[] previousCounts = counts;
+        int previousGeneration = generation;
+        boundaries = split;
+        counts = new long[split.size() + 1];
+        writers = new DataOutputStream[split.size() + 1];
+        generation++;
+        for (int range = 0; range < previousCounts.length; range++) {
+            read(file(previousGeneration, range), previousCounts[range], deal -> write(rangeOf(deal.dealUniqueId()), deal));
+            Files.deleteIfExists(file(previousGeneration, range));
+        }
+        finishWriting();
+        return added;
+    }
+
+    /**
+     * parts - 1 split points, strictly inside the range, from a reservoir sample of its ids.
+     */
+    private List<String> quantiles(int range, int parts) {
+        String[] sample = new String[(int) Math.min(counts[range], (long) parts * SAMPLES_PER_RANGE)];
+        long[] seen = new long[1];
+        read(file(generation, range), counts[range], deal -> {
+            long index = seen[0]++;
+            if (index < sample.length) {
+                sample[(int) index] = deal.dealUniqueId();
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(index + 1);
+                if (slot < sample.length) {
+                    sample[(int) slot] = deal.dealUniqueId();
+                }
+            }
+        });
+        Arrays.sort(sample);
+        String lower = lower(range);
+        TreeSet<String> points = new TreeSet<>();
+        for (int part = 1; part < parts; part++) {
+            String point = sample[(int) ((long) part * sample.length / parts)];
+            if (lower == null || point.compareTo(lower) > 0) {
+                points.add(point);
+            }
+        }
+        return new ArrayList<>(points);
+    }
+
+    void forEach(int range, Consumer<ReconcileDeal> deals) {
+        read(file(generation, range), counts[range], deals);
+    }
+
+    private static void read(Path file, long count, Consumer<ReconcileDeal> deals) {
+        if (count == 0) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 16 * 1024))) {
+            for (long i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String from = readNullable(in);
+                String to = readNullable(in);
+                String timestamp = readNullable(in);
+                String amount = readNullable(in);
+                deals.accept(new ReconcileDeal(id, from, to, timestamp == null ? null : LocalDateTime.parse(timestamp),
+                        amount == null ? null : new BigDecimal(amount)));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (DataOutputStream out : writers) {
+                if (out != null) {
+                    out.close();
+                }
+            }
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            onClose.run();
+        }
+    }
+
+    private Path file(int generation, int range) {
+        return directory.resolve("range-" + generation + "-" + range + ".bin");
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import java.util.List;
+
+/**
+ * An uploaded file ready to be joined: one {@link ReconcileJob} per shard (a single one when not
+ * sharded), each split by the key ranges of its shard. Closing deletes the spill files and frees
+ * the reconciliation slot.
+ */
+public final class ReconcilePlan implements AutoCloseable {
+
+    private final List<ReconcileJob> shards;
+    private final Runnable onClose;
+    private boolean closed;
+
+    ReconcilePlan(List<ReconcileJob> shards, Runnable onClose) {
+        this.shards = shards;
+        this.onClose = onClose;
+    }
+
+    List<ReconcileJob> shards() {
+        return shards;
+    }
+
+    long fileDeals() {
+        return shards.stream().mapToLong(ReconcileJob::fileDeals).sum();
+    }
+
+    int ranges() {
+        return shards.stream().mapToInt(ReconcileJob::ranges).sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            shards.forEach(ReconcileJob::close);
+        } finally {
+            onClose.run();
+        }
+    }
+}
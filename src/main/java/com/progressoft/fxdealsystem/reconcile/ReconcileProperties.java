@@ -0,0 +1,39 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Reconciliation of an upstream deal file against the deals table (POST /api/deals/reconcile).
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.reconcile")
+public class ReconcileProperties {
+
+    /**
+     * Deals per key range, on the table side and on the file side (ranges the file overfills are
+     * split again). A range's file deals are held in memory while the range is joined, so this
+     * bounds memory per worker.
+     */
+    private int rangeSize = 50_000;
+
+    /**
+     * Ranges joined at once, each on its own connection.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Rows per keyset page when scanning a range of the table.
+     */
+    private int pageSize = 1_000;
+
+    /**
+     * Reconciliations running at once; beyond, 503.
+     */
+    private int maxConcurrent = 1;
+
+    /**
+     * Where the uploaded file is spilled, split by key range. Defaults to java.io.tmpdir.
+     */
+    private String spillDirectory;
+}
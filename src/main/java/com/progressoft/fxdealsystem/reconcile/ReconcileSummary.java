@@ -0,0 +1,8 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+/**
+ * Counts of a reconciliation; written after the differences.
+ */
+public record ReconcileSummary(long fileDeals, long storedDeals, long matched, long mismatched, long missing,
+                               long extra, long duplicates, int ranges, long millis) {
+}
@@ -0,0 +1,33 @@
+package com.progressoft.fxdealsystem.replica;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets a read-only transaction opt out of the replicas, e.g. to read a deal that was just written.
+ * Must be set before the first statement of the transaction.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean primaryRequested() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY.remove();
+            } else {
+                PRIMARY.set(previous);
+            }
+        }
+    }
+}
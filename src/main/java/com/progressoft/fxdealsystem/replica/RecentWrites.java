@@ -0,0 +1,44 @@
+package com.progressoft.fxdealsystem.replica;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * dealUniqueIds imported within the read-your-writes window. Reads of these deals go to the
+ * primary because the replicas may not have them yet.
+ */
+public class RecentWrites {
+
+    private static final int SWEEP_THRESHOLD = 100_000;
+
+    private final long windowNanos;
+    private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+
+    public RecentWrites(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void record(String dealUniqueId) {
+        if (windowNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        expiries.put(dealUniqueId, now + windowNanos);
+        if (expiries.size() > SWEEP_THRESHOLD) {
+            expiries.values().removeIf(expiry -> expiry - now < 0);
+        }
+    }
+
+    public boolean isRecent(String dealUniqueId) {
+        Long expiry = expiries.get(dealUniqueId);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry - System.nanoTime() < 0) {
+            expiries.remove(dealUniqueId, expiry);
+            return false;
+        }
+        return true;
+    }
+}
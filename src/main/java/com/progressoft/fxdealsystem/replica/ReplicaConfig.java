@@ -0,0 +1,99 @@
+package com.progressoft.fxdealsystem.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary pool from spring.datasource.*, plus one pool per fx.replicas.nodes entry.
+ * Read-only transactions (@Transactional(readOnly = true)) are served by the replicas, everything
+ * else by the primary. Not combinable with fx.sharding.enabled: both replace the primary
+ * DataSource, and startup fails with a message saying so.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "fx.replicas", name = "enabled", havingValue = "true")
+public class ReplicaConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    /**
+     * Runs before any bean is created, so the conflict is reported instead of an ambiguous
+     * primary DataSource (the bean names differ so that both definitions get this far).
+     */
+    @Bean
+    static BeanFactoryPostProcessor replicasWithoutSharding(Environment environment) {
+        return beanFactory -> {
+            if (environment.getProperty("fx.sharding.enabled", Boolean.class, false)) {
+                throw new IllegalStateException("fx.replicas.enabled=true cannot be combined with "
+                        + "fx.sharding.enabled=true: both replace the primary DataSource. Disable one of them");
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public DataSource replicatedDataSource(DataSourceProperties primaryProperties, ReplicaProperties properties,
+                                           Environment environment) {
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalStateException("fx.replicas.enabled=true but no fx.replicas.nodes configured");
+        }
+
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // pools are not created by Boot here, so spring.datasource.hikari.* is applied explicitly
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        pools.add(primary);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReplicaProperties.Node node = properties.getNodes().get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(node.getUrl())
+                    .username(node.getUsername())
+                    .password(node.getPassword())
+                    .driverClassName(node.getDriverClassName())
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("replica-" + i);
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            // an unreachable replica must not prevent startup, it is skipped until it recovers
+            pool.setInitializationFailTimeout(-1);
+            pools.add(pool);
+            replicas.add(pool);
+        }
+
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(new ReplicaDataSource(primary, replicas, properties.getDownCooldown()));
+        return routing;
+    }
+
+    @Bean
+    public RecentWrites recentWrites(ReplicaProperties properties) {
+        return new RecentWrites(properties.getReadYourWrites());
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
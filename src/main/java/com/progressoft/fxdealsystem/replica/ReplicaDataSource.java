@@ -0,0 +1,74 @@
+package com.progressoft.fxdealsystem.replica;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource for read-only transactions: round-robin over the replicas, skipping a replica for a
+ * cool-down period after it failed to hand out a connection. Falls back to the primary when no
+ * replica is available or when {@link ReadRouting#onPrimary} is active.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long cooldownNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, Duration cooldown) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.cooldownNanos = cooldown.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadRouting.primaryRequested()) {
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (System.nanoTime() < replica.downUntil) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException ex) {
+                replica.downUntil = System.nanoTime() + cooldownNanos;
+                log.warn("Read replica {} unavailable, skipping it for {} ms: {}",
+                        (start + i) % replicas.size(), cooldownNanos / 1_000_000, ex.getMessage());
+            }
+        }
+        log.debug("No read replica available, reading from the primary");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    public int availableReplicas() {
+        long now = System.nanoTime();
+        return (int) replicas.stream().filter(r -> now >= r.downUntil).count();
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile long downUntil = Long.MIN_VALUE;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.progressoft.fxdealsystem.replica;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "fx.replicas")
+public class ReplicaProperties {
+
+    private boolean enabled;
+
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * How long a read waits for a replica connection before failing over to the next replica.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * How long a replica that failed to hand out a connection is skipped.
+     */
+    private Duration downCooldown = Duration.ofSeconds(10);
+
+    /**
+     * Reads of a deal imported less than this long ago go to the primary (replication lag budget).
+     * Zero disables the read-your-writes guarantee.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    @Data
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
@@ -2,8 +2,12 @@ package com.progressoft.fxdealsystem.repository;
 
 import com.progressoft.fxdealsystem.model.Deal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,21 @@ public interface DealRepository extends JpaRepository<Deal, Long> {
 
     // Trouver un deal par son ID unique
     Optional<Deal> findByDealUniqueId(String dealUniqueId);
-}
\ No newline at end of file
+
+    // Parmi les IDs donnés, ceux qui existent déjà (un seul IN au lieu d'un exists par deal)
+    @Query("select d.dealUniqueId from Deal d where d.dealUniqueId in :ids")
+    List<String> findExistingDealUniqueIds(@Param("ids") Collection<String> ids);
+
+    // Recherche groupée : un IN par lot d'IDs au lieu d'un findByDealUniqueId par ID
+    List<Deal> findByDealUniqueIdIn(Collection<String> dealUniqueIds);
+
+    // Nombre de deals et plus grand ID : changent à chaque import comme à chaque archivage (ETag de la liste)
+    @Query("select count(d) as count, coalesce(max(d.id), 0) as maxId from Deal d")
+    ListingVersion findListingVersion();
+
+    interface ListingVersion {
+        long getCount();
+
+        long getMaxId();
+    }
+}
@@ -0,0 +1,54 @@
+package com.progressoft.fxdealsystem.repository;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.model.Deal;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Insert path for deals. Deals are immutable once imported, so writing them needs nothing more
+ * than an INSERT; reads stay on {@link DealRepository}.
+ * Selected with fx.writer=jpa (default) or fx.writer=jdbc.
+ */
+public interface DealWriter {
+
+    /**
+     * @return the deal with its generated id and creation time
+     * @throws org.springframework.dao.DataIntegrityViolationException when the dealUniqueId exists
+     */
+    Deal insert(Deal deal);
+
+    /**
+     * Inserts all deals in the current transaction, in one batch where the implementation allows.
+     * Fails as a whole if any dealUniqueId already exists.
+     */
+    List<Deal> insertAll(List<Deal> deals);
+
+    /**
+     * Inserts the given rows of a batch like {@link #insertAll}, all with the same creation time.
+     * The default goes through entities; implementations can bind straight from the columns.
+     *
+     * @return generated ids, in the order of {@code rows}
+     */
+    default long[] insertBatch(DealBatch batch, int[] rows, LocalDateTime createdAt) {
+        List<Deal> deals = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            Deal deal = new Deal();
+            deal.setDealUniqueId(batch.id(row));
+            deal.setFromCurrencyIsoCode(batch.fromCode(row));
+            deal.setToCurrencyIsoCode(batch.toCode(row));
+            deal.setDealTimestamp(batch.timestamp(row));
+            deal.setDealAmount(batch.amount(row));
+            deal.setCreatedAt(createdAt);
+            deals.add(deal);
+        }
+        List<Deal> saved = insertAll(deals);
+        long[] ids = new long[rows.length];
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = saved.get(k).getId();
+        }
+        return ids;
+    }
+}
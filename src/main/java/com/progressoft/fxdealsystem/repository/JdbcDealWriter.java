@@ -0,0 +1,118 @@
+package com.progressoft.fxdealsystem.repository;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.model.Deal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC insert path: no entity state tracking, no persistence context, one batched
+ * INSERT per call. The statement text never changes, so the driver's prepared statement cache
+ * (see the high-throughput profile) prepares it once per connection.
+ * Runs in the surrounding Spring transaction, exceptions are translated like JPA's.
+ */
+@Component
+@ConditionalOnProperty(name = "fx.writer", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcDealWriter implements DealWriter {
+
+    static final String INSERT_SQL = "INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+            + "deal_timestamp, deal_amount, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Deal insert(Deal deal) {
+        return insertAll(List.of(deal)).get(0);
+    }
+
+    @Override
+    public List<Deal> insertAll(List<Deal> deals) {
+        if (deals.isEmpty()) {
+            return deals;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.execute((ConnectionCallback<List<Deal>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Deal deal : deals) {
+                    if (deal.getCreatedAt() == null) {
+                        deal.setCreatedAt(now);
+                    }
+                    bind(ps, deal);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                long[] ids = readGeneratedIds(ps, deals.size());
+                for (int k = 0; k < ids.length; k++) {
+                    deals.get(k).setId(ids[k]);
+                }
+            }
+            return deals;
+        });
+    }
+
+    /**
+     * Binds each row straight from the batch columns: no entity, no per-deal timestamp copy.
+     */
+    @Override
+    public long[] insertBatch(DealBatch batch, int[] rows, LocalDateTime createdAt) {
+        if (rows.length == 0) {
+            return new long[0];
+        }
+        Timestamp created = Timestamp.valueOf(createdAt);
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int row : rows) {
+                    ps.setString(1, batch.id(row));
+                    ps.setString(2, batch.fromCode(row));
+                    ps.setString(3, batch.toCode(row));
+                    ps.setTimestamp(4, Timestamp.valueOf(batch.timestamp(row)));
+                    ps.setBigDecimal(5, batch.amount(row));
+                    ps.setTimestamp(6, created);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                return readGeneratedIds(ps, rows.length);
+            }
+        });
+    }
+
+    private void bind(PreparedStatement ps, Deal deal) throws SQLException {
+        ps.setString(1, deal.getDealUniqueId());
+        ps.setString(2, deal.getFromCurrencyIsoCode());
+        ps.setString(3, deal.getToCurrencyIsoCode());
+        ps.setTimestamp(4, Timestamp.valueOf(deal.getDealTimestamp()));
+        ps.setBigDecimal(5, deal.getDealAmount());
+        ps.setTimestamp(6, Timestamp.valueOf(deal.getCreatedAt()));
+    }
+
+    /**
+     * One generated id per inserted row; fewer fails the insert rather than answer with id 0, and
+     * the caller's transaction rolls back.
+     */
+    private long[] readGeneratedIds(PreparedStatement ps, int rows) throws SQLException {
+        long[] ids = new long[rows];
+        int k = 0;
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (k < rows && keys.next()) {
+                ids[k++] = keys.getLong(1);
+            }
+        }
+        if (k < rows) {
+            throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(INSERT_SQL, rows, k);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,26 @@
+package com.progressoft.fxdealsystem.repository;
+
+import com.progressoft.fxdealsystem.model.Deal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "fx.writer", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaDealWriter implements DealWriter {
+
+    private final DealRepository dealRepository;
+
+    @Override
+    public Deal insert(Deal deal) {
+        return dealRepository.save(deal);
+    }
+
+    @Override
+    public List<Deal> insertAll(List<Deal> deals) {
+        return dealRepository.saveAll(deals);
+    }
+}
@@ -0,0 +1,16 @@
+package com.progressoft.fxdealsystem.rules;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+
+/**
+ * One check of the validation pipeline, applied to a row of a batch.
+ * Implementations must not allocate when the deal passes; the message is only built on rejection.
+ */
+@FunctionalInterface
+public interface DealRule {
+
+    /**
+     * @return why the deal is rejected, or null when it passes
+     */
+    String check(DealBatch batch, int row, RuleContext context);
+}
@@ -0,0 +1,228 @@
+package com.progressoft.fxdealsystem.rules;
+
+import com.progressoft.fxdealsystem.dto.CurrencyCodes;
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.exception.InvalidRuleConfigException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The validation pipeline compiled from the built-in checks and a {@link RuleProperties}: a fixed
+ * array of rules run in order until the first rejection. Configured rules are compiled to flat
+ * lookup tables indexed by currency pair, so evaluating a deal is array reads only.
+ * Immutable; a new configuration means a new instance sharing the same rejection counters.
+ */
+public final class DealRules {
+
+    public static final String MANDATORY_FIELDS = "mandatory-fields";
+    public static final String CURRENCY_CODES = "currency-codes";
+    public static final String DISTINCT_CURRENCIES = "distinct-currencies";
+    public static final String POSITIVE_AMOUNT = "positive-amount";
+    public static final String NO_FUTURE_TIMESTAMP = "no-future-timestamp";
+    public static final String ALLOWED_PAIRS = "allowed-pairs";
+    public static final String MAX_NOTIONAL = "max-notional";
+    public static final String CUT_OFF = "cut-off";
+
+    private final RuleProperties properties;
+    private final String[] names;
+    private final DealRule[] rules;
+    private final LongAdder[] rejections;
+
+    private DealRules(RuleProperties properties, List<String> names, List<DealRule> rules,
+                      Map<String, LongAdder> counters) {
+        this.properties = properties;
+        this.names = names.toArray(String[]::new);
+        this.rules = rules.toArray(DealRule[]::new);
+        this.rejections = new LongAdder[this.names.length];
+        for (int i = 0; i < this.names.length; i++) {
+            rejections[i] = counters.computeIfAbsent(this.names[i], name -> new LongAdder());
+        }
+    }
+
+    public static DealRules builtIn() {
+        return compile(new RuleProperties(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @throws InvalidRuleConfigException when a pair or amount of the configuration is unusable
+     */
+    public static DealRules compile(RuleProperties properties, Map<String, LongAdder> counters) {
+        if (properties.getAllowedPairs() == null || properties.getMaxNotional() == null) {
+            throw new InvalidRuleConfigException("allowedPairs and maxNotional cannot be null; send [] or {} for none");
+        }
+        List<String> names = new ArrayList<>();
+        List<DealRule> rules = new ArrayList<>();
+
+        names.add(MANDATORY_FIELDS);
+        rules.add(DealRules::mandatoryFields);
+        names.add(CURRENCY_CODES);
+        rules.add(DealRules::currencyCodes);
+        names.add(DISTINCT_CURRENCIES);
+        rules.add((batch, row, context) -> batch.fromCurrency(row) == batch.toCurrency(row)
+                ? "From and To currencies must be different" : null);
+        names.add(POSITIVE_AMOUNT);
+        rules.add(DealRules::positiveAmount);
+        names.add(NO_FUTURE_TIMESTAMP);
+        rules.add((batch, row, context) -> batch.timestampMicros(row) > context.nowMicros()
+                ? "Deal timestamp cannot be in the future" : null);
+
+        if (!properties.getAllowedPairs().isEmpty()) {
+            names.add(ALLOWED_PAIRS);
+            rules.add(allowedPairs(properties.getAllowedPairs()));
+        }
+        if (!properties.getMaxNotional().isEmpty()) {
+            names.add(MAX_NOTIONAL);
+            rules.add(maxNotional(properties.getMaxNotional()));
+        }
+        if (properties.getCutOff() != null) {
+            names.add(CUT_OFF);
+            rules.add(cutOff(properties.getCutOff()));
+        }
+        return new DealRules(properties, names, rules, counters);
+    }
+
+    public RuleContext context(LocalDateTime now) {
+        return RuleContext.at(now, properties.getCutOff());
+    }
+
+    /**
+     * @return the message of the first rule the row breaks, or null
+     */
+    public String check(DealBatch batch, int row, RuleContext context) {
+        for (int i = 0; i < rules.length; i++) {
+            String rejection = rules[i].check(batch, row, context);
+            if (rejection != null) {
+                rejections[i].increment();
+                return rejection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the row passes every rule; nothing is counted.
+     */
+    public boolean isValid(DealBatch batch, int row, RuleContext context) {
+        for (DealRule rule : rules) {
+            if (rule.check(batch, row, context) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public RuleProperties getProperties() {
+        return properties;
+    }
+
+    public List<String> getRuleNames() {
+        return List.of(names);
+    }
+
+    /* ----------------- Built-in rules ----------------- */
+
+    private static String mandatoryFields(DealBatch batch, int row, RuleContext context) {
+        if (batch.idIsBlank(row)) {
+            return "Deal unique ID is required";
+        }
+        if (batch.fromCurrency(row) == DealBatch.MISSING) {
+            return "From currency ISO code is required";
+        }
+        if (batch.toCurrency(row) == DealBatch.MISSING) {
+            return "To currency ISO code is required";
+        }
+        if (batch.amountUnscaled(row) == DealBatch.NO_AMOUNT) {
+            return "Deal amount is required";
+        }
+        if (batch.timestampMicros(row) == DealBatch.NO_TIMESTAMP) {
+            return "Deal timestamp is required";
+        }
+        return null;
+    }
+
+    private static String currencyCodes(DealBatch batch, int row, RuleContext context) {
+        if (batch.fromCurrency(row) == CurrencyCodes.UNKNOWN) {
+            return "Invalid currency ISO code: " + batch.rawFromCurrency(row);
+        }
+        if (batch.toCurrency(row) == CurrencyCodes.UNKNOWN) {
+            return "Invalid currency ISO code: " + batch.rawToCurrency(row);
+        }
+        return null;
+    }
+
+    private static String positiveAmount(DealBatch batch, int row, RuleContext context) {
+        if (batch.amountUnscaled(row) == DealBatch.AMOUNT_OUT_OF_RANGE) {
+            return "Deal amount is out of range";
+        }
+        return batch.amountSignum(row) <= 0 ? "Deal amount must be positive" : null;
+    }
+
+    /* ----------------- Configured rules ----------------- */
+
+    private static DealRule allowedPairs(List<String> pairs) {
+        int n = CurrencyCodes.count();
+        boolean[] allowed = new boolean[n * n];
+        for (String pair : pairs) {
+            short[] codes = parsePair(pair);
+            allowed[codes[0] * n + codes[1]] = true;
+            allowed[codes[1] * n + codes[0]] = true;
+        }
+        return (batch, row, context) -> allowed[batch.fromCurrency(row) * n + batch.toCurrency(row)]
+                ? null
+                : "Currency pair " + batch.fromCode(row) + "/" + batch.toCode(row) + " is not allowed";
+    }
+
+    private static DealRule maxNotional(Map<String, BigDecimal> limits) {
+        int n = CurrencyCodes.count();
+        long[] max = new long[n * n];
+        Arrays.fill(max, Long.MAX_VALUE);
+        for (Map.Entry<String, BigDecimal> limit : limits.entrySet()) {
+            short[] codes = parsePair(limit.getKey());
+            if (limit.getValue() == null || limit.getValue().signum() <= 0) {
+                throw new InvalidRuleConfigException("Maximum notional must be positive: " + limit.getKey());
+            }
+            long unscaled;
+            try {
+                unscaled = limit.getValue().setScale(DealBatch.AMOUNT_SCALE, RoundingMode.DOWN)
+                        .unscaledValue().longValueExact();
+            } catch (ArithmeticException ex) {
+                throw new InvalidRuleConfigException("Maximum notional out of range: " + limit.getKey());
+            }
+            max[codes[0] * n + codes[1]] = unscaled;
+            max[codes[1] * n + codes[0]] = unscaled;
+        }
+        return (batch, row, context) -> {
+            int pair = batch.fromCurrency(row) * n + batch.toCurrency(row);
+            return max[pair] == Long.MAX_VALUE || batch.amountAtMost(row, max[pair])
+                    ? null
+                    : "Deal amount exceeds the maximum notional of "
+                    + BigDecimal.valueOf(max[pair], DealBatch.AMOUNT_SCALE).stripTrailingZeros().toPlainString()
+                    + " for " + batch.fromCode(row) + "/" + batch.toCode(row);
+        };
+    }
+
+    private static DealRule cutOff(LocalTime cutOff) {
+        return (batch, row, context) -> context.pastCutOff() && batch.timestampMicros(row) < context.startOfDayMicros()
+                ? "Deal dated " + batch.timestamp(row).toLocalDate() + " received after the " + cutOff + " cut-off"
+                : null;
+    }
+
+    private static short[] parsePair(String pair) {
+        String compact = pair == null ? "" : pair.replace("/", "").trim();
+        short from = compact.length() == 6 ? CurrencyCodes.encode(compact.substring(0, 3)) : CurrencyCodes.UNKNOWN;
+        short to = compact.length() == 6 ? CurrencyCodes.encode(compact.substring(3)) : CurrencyCodes.UNKNOWN;
+        if (from < 0 || to < 0) {
+            throw new InvalidRuleConfigException("Unknown currency pair: " + pair);
+        }
+        return new short[]{from, to};
+    }
+}
@@ -0,0 +1,41 @@
+package com.progressoft.fxdealsystem.rules;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Clock-derived values for one batch, computed once so that no rule reads the clock per deal.
+ * Times are in {@link DealBatch#epochMicros} form.
+ */
+public final class RuleContext {
+
+    private final long nowMicros;
+    private final long startOfDayMicros;
+    private final boolean pastCutOff;
+
+    private RuleContext(long nowMicros, long startOfDayMicros, boolean pastCutOff) {
+        this.nowMicros = nowMicros;
+        this.startOfDayMicros = startOfDayMicros;
+        this.pastCutOff = pastCutOff;
+    }
+
+    public static RuleContext at(LocalDateTime now, LocalTime cutOff) {
+        return new RuleContext(DealBatch.epochMicros(now),
+                DealBatch.epochMicros(now.toLocalDate().atStartOfDay()),
+                cutOff != null && !now.toLocalTime().isBefore(cutOff));
+    }
+
+    public long nowMicros() {
+        return nowMicros;
+    }
+
+    public long startOfDayMicros() {
+        return startOfDayMicros;
+    }
+
+    public boolean pastCutOff() {
+        return pastCutOff;
+    }
+}
@@ -0,0 +1,36 @@
+package com.progressoft.fxdealsystem.rules;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Business rules applied after the built-in checks. Initial values come from fx.rules.*, and can be
+ * replaced at runtime through PUT /api/admin/rules. Pairs are written "EUR/USD" and match both
+ * directions.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.rules")
+public class RuleProperties {
+
+    /**
+     * Only these pairs may be imported; empty allows every pair.
+     */
+    private List<String> allowedPairs = new ArrayList<>();
+
+    /**
+     * Largest dealAmount accepted per pair, e.g. fx.rules.max-notional[EUR/USD]=5000000
+     */
+    private Map<String, BigDecimal> maxNotional = new LinkedHashMap<>();
+
+    /**
+     * Time of day after which deals dated before today are refused (late bookings). Unset: no cut-off.
+     */
+    private LocalTime cutOff;
+}
@@ -0,0 +1,51 @@
+package com.progressoft.fxdealsystem.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-flight claims on dealUniqueIds, local to this instance.
+ * A second import of an id that is still being saved on this instance is rejected right away,
+ * instead of racing the first one to the unique constraint. Imports of the same id on other
+ * instances are not seen here; the unique constraint settles those races.
+ * Metrics: fx.import.reservations.in-flight and fx.import.reservations.rejected.
+ */
+@Component
+public class DealIdReservations {
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final LongAdder rejected = new LongAdder();
+
+    public DealIdReservations(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("fx.import.reservations.in-flight", inFlight, Set::size)
+                    .description("Deal ids being imported on this instance").register(registry);
+            FunctionCounter.builder("fx.import.reservations.rejected", rejected, LongAdder::sum)
+                    .description("Imports rejected because the id was already being imported on this instance")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * @return false when the id is already being imported on this instance
+     */
+    public boolean tryReserve(String dealUniqueId) {
+        if (!inFlight.add(dealUniqueId)) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(String dealUniqueId) {
+        inFlight.remove(dealUniqueId);
+    }
+}
@@ -1,24 +1,59 @@
 package com.progressoft.fxdealsystem.service;
 
+import com.progressoft.fxdealsystem.archive.ArchivedDeal;
+import com.progressoft.fxdealsystem.archive.DealArchive;
+import com.progressoft.fxdealsystem.chunking.BulkChunking;
+import com.progressoft.fxdealsystem.diagnostics.ImportDiagnostics;
+import com.progressoft.fxdealsystem.diagnostics.RequestTimings;
+import com.progressoft.fxdealsystem.dto.DealBatch;
 import com.progressoft.fxdealsystem.dto.DealRequest;
 import com.progressoft.fxdealsystem.dto.DealResponse;
 import com.progressoft.fxdealsystem.exception.DuplicateDealException;
 import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.lanes.ImportLanes;
+import com.progressoft.fxdealsystem.logging.SampledLog;
 import com.progressoft.fxdealsystem.model.Deal;
+import com.progressoft.fxdealsystem.replica.ReadRouting;
+import com.progressoft.fxdealsystem.replica.RecentWrites;
 import com.progressoft.fxdealsystem.repository.DealRepository;
+import com.progressoft.fxdealsystem.repository.DealWriter;
+import com.progressoft.fxdealsystem.repository.JpaDealWriter;
+import com.progressoft.fxdealsystem.rules.RuleContext;
+import com.progressoft.fxdealsystem.sharding.DealShards;
+import com.progressoft.fxdealsystem.sharding.ShardContext;
+import com.progressoft.fxdealsystem.store.RecentDealStore;
+import com.progressoft.fxdealsystem.tracing.ImportTracing;
+import io.micrometer.observation.Observation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.Currency;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,8 +61,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DealService {
 
+    // per-deal lines, kept readable under load; bulks log one summary line instead
+    private static final SampledLog DEAL_LOG = new SampledLog(log, 10);
+    // own budget: DEBUG import lines must not crowd out the warnings
+    private static final SampledLog INTEGRITY_LOG = new SampledLog(log, 10);
+
+    private static final Comparator<Deal> LISTING_ORDER =
+            Comparator.comparing(Deal::getCreatedAt).thenComparing(Deal::getId);
+
     private final DealRepository dealRepository;
 
+    /**
+     * Rule pipeline bean (fx.rules.*); unit tests built with the constructor get the built-in rules.
+     */
+    @Autowired(required = false)
+    private DealValidator dealValidator = new DealValidator();
+
     /**
      * PlatformTransactionManager is optional to allow unit tests to construct the service
      * without a full Spring context. When present we use TransactionTemplate with
@@ -36,70 +85,140 @@ public class DealService {
     @Autowired(required = false)
     private PlatformTransactionManager txManager;
 
+    /**
+     * Optional as well: claims the dealUniqueId for the duration of the import so that concurrent
+     * imports of the same id on this instance don't both reach the unique constraint.
+     */
+    @Autowired(required = false)
+    private DealIdReservations reservations;
+
+    /**
+     * Present only when fx.sharding.enabled=true: every repository call is then sent to the shard
+     * owning the dealUniqueId, and listings are gathered from all shards.
+     */
+    @Autowired(required = false)
+    private DealShards shards;
+
+    /**
+     * Present only when fx.replicas.enabled=true: deals imported within the read-your-writes
+     * window are read from the primary instead of a replica.
+     */
+    @Autowired(required = false)
+    private RecentWrites recentWrites;
+
+    /**
+     * Insert path selected by fx.writer (JPA or plain JDBC). Absent in unit tests, where deals are
+     * saved through the repository one by one.
+     */
+    @Autowired(required = false)
+    private DealWriter dealWriter;
+
+    /**
+     * Present only when fx.recent-store.enabled=true: recent deals held off-heap, filled on import
+     * and consulted first by getDealByUniqueId.
+     */
+    @Autowired(required = false)
+    private RecentDealStore recentDeals;
+
+    /**
+     * Execution lanes; bulks pause before each chunk while single-deal imports are queued.
+     */
+    @Autowired(required = false)
+    private ImportLanes lanes;
+
+    /**
+     * Spans of sampled bulk chunks and their stages.
+     */
+    @Autowired(required = false)
+    private ImportTracing tracing = ImportTracing.NOOP;
+
+    /**
+     * Present only when fx.diagnostics.enabled=true: times imports and their stages, captures a
+     * JFR recording after a slow one.
+     */
+    @Autowired(required = false)
+    private ImportDiagnostics diagnostics;
+
+    /**
+     * Present only when fx.archive.enabled=true: deals moved out of the table, consulted when the
+     * table misses and when checking for duplicates.
+     */
+    @Autowired(required = false)
+    private DealArchive archive;
+
+    /**
+     * Chunk size and parallelism of bulks, tuned from chunk latencies. Absent in unit tests, where
+     * fx.bulk.chunk-size is used as is and chunks are written one after the other.
+     */
+    @Autowired(required = false)
+    private BulkChunking chunking;
+
+    @Value("${fx.bulk.chunk-size:500}")
+    private int bulkChunkSize = 500;
+
+    @Value("${fx.lookup.chunk-size:1000}")
+    private int lookupChunkSize = 1000;
+
     /**
      * Import a single deal.
      * Validations are performed BEFORE any repository call to satisfy unit test expectations.
      */
     public DealResponse importDeal(DealRequest request) {
-        log.info("Importing deal with ID: {}", request.getDealUniqueId());
+        RequestTimings timings = diagnostics == null ? null : diagnostics.start(ImportDiagnostics.SINGLE, 1);
+        try {
+            return importOne(request);
+        } finally {
+            if (timings != null) {
+                diagnostics.finish(timings);
+            }
+        }
+    }
 
-        // 1) Validations (must be done before repository interactions)
-        validateMandatoryFields(request);
-        validateCurrencyIsoCodes(request);
+    private DealResponse importOne(DealRequest request) {
+        DEAL_LOG.debug("Importing deal with ID: {}", request.getDealUniqueId());
 
-        if (request.getFromCurrencyIsoCode().equalsIgnoreCase(request.getToCurrencyIsoCode())) {
-            throw new InvalidDealException("From and To currencies must be different");
-        }
+        // 1) Validations (must be done before repository interactions)
+        dealValidator.validate(request);
 
-        if (request.getDealAmount() == null || request.getDealAmount().signum() <= 0) {
-            throw new InvalidDealException("Deal amount must be positive");
+        // 2) Claim the id, then check duplicates (after validation)
+        if (reservations != null && !reservations.tryReserve(request.getDealUniqueId())) {
+            throw new DuplicateDealException(duplicateMessage(request.getDealUniqueId()));
         }
-
-        if (request.getDealTimestamp() != null && request.getDealTimestamp().isAfter(LocalDateTime.now())) {
-            throw new InvalidDealException("Deal timestamp cannot be in the future");
+        try {
+            return shards == null
+                    ? saveDeal(request)
+                    : shards.onShardOf(request.getDealUniqueId(), () -> saveDeal(request));
+        } finally {
+            if (reservations != null) {
+                reservations.release(request.getDealUniqueId());
+            }
         }
+    }
 
-        // 2) Check duplicates (after validation)
-        if (dealRepository.existsByDealUniqueId(request.getDealUniqueId())) {
-            throw new DuplicateDealException("Deal with ID " + request.getDealUniqueId() + " already exists");
+    private DealResponse saveDeal(DealRequest request) {
+        // repository reads are read-only transactions: a lagging replica would miss a deal just written
+        boolean exists = tracing.stage(Observation.NOOP, "fx.import.dedup",
+                () -> ReadRouting.onPrimary(() -> dealRepository.existsByDealUniqueId(request.getDealUniqueId()))
+                        || isArchived(request.getDealUniqueId()));
+        if (exists) {
+            throw new DuplicateDealException(duplicateMessage(request.getDealUniqueId()));
         }
 
         // 3) Save (use REQUIRES_NEW if txManager available)
         try {
-            Deal savedDeal;
-            if (txManager != null) {
-                TransactionTemplate tt = new TransactionTemplate(txManager);
-                tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-                savedDeal = tt.execute(status -> {
-                    Deal toSave = convertToEntity(request);
-                    return dealRepository.save(toSave);
-                });
-            } else {
-                Deal toSave = convertToEntity(request);
-                savedDeal = dealRepository.save(toSave);
-            }
+            Deal savedDeal = tracing.stage(Observation.NOOP, "fx.import.insert",
+                    () -> inNewTransaction(() -> writer().insert(convertToEntity(request))));
 
             if (savedDeal == null) {
                 log.error("Failed to save deal - repository returned null for {}", request.getDealUniqueId());
                 throw new InvalidDealException("Failed to persist deal to database");
             }
-
-            DealResponse response = new DealResponse();
-            response.setId(savedDeal.getId());
-            response.setDealUniqueId(savedDeal.getDealUniqueId());
-            response.setStatus("SUCCESS");
-            response.setMessage("Deal imported successfully");
-            response.setFromCurrencyIsoCode(savedDeal.getFromCurrencyIsoCode());
-            response.setToCurrencyIsoCode(savedDeal.getToCurrencyIsoCode());
-            response.setDealTimestamp(savedDeal.getDealTimestamp());
-            response.setDealAmount(savedDeal.getDealAmount());
-            response.setCreatedAt(savedDeal.getCreatedAt());
-            return response;
+            return toImportedResponse(savedDeal);
 
         } catch (DataIntegrityViolationException ex) {
             // Normalize DB constraint violations into the expected DuplicateDealException message
-            log.warn("DataIntegrityViolation while saving deal {}: {}", request.getDealUniqueId(), ex.getMessage());
-            throw new DuplicateDealException("Deal with ID " + request.getDealUniqueId() + " already exists");
+            INTEGRITY_LOG.warn("DataIntegrityViolation while saving deal {}: {}", request.getDealUniqueId(), ex.getMessage());
+            throw new DuplicateDealException(duplicateMessage(request.getDealUniqueId()));
         } catch (DuplicateDealException ex) {
             // propagate expected duplicate exception
             throw ex;
@@ -111,104 +230,437 @@ public class DealService {
 
     /**
      * Bulk import — each deal is treated independently; one failing import should not roll back others.
+     * With a DealWriter available, deals are written per chunk (one existence query and one batched
+     * insert per chunk); a chunk that hits the unique constraint is replayed deal by deal. Chunk
+     * size and the number of chunks written at once come from BulkChunking when present. Ids
+     * repeated within the bulk are settled up front, see firstOccurrences.
      */
     public List<DealResponse> importDeals(List<DealRequest> requests) {
-        return requests.stream()
-                .map(r -> {
-                    try {
-                        return importDeal(r);
-                    } catch (Exception ex) {
-                        DealResponse failed = new DealResponse();
-                        failed.setId(null);
-                        failed.setDealUniqueId(r.getDealUniqueId());
-                        failed.setStatus("FAILED");
-                        failed.setMessage(ex.getMessage());
-                        return failed;
-                    }
-                })
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        RequestTimings timings = diagnostics == null ? null : diagnostics.start(ImportDiagnostics.BULK, requests.size());
+        try {
+            DealResponse[] responses = new DealResponse[requests.size()];
+            List<DealRequest> firsts = firstOccurrences(requests, responses);
+            List<DealResponse> imported = importAll(firsts);
+            if (firsts.size() == requests.size()) {
+                logSummary(imported, 0, start);
+                return imported;
+            }
+            Iterator<DealResponse> next = imported.iterator();
+            for (int i = 0; i < responses.length; i++) {
+                if (responses[i] == null) {
+                    responses[i] = next.next();
+                }
+            }
+            List<DealResponse> all = Arrays.asList(responses);
+            logSummary(all, requests.size() - firsts.size(), start);
+            return all;
+        } finally {
+            if (timings != null) {
+                diagnostics.finish(timings);
+            }
+        }
     }
 
     /**
-     * Get all deals
+     * Repeated dealUniqueIds within the bulk: only the first valid occurrence is imported. The later
+     * ones fail as duplicates right away, before any database work, with the response an import of
+     * an existing id gets. An invalid occurrence does not shadow a valid repeat: it is kept to fail
+     * validation, and the next occurrence takes its place. Only the kept occurrence of a repeated id
+     * is checked here, once, and without counting: it is validated again with the rest of the bulk,
+     * so an invalid deal counts as one rejection. Deals without an id are left to validation.
      */
-    public List<DealResponse> getAllDeals() {
-        return dealRepository.findAll().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    private List<DealRequest> firstOccurrences(List<DealRequest> requests, DealResponse[] responses) {
+        Map<String, DealRequest> kept = new HashMap<>(Math.max(16, (int) (requests.size() / 0.75f) + 1));
+        Map<String, Boolean> keptValid = new HashMap<>();
+        List<DealRequest> firsts = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            DealRequest request = requests.get(i);
+            String id = request.getDealUniqueId();
+            if (id == null || id.isBlank()) {
+                firsts.add(request);
+                continue;
+            }
+            DealRequest first = kept.putIfAbsent(id, request);
+            if (first == null || !keptValid.computeIfAbsent(id, k -> dealValidator.isValid(first))) {
+                kept.put(id, request);
+                keptValid.remove(id);
+                firsts.add(request);
+            } else {
+                responses[i] = failedResponse(request, duplicateMessage(id));
+            }
+        }
+        return firsts.size() == requests.size() ? requests : firsts;
+    }
+
+    private List<DealResponse> importAll(List<DealRequest> requests) {
+        if (shards != null) {
+            // one worker per shard, each chunking its own deals; results kept in request order
+            RequestTimings timings = RequestTimings.current();
+            return shards.partitioned(requests, this::shardKey,
+                    part -> RequestTimings.callWith(timings, () -> importChunked(part)));
+        }
+        return importChunked(requests);
     }
 
     /**
-     * Get a deal by its unique ID.
-     * Tests expect InvalidDealException (mapped to 400) when not found.
+     * Writes the deals chunk by chunk, on the current shard when sharded.
      */
-    public DealResponse getDealByUniqueId(String dealUniqueId) {
-        if (dealUniqueId == null || dealUniqueId.trim().isEmpty()) {
-            throw new InvalidDealException("Deal unique ID cannot be null or empty");
+    private List<DealResponse> importChunked(List<DealRequest> requests) {
+        Integer shard = ShardContext.current();
+        RequestTimings timings = RequestTimings.current();
+        List<DealResponse> responses = new ArrayList<>(requests.size());
+        Deque<CompletableFuture<List<DealResponse>>> running = new ArrayDeque<>();
+        int index = 0;
+        for (int from = 0; from < requests.size(); index++) {
+            if (lanes != null) {
+                lanes.yieldToInteractive();
+            }
+            // size and parallelism read before each chunk, so that a bulk follows the tuning
+            int size = chunking == null ? bulkChunkSize : chunking.getChunkSize();
+            int parallelism = chunking == null ? 1 : chunking.getParallelism();
+            List<DealRequest> chunk = requests.subList(from, Math.min(from + size, requests.size()));
+            from += chunk.size();
+            int chunkIndex = index;
+            while (!running.isEmpty() && running.size() >= parallelism) {
+                responses.addAll(join(running.poll()));
+            }
+            if (parallelism <= 1) {
+                responses.addAll(runChunk(chunk, chunkIndex));
+            } else {
+                // the shard and the timings are per thread: set them again on the chunk worker
+                running.add(chunking.submit(() -> RequestTimings.callWith(timings,
+                        () -> shard == null ? runChunk(chunk, chunkIndex)
+                                : ShardContext.callOn(shard, () -> runChunk(chunk, chunkIndex)))));
+            }
         }
+        while (!running.isEmpty()) {
+            responses.addAll(join(running.poll()));
+        }
+        return responses;
+    }
 
-        Deal deal = dealRepository.findByDealUniqueId(dealUniqueId)
-                .orElseThrow(() -> new InvalidDealException("Deal not found with ID: " + dealUniqueId));
+    /**
+     * Within the batch connection budget; the wait for it is not part of the chunk latency.
+     */
+    private List<DealResponse> runChunk(List<DealRequest> chunk, int index) {
+        return chunking == null ? writeChunk(chunk, index) : chunking.withConnection(() -> writeChunk(chunk, index));
+    }
 
-        return convertToResponse(deal);
+    private List<DealResponse> writeChunk(List<DealRequest> chunk, int index) {
+        Observation span = tracing.chunk(index, chunk.size());
+        long start = System.nanoTime();
+        List<DealResponse> responses;
+        try (Observation.Scope scope = span.openScope()) {
+            if (dealWriter == null) {
+                responses = new ArrayList<>(chunk.size());
+                chunk.forEach(request -> responses.add(importDealOrFail(request)));
+            } else {
+                responses = importChunk(chunk, span);
+            }
+        } finally {
+            span.stop();
+        }
+        if (chunking != null) {
+            chunking.record(chunk.size(), System.nanoTime() - start);
+        }
+        return responses;
     }
 
-    /* ----------------- Validation helpers ----------------- */
+    private static <T> T join(CompletableFuture<T> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    /**
+     * One line per bulk instead of one per deal. Duplicates include those repeated within the bulk,
+     * also counted on their own.
+     */
+    private void logSummary(List<DealResponse> responses, int batchDuplicates, long startNanos) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        int imported = 0;
+        int duplicates = 0;
+        for (DealResponse response : responses) {
+            if ("SUCCESS".equals(response.getStatus())) {
+                imported++;
+            } else if (response.getMessage() != null && response.getMessage().endsWith(" already exists")) {
+                duplicates++;
+            }
+        }
+        log.info("Bulk import of {} deals in {} ms: {} imported, {} duplicates ({} within the batch), {} invalid",
+                responses.size(), (System.nanoTime() - startNanos) / 1_000_000, imported, duplicates, batchDuplicates,
+                responses.size() - imported - duplicates);
+    }
+
+    private List<DealResponse> importChunk(List<DealRequest> chunk, Observation span) {
+        DealResponse[] responses = new DealResponse[chunk.size()];
+        DealBatch batch = DealBatch.of(chunk);
+        List<Integer> valid = tracing.stage(span, "fx.import.validate", () -> validRows(chunk, batch, responses));
+        List<Integer> reserved = reservations == null ? valid
+                : tracing.stage(span, "fx.import.reserve", () -> reserve(chunk, valid, responses));
+
+        try {
+            Set<String> existing = reserved.isEmpty() ? Set.of() : tracing.stage(span, "fx.import.dedup", () -> new HashSet<>(
+                    ReadRouting.onPrimary(() -> dealRepository.findExistingDealUniqueIds(
+                            reserved.stream().map(i -> chunk.get(i).getDealUniqueId()).toList()))));
+            int[] toInsert = new int[reserved.size()];
+            int count = 0;
+            for (int i : reserved) {
+                if (existing.contains(chunk.get(i).getDealUniqueId()) || isArchived(chunk.get(i).getDealUniqueId())) {
+                    responses[i] = failedResponse(chunk.get(i), duplicateMessage(chunk.get(i).getDealUniqueId()));
+                } else {
+                    toInsert[count++] = i;
+                }
+            }
+            insertChunk(chunk, batch, Arrays.copyOf(toInsert, count), responses, span);
+        } finally {
+            if (reservations != null) {
+                reserved.forEach(i -> reservations.release(chunk.get(i).getDealUniqueId()));
+            }
+        }
+        return Arrays.asList(responses);
+    }
+
+    private List<Integer> validRows(List<DealRequest> chunk, DealBatch batch, DealResponse[] responses) {
+        RuleContext context = dealValidator.context();
+        List<Integer> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = dealValidator.check(batch, i, context);
+            if (error != null) {
+                responses[i] = failedResponse(chunk.get(i), error);
+            } else {
+                valid.add(i);
+            }
+        }
+        return valid;
+    }
+
+    private List<Integer> reserve(List<DealRequest> chunk, List<Integer> rows, DealResponse[] responses) {
+        List<Integer> reserved = new ArrayList<>(rows.size());
+        for (int i : rows) {
+            DealRequest r = chunk.get(i);
+            if (reservations.tryReserve(r.getDealUniqueId())) {
+                reserved.add(i);
+            } else {
+                responses[i] = failedResponse(r, duplicateMessage(r.getDealUniqueId()));
+            }
+        }
+        return reserved;
+    }
 
-    private void validateMandatoryFields(DealRequest request) {
-        if (request.getDealUniqueId() == null || request.getDealUniqueId().isBlank()) {
-            throw new InvalidDealException("Deal unique ID is required");
+    private void insertChunk(List<DealRequest> chunk, DealBatch batch, int[] toInsert, DealResponse[] responses,
+                             Observation span) {
+        if (toInsert.length == 0) {
+            return;
         }
-        if (request.getFromCurrencyIsoCode() == null || request.getFromCurrencyIsoCode().isBlank()) {
-            throw new InvalidDealException("From currency ISO code is required");
+        LocalDateTime createdAt = LocalDateTime.now();
+        try {
+            long[] ids = tracing.stage(span, "fx.import.insert", () -> inNewTransaction(span,
+                    () -> tracing.stage(span, "fx.jdbc.insert-batch", () -> writer().insertBatch(batch, toInsert, createdAt))));
+            for (int k = 0; k < toInsert.length; k++) {
+                int row = toInsert[k];
+                responses[row] = toImportedResponse(chunk.get(row), batch, row, ids[k], createdAt);
+            }
+        } catch (RuntimeException ex) {
+            // duplicate inside the chunk, a concurrent import won the race, or a bad row:
+            // settle deal by deal so that only the offending deals fail
+            log.debug("Batch insert of {} deals rejected, retrying one by one: {}", toInsert.length, ex.getMessage());
+            tracing.stage(span, "fx.import.fallback", () -> {
+                for (int i : toInsert) {
+                    responses[i] = saveDealOrFail(chunk.get(i));
+                }
+                return null;
+            });
         }
-        if (request.getToCurrencyIsoCode() == null || request.getToCurrencyIsoCode().isBlank()) {
-            throw new InvalidDealException("To currency ISO code is required");
+    }
+
+    private DealResponse importDealOrFail(DealRequest r) {
+        try {
+            // part of a bulk: timed with it, not as a single import of its own
+            return importOne(r);
+        } catch (Exception ex) {
+            return failedResponse(r, ex.getMessage());
         }
-        if (request.getDealAmount() == null) {
-            throw new InvalidDealException("Deal amount is required");
+    }
+
+    private DealResponse saveDealOrFail(DealRequest r) {
+        try {
+            return saveDeal(r);
+        } catch (Exception ex) {
+            return failedResponse(r, ex.getMessage());
         }
-        if (request.getDealTimestamp() == null) {
-            throw new InvalidDealException("Deal timestamp is required");
+    }
+
+    private <T> T inNewTransaction(Supplier<T> action) {
+        return inNewTransaction(Observation.NOOP, action);
+    }
+
+    private <T> T inNewTransaction(Observation span, Supplier<T> action) {
+        if (txManager == null) {
+            return action.get();
+        }
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tracing.transaction(span, tt, action);
+    }
+
+    private <T> T inReadOnlyTransaction(Supplier<T> action) {
+        if (txManager == null) {
+            return action.get();
         }
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setReadOnly(true);
+        return tt.execute(status -> action.get());
+    }
+
+    private DealWriter writer() {
+        // unit tests build the service without a writer bean: plain repository save
+        return dealWriter != null ? dealWriter : new JpaDealWriter(dealRepository);
+    }
+
+    private String duplicateMessage(String dealUniqueId) {
+        return "Deal with ID " + dealUniqueId + " already exists";
+    }
+
+    private String shardKey(DealRequest r) {
+        // invalid deals without id fail validation anyway, any shard will do
+        return r.getDealUniqueId() == null ? "" : r.getDealUniqueId();
     }
 
     /**
-     * Validate currency ISO codes against the available currencies set.
-     * Throws InvalidDealException with message containing "Invalid currency ISO code" which tests expect.
+     * Get all deals
      */
-    private void validateCurrencyIsoCodes(DealRequest request) {
-        String from = request.getFromCurrencyIsoCode() == null ? "" : request.getFromCurrencyIsoCode().toUpperCase();
-        String to = request.getToCurrencyIsoCode() == null ? "" : request.getToCurrencyIsoCode().toUpperCase();
+    @Transactional(readOnly = true)
+    public List<DealResponse> getAllDeals() {
+        if (shards != null) {
+            return shards.gather(() -> dealRepository.findAll(Sort.by("createdAt", "id")), LISTING_ORDER)
+                    .stream()
+                    .map(this::convertToResponse)
+                    .collect(Collectors.toList());
+        }
+        return dealRepository.findAll().stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
 
-        // Format strict : 3 lettres A-Z
-        if (!from.matches("^[A-Z]{3}$")) {
-            throw new InvalidDealException("Invalid currency ISO code: " + request.getFromCurrencyIsoCode());
+    /**
+     * Version of the listing, for its ETag: max id and count of the deals, summed over shards.
+     * An import raises the max id and archival lowers the count, so both change the version.
+     */
+    @Transactional(readOnly = true)
+    public String getListingVersion() {
+        List<DealRepository.ListingVersion> versions = shards == null
+                ? List.of(dealRepository.findListingVersion())
+                : shards.gather(() -> List.of(dealRepository.findListingVersion()),
+                Comparator.comparingLong(DealRepository.ListingVersion::getMaxId));
+        long maxId = versions.stream().mapToLong(DealRepository.ListingVersion::getMaxId).sum();
+        long count = versions.stream().mapToLong(DealRepository.ListingVersion::getCount).sum();
+        return maxId + "-" + count;
+    }
+
+    /**
+     * Get a deal by its unique ID, from the archive when it has left the table.
+     * Tests expect InvalidDealException (mapped to 400) when not found.
+     * Not @Transactional: a hit in the recent-deals store must not take a pooled connection, the
+     * read-only transaction is only opened when the store misses.
+     */
+    public DealResponse getDealByUniqueId(String dealUniqueId) {
+        if (dealUniqueId == null || dealUniqueId.trim().isEmpty()) {
+            throw new InvalidDealException("Deal unique ID cannot be null or empty");
         }
-        if (!to.matches("^[A-Z]{3}$")) {
-            throw new InvalidDealException("Invalid currency ISO code: " + request.getToCurrencyIsoCode());
+        if (recentDeals != null) {
+            DealResponse recent = recentDeals.get(dealUniqueId);
+            if (recent != null) {
+                return recent;
+            }
         }
 
-        // Reject well-known pseudo-codes explicitly (tests expect XXX to be invalid)
-        if ("XXX".equals(from) || "XXX".equals(to)) {
-            throw new InvalidDealException("Invalid currency ISO code: " + ( "XXX".equals(from) ? request.getFromCurrencyIsoCode() : request.getToCurrencyIsoCode() ));
+        Optional<DealResponse> stored = inReadOnlyTransaction(() -> {
+            Optional<Deal> deal = recentWrites != null && recentWrites.isRecent(dealUniqueId)
+                    ? ReadRouting.onPrimary(() -> findByUniqueId(dealUniqueId))
+                    : findByUniqueId(dealUniqueId);
+            return deal.map(this::convertToResponse);
+        });
+        if (stored.isPresent()) {
+            return stored.get();
         }
+        return (archive == null ? Optional.<ArchivedDeal>empty() : archive.find(dealUniqueId))
+                .map(this::convertToResponse)
+                .orElseThrow(() -> new InvalidDealException("Deal not found with ID: " + dealUniqueId));
+    }
 
-        // Vérifier dans la liste officielle
-        Set<String> available = Currency.getAvailableCurrencies()
-                .stream()
-                .map(Currency::getCurrencyCode)
-                .collect(Collectors.toSet());
+    /**
+     * Resolves many ids at once, chunk by chunk: the recent-deals store first, then one IN query
+     * per chunk of fx.lookup.chunk-size ids (one per shard and chunk when sharded), then the archive
+     * for the ids still missing. Results are
+     * handed over after each chunk, in input order, so that the caller can stream them; repeated
+     * ids are looked up once.
+     */
+    public void lookupDeals(List<String> dealUniqueIds, Consumer<DealResponse> found, Consumer<String> missing) {
+        List<String> chunk = new ArrayList<>(Math.min(lookupChunkSize, dealUniqueIds.size()));
+        for (String id : new LinkedHashSet<>(dealUniqueIds)) {
+            if (id == null || id.isBlank()) {
+                missing.accept(id);
+                continue;
+            }
+            chunk.add(id);
+            if (chunk.size() == lookupChunkSize) {
+                lookupChunk(chunk, found, missing);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            lookupChunk(chunk, found, missing);
+        }
+    }
 
-        if (!available.contains(from)) {
-            throw new InvalidDealException("Invalid currency ISO code: " + request.getFromCurrencyIsoCode());
+    private void lookupChunk(List<String> ids, Consumer<DealResponse> found, Consumer<String> missing) {
+        DealResponse[] cached = new DealResponse[ids.size()];
+        List<String> toQuery = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            cached[i] = recentDeals == null ? null : recentDeals.get(ids.get(i));
+            if (cached[i] == null) {
+                toQuery.add(ids.get(i));
+            }
+        }
+        Map<String, Deal> stored = new HashMap<>();
+        if (!toQuery.isEmpty()) {
+            // on the primary: a lookup checks what was imported, possibly by another instance, moments ago
+            ReadRouting.onPrimary(() -> shards == null
+                    ? dealRepository.findByDealUniqueIdIn(toQuery)
+                    : shards.byShard(toQuery, dealRepository::findByDealUniqueIdIn))
+                    .forEach(d -> stored.put(d.getDealUniqueId(), d));
         }
-        if (!available.contains(to)) {
-            throw new InvalidDealException("Invalid currency ISO code: " + request.getToCurrencyIsoCode());
+        for (int i = 0; i < ids.size(); i++) {
+            DealResponse response = cached[i];
+            if (response == null && stored.containsKey(ids.get(i))) {
+                response = convertToResponse(stored.get(ids.get(i)));
+            }
+            if (response == null && archive != null) {
+                response = archive.find(ids.get(i)).map(this::convertToResponse).orElse(null);
+            }
+            if (response != null) {
+                found.accept(response);
+            } else {
+                missing.accept(ids.get(i));
+            }
         }
     }
 
+    private boolean isArchived(String dealUniqueId) {
+        return archive != null && archive.contains(dealUniqueId);
+    }
 
+    private Optional<Deal> findByUniqueId(String dealUniqueId) {
+        return shards == null
+                ? dealRepository.findByDealUniqueId(dealUniqueId)
+                : shards.onShardOf(dealUniqueId, () -> dealRepository.findByDealUniqueId(dealUniqueId));
+    }
 
     /* ----------------- Converters ----------------- */
 
@@ -222,6 +674,55 @@ public class DealService {
         return d;
     }
 
+    private DealResponse toImportedResponse(Deal savedDeal) {
+        DealResponse response = convertToResponse(savedDeal);
+        response.setMessage("Deal imported successfully");
+        return recordImport(response);
+    }
+
+    /**
+     * Response for a row inserted from a batch; amount and timestamp are the request's own values,
+     * as on the entity path.
+     */
+    private DealResponse toImportedResponse(DealRequest r, DealBatch batch, int row, long id, LocalDateTime createdAt) {
+        DealResponse response = new DealResponse(id, r.getDealUniqueId(), "SUCCESS", "Deal imported successfully");
+        response.setFromCurrencyIsoCode(batch.fromCode(row));
+        response.setToCurrencyIsoCode(batch.toCode(row));
+        response.setDealTimestamp(r.getDealTimestamp());
+        response.setDealAmount(r.getDealAmount());
+        response.setCreatedAt(createdAt);
+        return recordImport(response);
+    }
+
+    private DealResponse recordImport(DealResponse imported) {
+        if (recentWrites != null) {
+            recentWrites.record(imported.getDealUniqueId());
+        }
+        if (recentDeals != null) {
+            recentDeals.put(imported);
+        }
+        return imported;
+    }
+
+    private DealResponse failedResponse(DealRequest r, String message) {
+        DealResponse failed = new DealResponse();
+        failed.setId(null);
+        failed.setDealUniqueId(r.getDealUniqueId());
+        failed.setStatus("FAILED");
+        failed.setMessage(message);
+        return failed;
+    }
+
+    private DealResponse convertToResponse(ArchivedDeal d) {
+        DealResponse response = new DealResponse(d.id(), d.dealUniqueId(), "SUCCESS", "Deal fetched from archive");
+        response.setFromCurrencyIsoCode(d.fromCurrencyIsoCode());
+        response.setToCurrencyIsoCode(d.toCurrencyIsoCode());
+        response.setDealTimestamp(d.dealTimestamp());
+        response.setDealAmount(d.dealAmount());
+        response.setCreatedAt(d.createdAt());
+        return response;
+    }
+
     private DealResponse convertToResponse(Deal d) {
         DealResponse response = new DealResponse();
         response.setId(d.getId());
@@ -0,0 +1,132 @@
+package com.progressoft.fxdealsystem.service;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.rules.DealRules;
+import com.progressoft.fxdealsystem.rules.RuleContext;
+import com.progressoft.fxdealsystem.rules.RuleProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Business validation of an imported deal, shared by the servlet and reactive import paths.
+ * Runs the {@link DealRules} pipeline: the built-in checks, then the rules configured under fx.rules.*,
+ * which can be replaced at runtime with {@link #reconfigure(RuleProperties)}.
+ */
+@Component
+@EnableConfigurationProperties(RuleProperties.class)
+public class DealValidator {
+
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private volatile DealRules rules;
+
+    /**
+     * Built-in rules only, for callers outside the Spring context.
+     */
+    public DealValidator() {
+        this.meterRegistry = null;
+        this.rules = DealRules.compile(new RuleProperties(), rejections);
+    }
+
+    @Autowired
+    public DealValidator(RuleProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        this.rules = DealRules.compile(properties, rejections);
+        registerMeters();
+    }
+
+    private DealValidator(DealRules rules) {
+        this.meterRegistry = null;
+        this.rules = DealRules.compile(rules.getProperties(), rejections);
+    }
+
+    /**
+     * A validator with the current rules and rejection counters of its own, not published as
+     * meters: checks that are not imports (warm-up) stay out of fx.rules.rejections.
+     */
+    public DealValidator detached() {
+        return new DealValidator(rules);
+    }
+
+    public void validate(DealRequest request) {
+        DealRules current = rules;
+        String error = current.check(DealBatch.of(List.of(request)), 0, current.context(LocalDateTime.now()));
+        if (error != null) {
+            throw new InvalidDealException(error);
+        }
+    }
+
+    /**
+     * Same outcome as {@link #validate(DealRequest)} without counting a rejection, for a deal that
+     * is validated again later.
+     */
+    public boolean isValid(DealRequest request) {
+        DealRules current = rules;
+        return current.isValid(DealBatch.of(List.of(request)), 0, current.context(LocalDateTime.now()));
+    }
+
+    /**
+     * Context for {@link #check}; read once per batch so that the clock is not consulted per deal.
+     */
+    public RuleContext context() {
+        return rules.context(LocalDateTime.now());
+    }
+
+    /**
+     * Same rules and messages as {@link #validate(DealRequest)}, read off the batch columns.
+     * Returns the message of the first broken rule, or null; nothing is allocated for a valid deal.
+     */
+    public String check(DealBatch batch, int row, RuleContext context) {
+        return rules.check(batch, row, context);
+    }
+
+    /**
+     * Compiles and swaps in a new rule set. Imports already running finish with the previous one.
+     *
+     * @throws com.progressoft.fxdealsystem.exception.InvalidRuleConfigException if the configuration is unusable
+     */
+    public void reconfigure(RuleProperties properties) {
+        rules = DealRules.compile(properties, rejections);
+        registerMeters();
+    }
+
+    public RuleProperties getProperties() {
+        return rules.getProperties();
+    }
+
+    public List<String> getRuleNames() {
+        return rules.getRuleNames();
+    }
+
+    /**
+     * Rejections per rule name since startup, including rules no longer configured.
+     */
+    public Map<String, Long> getRejections() {
+        Map<String, Long> counts = new TreeMap<>();
+        rejections.forEach((rule, count) -> counts.put(rule, count.sum()));
+        return counts;
+    }
+
+    private void registerMeters() {
+        if (meterRegistry == null) {
+            return;
+        }
+        rejections.forEach((rule, count) -> FunctionCounter.builder("fx.rules.rejections", count, LongAdder::sum)
+                .tag("rule", rule)
+                .description("Deals rejected by the validation rule")
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,147 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Sharding layer used by DealService on top of DealRepository: single-key operations run on the
+ * shard of their dealUniqueId, bulk operations are split per shard and run in parallel, listings
+ * are gathered from every shard and merged.
+ */
+public class DealShards implements DisposableBean {
+
+    private final int shardCount;
+    private final ExecutorService executor;
+
+    public DealShards(int shardCount) {
+        this.shardCount = shardCount;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "deal-shard-worker-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public <T> T onShardOf(String dealUniqueId, Supplier<T> action) {
+        return ShardContext.callOn(ShardKeys.shardOf(dealUniqueId, shardCount), action);
+    }
+
+    /**
+     * Splits the elements by shard and applies the action once per shard to that shard's elements
+     * (in input order), one worker per shard. The action returns one result per element; the
+     * results are returned in input order.
+     */
+    public <E, R> List<R> partitioned(List<E> elements, Function<E, String> key, Function<List<E>, List<R>> action) {
+        List<List<Integer>> positions = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            positions.get(ShardKeys.shardOf(key.apply(elements.get(i)), shardCount)).add(i);
+        }
+
+        List<R> results = new ArrayList<>(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            results.add(null);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            int shard = s;
+            List<Integer> mine = positions.get(s);
+            if (mine.isEmpty()) {
+                continue;
+            }
+            futures.add(CompletableFuture.runAsync(() -> ShardContext.callOn(shard, () -> {
+                List<R> done = action.apply(mine.stream().map(elements::get).toList());
+                for (int k = 0; k < mine.size(); k++) {
+                    results.set(mine.get(k), done.get(k));
+                }
+                return null;
+            }), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return results;
+    }
+
+    /**
+     * Groups the ids by shard and runs the query once per shard holding some of them, in parallel.
+     */
+    public <T> List<T> byShard(Collection<String> dealUniqueIds, Function<List<String>, List<T>> query) {
+        List<List<String>> groups = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            groups.add(new ArrayList<>());
+        }
+        for (String id : dealUniqueIds) {
+            groups.get(ShardKeys.shardOf(id, shardCount)).add(id);
+        }
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            int shard = s;
+            List<String> ids = groups.get(s);
+            if (!ids.isEmpty()) {
+                futures.add(CompletableFuture.supplyAsync(() -> ShardContext.callOn(shard, () -> query.apply(ids)), executor));
+            }
+        }
+        List<T> results = new ArrayList<>();
+        futures.forEach(f -> results.addAll(f.join()));
+        return results;
+    }
+
+    /**
+     * Runs the query on every shard in parallel; each shard must return its rows sorted by the
+     * given order, the shard results are then merged into one sorted list.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query, Comparator<T> order) {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            int shard = s;
+            futures.add(CompletableFuture.supplyAsync(() -> ShardContext.callOn(shard, query), executor));
+        }
+        List<List<T>> perShard = futures.stream().map(CompletableFuture::join).toList();
+        return mergeSorted(perShard, order);
+    }
+
+    static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<T> order) {
+        // heap entries: {list index, position in list}
+        PriorityQueue<int[]> heap = new PriorityQueue<>(
+                (a, b) -> order.compare(sortedLists.get(a[0]).get(a[1]), sortedLists.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int i = 0; i < sortedLists.size(); i++) {
+            total += sortedLists.get(i).size();
+            if (!sortedLists.get(i).isEmpty()) {
+                heap.add(new int[]{i, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>(total);
+        while (!heap.isEmpty()) {
+            int[] head = heap.poll();
+            List<T> list = sortedLists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (head[1] + 1 < list.size()) {
+                heap.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
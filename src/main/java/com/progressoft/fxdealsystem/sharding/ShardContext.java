@@ -0,0 +1,33 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard selected for the current thread. Read by {@link ShardRoutingDataSource} when a
+ * connection is actually needed, so it must be set before the first statement of a transaction.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
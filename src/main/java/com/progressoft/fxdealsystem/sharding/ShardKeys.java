@@ -0,0 +1,24 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Stable hash of a dealUniqueId, the same on every instance and every JVM. String.hashCode() would
+ * be as stable (its formula is specified), but CRC32 of the UTF-8 bytes can also be computed
+ * outside Java, e.g. MySQL's CRC32(deal_unique_id) when checking or moving rows between shards.
+ */
+public final class ShardKeys {
+
+    private ShardKeys() {
+    }
+
+    public static int shardOf(String dealUniqueId, int shardCount) {
+        if (shardCount <= 1) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(dealUniqueId.getBytes(StandardCharsets.UTF_8));
+        return (int) Math.floorMod(crc.getValue(), (long) shardCount);
+    }
+}
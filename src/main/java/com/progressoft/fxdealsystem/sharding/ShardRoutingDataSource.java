@@ -0,0 +1,16 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes to the shard set in {@link ShardContext}; shard 0 when none is set
+ * (schema management, unsharded queries).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard == null ? 0 : shard;
+    }
+}
@@ -0,0 +1,80 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with one pool per shard behind a routing DataSource.
+ * The lazy proxy defers the physical connection to the first statement, so the shard chosen
+ * inside a transaction (not the one active when it began) is the one used. Not combinable with
+ * fx.replicas.enabled, see ReplicaConfig.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "fx.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardingProperties properties, Environment environment) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("fx.sharding.enabled=true but no fx.sharding.shards configured");
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/deals-schema.sql"));
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .driverClassName(shard.getDriverClassName())
+                    .build();
+            // same pool tuning (spring.datasource.hikari.*) as an unsharded deployment
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("shard-" + i);
+            DatabasePopulatorUtils.execute(schema, pool);
+            pools.add(pool);
+            targets.put(i, pool);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public DealShards dealShards(ShardingProperties properties) {
+        return new DealShards(properties.getShards().size());
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,28 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "fx.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * One entry per shard. The order matters: a deal lives on shard CRC32(dealUniqueId) mod size,
+     * so shards can only be appended together with a data migration.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
@@ -0,0 +1,294 @@
+package com.progressoft.fxdealsystem.store;
+
+import com.progressoft.fxdealsystem.dto.CurrencyCodes;
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Recently imported deals kept outside the Java heap, so that millions of them cost the GC nothing.
+ * <p>
+ * The store is split in segments chosen by hash. Each segment owns two direct buffers:
+ * <ul>
+ *     <li>records: a ring of fixed-width records, overwritten oldest first once full;</li>
+ *     <li>index: an open-addressing table (linear probing) of record numbers, kept without
+ *     tombstones by backward-shift deletion when a record is overwritten.</li>
+ * </ul>
+ * Lookups compare the requested id with the stored chars in place and take no lock unless a write
+ * raced them (optimistic read); a DealResponse is only built on a hit.
+ * Deals are immutable once imported, so a hit is as good as a database read.
+ */
+public class RecentDealStore {
+
+    // record layout
+    private static final int HASH = 0;
+    private static final int ID_LENGTH = 4;
+    private static final int FROM = 6;
+    private static final int TO = 8;
+    private static final int DB_ID = 16;
+    private static final int AMOUNT = 24;
+    private static final int TIMESTAMP = 32;
+    private static final int CREATED_AT = 40;
+    private static final int ID_CHARS = 48;
+
+    private final Segment[] segments;
+    private final int maxIdLength;
+    private final int recordSize;
+    private final long retentionMicros;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RecentDealStore(int capacity, int segmentCount, int maxIdLength, Duration retention) {
+        this.maxIdLength = maxIdLength;
+        this.recordSize = ID_CHARS + 2 * maxIdLength;
+        this.retentionMicros = retention.toNanos() / 1000;
+        this.segments = new Segment[segmentCount];
+        // deals do not spread perfectly evenly over segments: a little slack so that the
+        // configured capacity holds before the first overwrite
+        int perSegment = (int) Math.ceil(capacity / (double) segmentCount * 1.05) + 16;
+        if ((long) perSegment * recordSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("fx.recent-store: segment over 2 GB, raise the number of segments");
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    public void put(DealResponse deal) {
+        put(deal.getId(), deal.getDealUniqueId(), deal.getFromCurrencyIsoCode(), deal.getToCurrencyIsoCode(),
+                deal.getDealTimestamp(), deal.getDealAmount(), deal.getCreatedAt());
+    }
+
+    /**
+     * Stores a deal; silently skipped when it cannot be represented (id too long, unknown
+     * currency, amount beyond DECIMAL(19,4)). Lookups then simply miss and go to the database.
+     */
+    public void put(Long id, String dealUniqueId, String from, String to, LocalDateTime timestamp,
+                    BigDecimal amount, LocalDateTime createdAt) {
+        if (id == null || dealUniqueId == null || dealUniqueId.length() > maxIdLength
+                || timestamp == null || amount == null || createdAt == null) {
+            return;
+        }
+        short fromCode = CurrencyCodes.encode(from);
+        short toCode = CurrencyCodes.encode(to);
+        BigDecimal scaled = amount.setScale(DealBatch.AMOUNT_SCALE, RoundingMode.HALF_UP);
+        if (fromCode < 0 || toCode < 0 || scaled.unscaledValue().bitLength() > 63) {
+            return;
+        }
+        int hash = hash(dealUniqueId);
+        segmentOf(hash).put(hash, dealUniqueId, id, fromCode, toCode, scaled.unscaledValue().longValue(),
+                DealBatch.epochMicros(timestamp), DealBatch.epochMicros(createdAt));
+    }
+
+    /**
+     * @return the deal, or null when it is not held or older than the retention window
+     */
+    public DealResponse get(String dealUniqueId) {
+        DealResponse deal = dealUniqueId.length() > maxIdLength ? null : lookup(dealUniqueId);
+        (deal == null ? misses : hits).increment();
+        return deal;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.used;
+        }
+        return size;
+    }
+
+    private DealResponse lookup(String dealUniqueId) {
+        int hash = hash(dealUniqueId);
+        Segment segment = segmentOf(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        DealResponse deal = null;
+        if (stamp != 0) {
+            try {
+                deal = segment.read(hash, dealUniqueId);
+            } catch (RuntimeException raced) {
+                // half-written record decoded into nonsense; redo under the lock
+                stamp = 0;
+            }
+        }
+        if (stamp == 0 || !segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                deal = segment.read(hash, dealUniqueId);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        if (deal == null) {
+            return null;
+        }
+        long oldest = DealBatch.epochMicros(LocalDateTime.now()) - retentionMicros;
+        return DealBatch.epochMicros(deal.getCreatedAt()) < oldest ? null : deal;
+    }
+
+    private Segment segmentOf(int hash) {
+        return segments[(hash >>> 16) % segments.length];
+    }
+
+    private static int hash(String id) {
+        return id.hashCode() * 0x9E3779B9;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private final ByteBuffer records;
+        private final ByteBuffer index;
+        private final int capacity;
+        private final int mask;
+        private int next;
+        private volatile int used;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.records = ByteBuffer.allocateDirect(capacity * recordSize);
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            this.index = ByteBuffer.allocateDirect(tableSize * 4);
+            this.mask = tableSize - 1;
+        }
+
+        void put(int hash, String dealUniqueId, long id, short from, short to, long amount,
+                 long timestamp, long createdAt) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(hash, dealUniqueId);
+                if (slot < 0) {
+                    slot = next;
+                    next = (next + 1) % capacity;
+                    if (used == capacity) {
+                        unindex(slot);
+                    } else {
+                        used++;
+                    }
+                    index(hash, slot);
+                }
+                int base = slot * recordSize;
+                records.putInt(base + HASH, hash);
+                records.putShort(base + ID_LENGTH, (short) dealUniqueId.length());
+                records.putShort(base + FROM, from);
+                records.putShort(base + TO, to);
+                records.putLong(base + DB_ID, id);
+                records.putLong(base + AMOUNT, amount);
+                records.putLong(base + TIMESTAMP, timestamp);
+                records.putLong(base + CREATED_AT, createdAt);
+                for (int i = 0; i < dealUniqueId.length(); i++) {
+                    records.putChar(base + ID_CHARS + 2 * i, dealUniqueId.charAt(i));
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * May run concurrently with a write (optimistic read): offsets stay in bounds and the probe
+         * is bounded; the caller discards the result, or any exception, if the stamp is invalid.
+         */
+        DealResponse read(int hash, String dealUniqueId) {
+            int slot = find(hash, dealUniqueId);
+            if (slot < 0) {
+                return null;
+            }
+            int base = slot * recordSize;
+            short from = records.getShort(base + FROM);
+            short to = records.getShort(base + TO);
+            if (from < 0 || from >= CurrencyCodes.count() || to < 0 || to >= CurrencyCodes.count()) {
+                return null;
+            }
+            DealResponse deal = new DealResponse(records.getLong(base + DB_ID), dealUniqueId, "SUCCESS",
+                    "Deal fetched successfully");
+            deal.setFromCurrencyIsoCode(CurrencyCodes.decode(from));
+            deal.setToCurrencyIsoCode(CurrencyCodes.decode(to));
+            deal.setDealAmount(BigDecimal.valueOf(records.getLong(base + AMOUNT), DealBatch.AMOUNT_SCALE));
+            deal.setDealTimestamp(fromMicros(records.getLong(base + TIMESTAMP)));
+            deal.setCreatedAt(fromMicros(records.getLong(base + CREATED_AT)));
+            return deal;
+        }
+
+        private int find(int hash, String dealUniqueId) {
+            for (int pos = hash & mask, probes = 0; probes <= mask; pos = (pos + 1) & mask, probes++) {
+                int entry = index.getInt(pos * 4);
+                if (entry <= 0 || entry > capacity) {
+                    return -1;
+                }
+                int slot = entry - 1;
+                if (records.getInt(slot * recordSize + HASH) == hash && idEquals(slot, dealUniqueId)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private boolean idEquals(int slot, String dealUniqueId) {
+            int base = slot * recordSize;
+            if (records.getShort(base + ID_LENGTH) != dealUniqueId.length()) {
+                return false;
+            }
+            for (int i = 0; i < dealUniqueId.length(); i++) {
+                if (records.getChar(base + ID_CHARS + 2 * i) != dealUniqueId.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void index(int hash, int slot) {
+            int pos = hash & mask;
+            while (index.getInt(pos * 4) != 0) {
+                pos = (pos + 1) & mask;
+            }
+            index.putInt(pos * 4, slot + 1);
+        }
+
+        /**
+         * Removes the index entry of a record about to be overwritten, then shifts back the
+         * entries of the same probe run so that lookups never stop early on the hole.
+         */
+        private void unindex(int slot) {
+            int pos = records.getInt(slot * recordSize + HASH) & mask;
+            while (index.getInt(pos * 4) != slot + 1) {
+                pos = (pos + 1) & mask;
+            }
+            int hole = pos;
+            index.putInt(hole * 4, 0);
+            for (int j = (hole + 1) & mask; ; j = (j + 1) & mask) {
+                int entry = index.getInt(j * 4);
+                if (entry == 0) {
+                    return;
+                }
+                int home = records.getInt((entry - 1) * recordSize + HASH) & mask;
+                // the entry can fill the hole unless its home lies cyclically in (hole, j]
+                boolean homeBetween = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+                if (!homeBetween) {
+                    index.putInt(hole * 4, entry);
+                    index.putInt(j * 4, 0);
+                    hole = j;
+                }
+            }
+        }
+    }
+}
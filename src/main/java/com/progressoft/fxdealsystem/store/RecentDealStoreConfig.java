@@ -0,0 +1,64 @@
+package com.progressoft.fxdealsystem.store;
+
+import com.progressoft.fxdealsystem.sharding.DealShards;
+import com.progressoft.fxdealsystem.sharding.ShardContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Off-heap store of recent deals (fx.recent-store.enabled=true). Filled by DealService on every
+ * import and, at startup, from the deals created within the retention window.
+ */
+@Configuration
+@EnableConfigurationProperties(RecentDealStoreProperties.class)
+@ConditionalOnProperty(prefix = "fx.recent-store", name = "enabled", havingValue = "true")
+@Slf4j
+public class RecentDealStoreConfig {
+
+    static final String WARM_UP_SQL = "SELECT id, deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+            + "deal_timestamp, deal_amount, created_at FROM deals WHERE created_at >= ? ORDER BY created_at, id";
+
+    @Bean
+    public RecentDealStore recentDealStore(RecentDealStoreProperties properties) {
+        return new RecentDealStore(properties.getCapacity(), properties.getSegments(),
+                properties.getMaxIdLength(), properties.getRetention());
+    }
+
+    @Bean
+    public ApplicationRunner recentDealStoreWarmUp(RecentDealStore store, RecentDealStoreProperties properties,
+                                                   JdbcTemplate jdbcTemplate, ObjectProvider<DealShards> shards) {
+        return args -> {
+            if (!properties.isWarmUp()) {
+                return;
+            }
+            DealShards dealShards = shards.getIfAvailable();
+            int shardCount = dealShards == null ? 1 : dealShards.getShardCount();
+            for (int shard = 0; shard < shardCount; shard++) {
+                ShardContext.callOn(shard, () -> {
+                    warmUp(store, jdbcTemplate, LocalDateTime.now().minus(properties.getRetention()));
+                    return null;
+                });
+            }
+            log.info("Recent deal store warmed up with {} deals", store.size());
+        };
+    }
+
+    static void warmUp(RecentDealStore store, JdbcTemplate jdbcTemplate, LocalDateTime since) {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(1000);
+        streaming.query(WARM_UP_SQL, rs -> {
+            store.put(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getObject(5, LocalDateTime.class), rs.getObject(6, BigDecimal.class),
+                    rs.getObject(7, LocalDateTime.class));
+        }, since);
+    }
+}
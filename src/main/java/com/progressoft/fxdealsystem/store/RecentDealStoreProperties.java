@@ -0,0 +1,39 @@
+package com.progressoft.fxdealsystem.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "fx.recent-store")
+public class RecentDealStoreProperties {
+
+    private boolean enabled;
+
+    /**
+     * Deals created longer ago than this are no longer served from the store.
+     */
+    private Duration retention = Duration.ofHours(4);
+
+    /**
+     * Maximum number of deals held; the oldest are overwritten first.
+     * Off-heap footprint is about capacity * (48 + 2 * maxIdLength) bytes, plus the index.
+     */
+    private int capacity = 200_000;
+
+    /**
+     * Independent partitions, each with its own lock.
+     */
+    private int segments = 16;
+
+    /**
+     * Longer dealUniqueIds are not stored and always read from the database.
+     */
+    private int maxIdLength = 40;
+
+    /**
+     * Load the deals of the retention window from the database at startup.
+     */
+    private boolean warmUp = true;
+}
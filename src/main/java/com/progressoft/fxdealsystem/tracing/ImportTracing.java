@@ -0,0 +1,133 @@
+package com.progressoft.fxdealsystem.tracing;
+
+import com.progressoft.fxdealsystem.diagnostics.RequestTimings;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Observations (spans, and timers of the same name) of the bulk import stages:
+ * <pre>
+ * fx.import.chunk
+ *   fx.import.validate | fx.import.reserve | fx.import.dedup
+ *   fx.import.insert
+ *     fx.tx.begin, fx.jdbc.insert-batch, fx.tx.commit
+ *   fx.import.fallback
+ * </pre>
+ * Chunks are sampled ({@link TracingProperties#getChunkSampleEvery()}); stages of an unsampled
+ * chunk run without any observation.
+ */
+@Component
+@EnableConfigurationProperties(TracingProperties.class)
+public class ImportTracing {
+
+    /**
+     * No spans, for services built outside the Spring context.
+     */
+    public static final ImportTracing NOOP = new ImportTracing(ObservationRegistry.NOOP, new TracingProperties());
+
+    private final ObservationRegistry registry;
+    private final int sampleEvery;
+
+    public ImportTracing(ObservationRegistry registry, TracingProperties properties) {
+        this.registry = properties.isEnabled() ? registry : ObservationRegistry.NOOP;
+        this.sampleEvery = Math.max(1, properties.getChunkSampleEvery());
+    }
+
+    /**
+     * Started span of the chunk, or {@link Observation#NOOP} when the chunk is not sampled.
+     * The caller stops it.
+     */
+    public Observation chunk(int index, int size) {
+        if (registry.isNoop() || index % sampleEvery != 0) {
+            return Observation.NOOP;
+        }
+        return Observation.createNotStarted("fx.import.chunk", registry)
+                .highCardinalityKeyValue("chunk.index", String.valueOf(index))
+                .highCardinalityKeyValue("chunk.size", String.valueOf(size))
+                .start();
+    }
+
+    /**
+     * Runs one stage, as a child span of a sampled chunk. Its duration is also added to the
+     * {@link RequestTimings} of the import being timed, sampled or not.
+     */
+    public <T> T stage(Observation chunk, String name, Supplier<T> action) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return observe(chunk, name, action);
+        }
+        long start = System.nanoTime();
+        try {
+            return observe(chunk, name, action);
+        } finally {
+            timings.record(name, System.nanoTime() - start);
+        }
+    }
+
+    private <T> T observe(Observation chunk, String name, Supplier<T> action) {
+        if (chunk.isNoop()) {
+            return action.get();
+        }
+        return Observation.createNotStarted(name, registry).parentObservation(chunk).observe(action);
+    }
+
+    /**
+     * Runs the action in the template's transaction, with fx.tx.begin (until the connection is
+     * ready) and fx.tx.commit spans.
+     */
+    public <T> T transaction(Observation chunk, TransactionTemplate template, Supplier<T> action) {
+        if (chunk.isNoop()) {
+            return template.execute(status -> action.get());
+        }
+        Observation parent = currentOr(chunk);
+        Observation begin = Observation.createNotStarted("fx.tx.begin", registry).parentObservation(parent).start();
+        boolean[] begun = {false};
+        try {
+            return template.execute(status -> {
+                begun[0] = true;
+                begin.stop();
+                TransactionSynchronizationManager.registerSynchronization(new CommitSpan(parent));
+                return action.get();
+            });
+        } finally {
+            if (!begun[0]) {
+                begin.stop();
+            }
+        }
+    }
+
+    private Observation currentOr(Observation chunk) {
+        Observation current = registry.getCurrentObservation();
+        return current != null ? current : chunk;
+    }
+
+    private final class CommitSpan implements TransactionSynchronization {
+
+        private final Observation parent;
+        private Observation commit;
+
+        CommitSpan(Observation parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commit = Observation.createNotStarted("fx.tx.commit", registry).parentObservation(parent).start();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (commit != null) {
+                commit.lowCardinalityKeyValue("outcome", status == STATUS_COMMITTED ? "committed" : "rolled-back");
+                commit.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.progressoft.fxdealsystem.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Jackson converter (JSON, CBOR or Smile) with fx.http.deserialize / fx.http.serialize spans
+ * around reading the request body and writing the response body.
+ */
+final class ObservedMessageConverter implements GenericHttpMessageConverter<Object> {
+
+    private final GenericHttpMessageConverter<Object> delegate;
+    private final ObservationRegistry registry;
+    private final String format;
+
+    ObservedMessageConverter(GenericHttpMessageConverter<Object> delegate, ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        List<MediaType> types = delegate.getSupportedMediaTypes();
+        this.format = types.isEmpty() ? "unknown" : types.get(0).getSubtype();
+    }
+
+    GenericHttpMessageConverter<Object> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return delegate.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        Observation observation = observation("fx.http.deserialize");
+        try (Observation.Scope scope = observation.openScope()) {
+            return delegate.read(type, contextClass, inputMessage);
+        } catch (IOException | RuntimeException ex) {
+            observation.error(ex);
+            throw ex;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return delegate.canWrite(type, clazz, mediaType);
+    }
+
+    @Override
+    public void write(Object body, @Nullable Type type, @Nullable MediaType contentType, HttpOutputMessage outputMessage)
+            throws IOException {
+        Observation observation = observation("fx.http.serialize");
+        try (Observation.Scope scope = observation.openScope()) {
+            delegate.write(body, type, contentType, outputMessage);
+        } catch (IOException | RuntimeException ex) {
+            observation.error(ex);
+            throw ex;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return delegate.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        return delegate.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return delegate.getSupportedMediaTypes();
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return delegate.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    public void write(Object body, @Nullable MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        write(body, null, contentType, outputMessage);
+    }
+
+    private Observation observation(String name) {
+        return Observation.createNotStarted(name, registry).lowCardinalityKeyValue("format", format).start();
+    }
+}
@@ -0,0 +1,109 @@
+package com.progressoft.fxdealsystem.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Local stand-in for an OTLP collector: each export batch is appended to a file as one OTLP/JSON
+ * ExportTraceServiceRequest per line. Runs on the batch span processor thread, never on a request
+ * thread. The file can be replayed into a real collector with its otlpjsonfile receiver.
+ */
+@Slf4j
+public class OtlpJsonFileSpanExporter implements SpanExporter {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Writer out;
+
+    public OtlpJsonFileSpanExporter(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (spans.isEmpty()) {
+            return CompletableResultCode.ofSuccess();
+        }
+        ObjectNode request = mapper.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        resourceSpans.putObject("resource").set("attributes",
+                attributes(spans.iterator().next().getResource().getAttributes()));
+        ArrayNode out = resourceSpans.putArray("scopeSpans").addObject().putArray("spans");
+        for (SpanData span : spans) {
+            out.add(span(span));
+        }
+        try {
+            this.out.write(mapper.writeValueAsString(request));
+            this.out.write('\n');
+            this.out.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException ex) {
+            log.warn("Could not write {} spans: {}", spans.size(), ex.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            out.close();
+        } catch (IOException ex) {
+            return CompletableResultCode.ofFailure();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private ObjectNode span(SpanData span) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("traceId", span.getTraceId());
+        node.put("spanId", span.getSpanId());
+        SpanContext parent = span.getParentSpanContext();
+        if (parent.isValid()) {
+            node.put("parentSpanId", parent.getSpanId());
+        }
+        node.put("name", span.getName());
+        // OTLP SpanKind numbering: INTERNAL 1, SERVER 2, CLIENT 3, PRODUCER 4, CONSUMER 5
+        node.put("kind", span.getKind().ordinal() + 1);
+        node.put("startTimeUnixNano", String.valueOf(span.getStartEpochNanos()));
+        node.put("endTimeUnixNano", String.valueOf(span.getEndEpochNanos()));
+        node.set("attributes", attributes(span.getAttributes()));
+        if (span.getStatus().getStatusCode() == StatusCode.ERROR) {
+            node.putObject("status").put("code", 2).put("message", span.getStatus().getDescription());
+        }
+        return node;
+    }
+
+    private ArrayNode attributes(Attributes attributes) {
+        ArrayNode list = mapper.createArrayNode();
+        attributes.forEach((key, value) -> {
+            ObjectNode attribute = list.addObject();
+            attribute.put("key", key.getKey());
+            attribute.putObject("value").put("stringValue", String.valueOf(value));
+        });
+        return list;
+    }
+}
@@ -0,0 +1,46 @@
+package com.progressoft.fxdealsystem.tracing;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Request body (de)serialization spans, and the OTLP/JSON file exporter (fx.tracing.file).
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "fx.tracing", name = "file")
+    public SpanExporter otlpJsonFileSpanExporter(TracingProperties properties) throws IOException {
+        return new OtlpJsonFileSpanExporter(Path.of(properties.getFile()));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "fx.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public WebMvcConfigurer observedMessageConverters(ObjectProvider<ObservationRegistry> registry) {
+        return new WebMvcConfigurer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                ObservationRegistry observations = registry.getIfAvailable(() -> ObservationRegistry.NOOP);
+                converters.replaceAll(converter -> converter instanceof AbstractJackson2HttpMessageConverter
+                        ? new ObservedMessageConverter((GenericHttpMessageConverter<Object>) converter, observations)
+                        : converter);
+            }
+        };
+    }
+}
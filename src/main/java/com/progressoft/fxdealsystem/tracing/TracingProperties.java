@@ -0,0 +1,30 @@
+package com.progressoft.fxdealsystem.tracing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Spans of the import path. Which traces are recorded at all is decided by
+ * management.tracing.sampling.probability; within a recorded bulk, only some chunks get spans.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.tracing")
+public class TracingProperties {
+
+    /**
+     * Import stage spans (chunks, validation, dedup, transaction, JDBC).
+     */
+    private boolean enabled = true;
+
+    /**
+     * The first chunk of a bulk and then one chunk in this many get spans; 1 traces every chunk.
+     * No span is ever created per deal.
+     */
+    private int chunkSampleEvery = 10;
+
+    /**
+     * When set, finished spans are appended to this file as OTLP/JSON, one export request per line
+     * (the format read by the OpenTelemetry Collector's otlpjsonfile receiver).
+     */
+    private String file;
+}
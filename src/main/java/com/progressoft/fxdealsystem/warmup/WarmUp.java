@@ -0,0 +1,340 @@
+package com.progressoft.fxdealsystem.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.replica.RecentWrites;
+import com.progressoft.fxdealsystem.repository.DealRepository;
+import com.progressoft.fxdealsystem.rules.RuleContext;
+import com.progressoft.fxdealsystem.service.DealService;
+import com.progressoft.fxdealsystem.service.DealValidator;
+import com.progressoft.fxdealsystem.sharding.DealShards;
+import com.progressoft.fxdealsystem.sharding.ShardContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Warm-up before the first request (fx.warm-up.enabled=true). Runs as an ApplicationRunner, and
+ * Spring Boot only publishes ReadinessState.ACCEPTING_TRAFFIC once every runner has returned, so
+ * /actuator/health/readiness stays OUT_OF_SERVICE until the instance is warm:
+ * <ol>
+ *     <li>connection pools filled, on every shard and on the replicas;</li>
+ *     <li>validation and serialization cycles over synthetic deals, in every wire format;</li>
+ *     <li>read-only lookups of synthetic ids (queries, Hibernate, archive bloom filters);</li>
+ *     <li>requests to the application's own port.</li>
+ * </ol>
+ * Nothing is written: synthetic ids start with WARMUP- and are only looked up. The recent-deals
+ * store and the archive headers are loaded by their own beans, also before readiness.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+@EnableConfigurationProperties(WarmUpProperties.class)
+@ConditionalOnProperty(prefix = "fx.warm-up", name = "enabled", havingValue = "true")
+@Slf4j
+public class WarmUp implements ApplicationRunner {
+
+    static final String ID_PREFIX = "WARMUP-";
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CHF", "AED", "JOD"};
+
+    private final WarmUpProperties properties;
+    private final DataSource dataSource;
+    private final DealService dealService;
+    private final DealRepository dealRepository;
+    private final DealValidator dealValidator;
+    private final DealShards shards;
+    private final boolean replicas;
+    private final List<ObjectMapper> mappers;
+    private final ApplicationContext context;
+
+    private volatile long durationNanos;
+    private volatile long connectionsOpened;
+    private volatile long firstCycleNanos;
+    private volatile long lastCycleNanos;
+    private volatile long firstQueryNanos;
+    private volatile long lastQueryNanos;
+    private volatile long firstRequestNanos;
+    private volatile long lastRequestNanos;
+
+    public WarmUp(WarmUpProperties properties, DataSource dataSource, DealService dealService,
+                  DealRepository dealRepository, ObjectProvider<DealValidator> dealValidator,
+                  ObjectProvider<DealShards> shards,
+                  ObjectProvider<RecentWrites> recentWrites, ObjectMapper objectMapper,
+                  ObjectProvider<AbstractJackson2HttpMessageConverter> converters, ApplicationContext context,
+                  ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.dealService = dealService;
+        this.dealRepository = dealRepository;
+        // same rules, own counters: the invalid synthetic deals must not show in fx.rules.rejections
+        this.dealValidator = dealValidator.getIfAvailable(DealValidator::new).detached();
+        this.shards = shards.getIfAvailable();
+        this.replicas = recentWrites.getIfAvailable() != null;
+        this.context = context;
+        Map<ObjectMapper, Boolean> distinct = new IdentityHashMap<>();
+        distinct.put(objectMapper, true);
+        converters.orderedStream().forEach(c -> distinct.put(c.getObjectMapper(), true));
+        this.mappers = List.copyOf(distinct.keySet());
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            registerMeters(registry);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + properties.getMaxDuration().toNanos();
+        fillPools();
+        runCycles(deadline);
+        runQueries(deadline);
+        sendRequests(deadline);
+        durationNanos = System.nanoTime() - start;
+        log.info("Warm-up done in {} ms: {} connections, cycle {} -> {} us, lookup {} -> {} us, request {} -> {} us",
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), connectionsOpened,
+                micros(firstCycleNanos), micros(lastCycleNanos), micros(firstQueryNanos), micros(lastQueryNanos),
+                micros(firstRequestNanos), micros(lastRequestNanos));
+    }
+
+    /**
+     * Holds fx.warm-up.connections connections at once on every shard, then on the replicas when
+     * fx.replicas.enabled=true (read-only connections). The data source hands out lazy proxies, so
+     * each connection is validated to reach the pool behind it.
+     */
+    void fillPools() {
+        int shardCount = shards == null ? 1 : shards.getShardCount();
+        for (int shard = 0; shard < shardCount; shard++) {
+            ShardContext.callOn(shard, () -> {
+                holdConnections(false);
+                if (replicas) {
+                    holdConnections(true);
+                }
+                return null;
+            });
+        }
+    }
+
+    private void holdConnections(boolean readOnly) {
+        List<Connection> held = new ArrayList<>(properties.getConnections());
+        try {
+            for (int i = 0; i < properties.getConnections(); i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                connection.setReadOnly(readOnly);
+                connection.isValid(5);
+                connectionsOpened++;
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up stopped after {} connections: {}", held.size(), e.getMessage());
+        } finally {
+            for (Connection connection : held) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Could not close warm-up connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes a batch of synthetic deals with every ObjectMapper in use (JSON, CBOR, Smile),
+     * reads it back and runs it through DealValidator and the rule pipeline, the same way
+     * POST /api/deals and /bulk do.
+     */
+    void runCycles(long deadline) {
+        List<DealRequest> batch = syntheticBatch();
+        for (int cycle = 0; cycle < properties.getCycles() && System.nanoTime() < deadline; cycle++) {
+            long start = System.nanoTime();
+            for (ObjectMapper mapper : mappers) {
+                roundTrip(mapper, batch);
+            }
+            for (DealRequest request : batch) {
+                try {
+                    dealValidator.validate(request);
+                } catch (InvalidDealException expected) {
+                    // lignes invalides voulues : le chemin de rejet doit aussi être compilé
+                }
+            }
+            DealBatch columns = DealBatch.of(batch);
+            RuleContext ruleContext = dealValidator.context();
+            for (int row = 0; row < columns.size(); row++) {
+                dealValidator.check(columns, row, ruleContext);
+            }
+            lastCycleNanos = System.nanoTime() - start;
+            if (cycle == 0) {
+                firstCycleNanos = lastCycleNanos;
+            }
+        }
+    }
+
+    private void roundTrip(ObjectMapper mapper, List<DealRequest> batch) {
+        CollectionType type = mapper.getTypeFactory().constructCollectionType(List.class, DealRequest.class);
+        ObjectWriter writer = mapper.writerFor(type);
+        ObjectReader reader = mapper.readerFor(type);
+        try {
+            reader.readValue(writer.writeValueAsBytes(batch));
+            for (DealRequest request : batch) {
+                mapper.readValue(mapper.writeValueAsBytes(request), DealRequest.class);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Warm-up round trip failed", e);
+        }
+    }
+
+    /**
+     * Looks synthetic ids up through the service and the repository. They never exist, so every
+     * path down to the archive is taken.
+     */
+    void runQueries(long deadline) {
+        List<String> ids = syntheticBatch().stream().map(DealRequest::getDealUniqueId).toList();
+        for (int round = 0; round < properties.getQueryRounds() && System.nanoTime() < deadline; round++) {
+            long start = System.nanoTime();
+            dealService.getListingVersion();
+            dealService.lookupDeals(ids, found -> { }, missing -> { });
+            try {
+                dealService.getDealByUniqueId(ids.get(round % ids.size()));
+            } catch (InvalidDealException expected) {
+                // id synthétique : jamais trouvé
+            }
+            String id = ids.get(round % ids.size());
+            onShardOf(id, () -> dealRepository.existsByDealUniqueId(id));
+            if (shards == null) {
+                dealRepository.findExistingDealUniqueIds(ids);
+            } else {
+                shards.byShard(ids, dealRepository::findExistingDealUniqueIds);
+            }
+            lastQueryNanos = System.nanoTime() - start;
+            if (round == 0) {
+                firstQueryNanos = lastQueryNanos;
+            }
+        }
+    }
+
+    private <T> T onShardOf(String id, Supplier<T> action) {
+        return shards == null ? action.get() : shards.onShardOf(id, action);
+    }
+
+    /**
+     * Read-only requests to the application's own port: servlet container, MVC dispatch, message
+     * converters and the exception handler (an unknown id answers 400). Skipped without a web server.
+     */
+    void sendRequests(long deadline) {
+        if (!(context instanceof WebServerApplicationContext web) || web.getWebServer() == null
+                || web.getWebServer().getPort() <= 0) {
+            return;
+        }
+        String base = "http://localhost:" + web.getWebServer().getPort() + "/api/deals";
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        List<HttpRequest> requests = List.of(
+                HttpRequest.newBuilder(URI.create(base + "/health")).build(),
+                HttpRequest.newBuilder(URI.create(base + "/" + ID_PREFIX + "0")).build(),
+                HttpRequest.newBuilder(URI.create(base + "/lookup"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("[\"" + ID_PREFIX + "0\",\"" + ID_PREFIX + "1\"]"))
+                        .build());
+        try {
+            for (int i = 0; i < properties.getHttpRequests() && System.nanoTime() < deadline; i++) {
+                long start = System.nanoTime();
+                client.send(requests.get(i % requests.size()), HttpResponse.BodyHandlers.discarding());
+                lastRequestNanos = System.nanoTime() - start;
+                if (i == 0) {
+                    firstRequestNanos = lastRequestNanos;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Warm-up requests stopped: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * fx.warm-up.batch-size deals, every tenth one invalid (blank id, bad currency, zero amount or
+     * future timestamp in turn).
+     */
+    List<DealRequest> syntheticBatch() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<DealRequest> batch = new ArrayList<>(properties.getBatchSize());
+        for (int i = 0; i < properties.getBatchSize(); i++) {
+            DealRequest request = new DealRequest(ID_PREFIX + i, CURRENCIES[i % CURRENCIES.length],
+                    CURRENCIES[(i + 1) % CURRENCIES.length], now.minusMinutes(i),
+                    BigDecimal.valueOf(1000 + i * 37L, 2));
+            if (i % 10 == 9) {
+                switch ((i / 10) % 4) {
+                    case 0 -> request.setDealUniqueId(" ");
+                    case 1 -> request.setToCurrencyIsoCode("XX");
+                    case 2 -> request.setDealAmount(BigDecimal.ZERO);
+                    default -> request.setDealTimestamp(now.plusDays(1));
+                }
+            }
+            batch.add(request);
+        }
+        return batch;
+    }
+
+    private void registerMeters(MeterRegistry registry) {
+        TimeGauge.builder("fx.warmup.duration", this, TimeUnit.NANOSECONDS, w -> w.durationNanos)
+                .description("Time spent warming up before readiness")
+                .register(registry);
+        Gauge.builder("fx.warmup.connections", this, w -> w.connectionsOpened)
+                .description("Connections opened while filling the pools")
+                .register(registry);
+        stageGauges(registry, "fx.warmup.cycle", "Validation and serialization cycle over the synthetic batch",
+                () -> firstCycleNanos, () -> lastCycleNanos);
+        stageGauges(registry, "fx.warmup.lookup", "Read-only lookup round",
+                () -> firstQueryNanos, () -> lastQueryNanos);
+        stageGauges(registry, "fx.warmup.request", "Request to the application's own port",
+                () -> firstRequestNanos, () -> lastRequestNanos);
+    }
+
+    private void stageGauges(MeterRegistry registry, String name, String description,
+                             Supplier<Long> first, Supplier<Long> last) {
+        for (Map.Entry<String, Supplier<Long>> stage : Map.of("first", first, "last", last).entrySet()) {
+            TimeGauge.builder(name, stage.getValue(), TimeUnit.NANOSECONDS, Supplier::get)
+                    .tag("iteration", stage.getKey())
+                    .description(description)
+                    .register(registry);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
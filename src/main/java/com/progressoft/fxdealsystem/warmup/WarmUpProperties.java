@@ -0,0 +1,48 @@
+package com.progressoft.fxdealsystem.warmup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Warm-up run at startup, before the readiness probe reports UP.
+ */
+@Data
+@ConfigurationProperties(prefix = "fx.warm-up")
+public class WarmUpProperties {
+
+    private boolean enabled;
+
+    /**
+     * Validation and serialization cycles over a batch of synthetic deals, enough for the JIT to
+     * compile the hot paths.
+     */
+    private int cycles = 1_000;
+
+    /**
+     * Synthetic deals per cycle, a few of them invalid so that the rejection paths are compiled too.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Read-only lookup rounds against the database (query plans, Hibernate metadata, statement caches).
+     */
+    private int queryRounds = 50;
+
+    /**
+     * Connections held at once per shard, so that the pools are filled before traffic arrives.
+     * Usually spring.datasource.hikari.maximum-pool-size.
+     */
+    private int connections = 10;
+
+    /**
+     * Requests sent to the application's own port (servlet container, MVC dispatch, error handling).
+     */
+    private int httpRequests = 200;
+
+    /**
+     * Upper bound of the whole warm-up; the remaining steps are skipped once it is reached.
+     */
+    private Duration maxDuration = Duration.ofSeconds(30);
+}
@@ -0,0 +1,15 @@
+-- Schema of the deals table, kept in sync with the Deal entity.
+-- Portable between MySQL 8 and H2 in MODE=MySQL so it can be applied to every shard.
+CREATE TABLE IF NOT EXISTS deals (
+    id                     BIGINT         NOT NULL AUTO_INCREMENT,
+    deal_unique_id         VARCHAR(255)   NOT NULL,
+    from_currency_iso_code VARCHAR(3)     NOT NULL,
+    to_currency_iso_code   VARCHAR(3)     NOT NULL,
+    deal_timestamp         DATETIME(6)    NOT NULL,
+    deal_amount            DECIMAL(19, 4) NOT NULL,
+    created_at             DATETIME(6)    NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_deal_deal_unique_id UNIQUE (deal_unique_id),
+    -- archival (fx.archive.enabled=true) selects deals by deal_timestamp
+    INDEX idx_deal_timestamp (deal_timestamp)
+);
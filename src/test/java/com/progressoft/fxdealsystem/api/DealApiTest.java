@@ -1,20 +1,34 @@
 package com.progressoft.fxdealsystem.api;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.progressoft.fxdealsystem.controller.AdminAccess;
 import com.progressoft.fxdealsystem.dto.DealRequest;
 import io.restassured.RestAssured;
+import io.restassured.config.EncoderConfig;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.*;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -95,8 +109,8 @@ class DealApiTest {
                 .post()
                 .then()
                 .statusCode(400)
-                .body("error", equalTo("Validation Failed"))
-                .body("messages.dealUniqueId", containsString("required"));
+                .body("error", equalTo("Invalid Deal"))
+                .body("message", containsString("Deal unique ID is required"));
     }
 
     @Test
@@ -117,7 +131,8 @@ class DealApiTest {
                 .post()
                 .then()
                 .statusCode(400)
-                .body("error", equalTo("Validation Failed"));
+                .body("error", equalTo("Invalid Deal"))
+                .body("message", containsString("Invalid currency ISO code"));
     }
 
     @Test
@@ -138,8 +153,8 @@ class DealApiTest {
                 .post()
                 .then()
                 .statusCode(400)
-                .body("error", equalTo("Validation Failed"))
-                .body("messages.dealAmount", containsString("greater than 0"));
+                .body("error", equalTo("Invalid Deal"))
+                .body("message", containsString("Deal amount must be positive"));
     }
 
     @Test
@@ -182,8 +197,8 @@ class DealApiTest {
                 .post()
                 .then()
                 .statusCode(400)
-                .body("error", equalTo("Validation Failed"))
-                .body("messages.dealTimestamp", containsString("cannot be in the future"));
+                .body("error", equalTo("Invalid Deal"))
+                .body("message", containsString("cannot be in the future"));
     }
 
     @Test
@@ -324,6 +339,280 @@ class DealApiTest {
                 .post()
                 .then()
                 .statusCode(400)
-                .body("messages.dealAmount", containsString("greater than 0"));
+                .body("message", containsString("Deal amount must be positive"));
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("API Test 16: Bulk import and export in CBOR")
+    void testBulkImport_Cbor() throws Exception {
+        CBORMapper cbor = new CBORMapper();
+        byte[] body = cbor.writeValueAsBytes(List.of(
+                cborDeal("API_CBOR_001", new BigDecimal("1500.25")),
+                cborDeal("API_CBOR_001", new BigDecimal("10"))));
+
+        byte[] result = given()
+                .config(RestAssured.config().encoderConfig(
+                        EncoderConfig.encoderConfig().appendDefaultContentCharsetToContentTypeIfUndefined(false)))
+                .contentType("application/cbor")
+                .accept("application/cbor")
+                .body(body)
+                .when()
+                .post("/bulk")
+                .then()
+                .statusCode(201)
+                .contentType("application/cbor")
+                .extract().asByteArray();
+
+        List<Map<String, Object>> responses = cbor.readValue(result, new TypeReference<>() {});
+        assertThat(responses).extracting(r -> r.get("status")).containsExactly("SUCCESS", "FAILED");
+        assertThat(responses.get(1).get("message").toString()).contains("already exists");
+
+        byte[] exported = given()
+                .accept("application/cbor")
+                .when()
+                .get("/API_CBOR_001")
+                .then()
+                .statusCode(200)
+                .extract().asByteArray();
+        Map<String, Object> deal = cbor.readValue(exported, new TypeReference<>() {});
+        assertThat(deal.get("dealTimestamp")).isEqualTo(List.of(2024, 1, 15, 10, 30));
+        assertThat(new BigDecimal(deal.get("dealAmount").toString())).isEqualByComparingTo("1500.25");
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("API Test 17: gzip-compressed JSON bulk body")
+    void testBulkImport_GzipBody() throws Exception {
+        String json = """
+                [{"dealUniqueId":"API_GZIP_001","fromCurrencyIsoCode":"USD","toCurrencyIsoCode":"JPY",
+                  "dealTimestamp":"2024-01-15T10:30:00","dealAmount":99.99}]
+                """;
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Content-Encoding", "gzip")
+                .body(compressed.toByteArray())
+                .when()
+                .post("/bulk")
+                .then()
+                .statusCode(201)
+                .body("[0].dealUniqueId", equalTo("API_GZIP_001"))
+                .body("[0].status", equalTo("SUCCESS"));
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("API Test 18: rules replaced at runtime reject per deal in bulk, invalid config and calls without the admin token are refused")
+    void testValidationRules_Reconfigure() {
+        String rules = """
+                {"allowedPairs":["EUR/USD"],"maxNotional":{"EUR/USD":1000}}
+                """;
+        try {
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "test-admin-token").contentType(ContentType.JSON).body(rules)
+                    .when().put()
+                    .then()
+                    .statusCode(200)
+                    .body("rules", hasItems("allowed-pairs", "max-notional"));
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(List.of(
+                            new DealRequest("API_RULE_001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("999")),
+                            new DealRequest("API_RULE_002", "USD", "GBP", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN),
+                            new DealRequest("API_RULE_003", "EUR", "USD", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.5")),
+                            new DealRequest("API_RULE_004", "EUR", "USD", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.ZERO)))
+                    .when()
+                    .post("/bulk")
+                    .then()
+                    .statusCode(201)
+                    .body("[0].status", equalTo("SUCCESS"))
+                    .body("[1].message", equalTo("Currency pair USD/GBP is not allowed"))
+                    .body("[2].message", equalTo("Deal amount exceeds the maximum notional of 1000 for EUR/USD"))
+                    .body("[3].message", equalTo("Deal amount must be positive"));
+
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "test-admin-token")
+                    .when().get()
+                    .then()
+                    .statusCode(200)
+                    .body("rejections.'allowed-pairs'", greaterThanOrEqualTo(1))
+                    .body("rejections.'max-notional'", greaterThanOrEqualTo(1));
+
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "test-admin-token").contentType(ContentType.JSON).body("{\"allowedPairs\":[\"EUR/ABC\"]}")
+                    .when().put()
+                    .then()
+                    .statusCode(400)
+                    .body("message", equalTo("Unknown currency pair: EUR/ABC"));
+
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "test-admin-token")
+                    .contentType(ContentType.JSON).body("{\"allowedPairs\":null}")
+                    .when().put()
+                    .then()
+                    .statusCode(400)
+                    .body("error", equalTo("Invalid Rule Configuration"));
+
+            // sans le jeton d'administration, rien n'est modifié
+            given().basePath("/api/admin/rules").contentType(ContentType.JSON).body("{}")
+                    .when().put()
+                    .then()
+                    .statusCode(403);
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "wrong-token")
+                    .when().get()
+                    .then()
+                    .statusCode(403);
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "test-admin-token")
+                    .when().get()
+                    .then()
+                    .statusCode(200)
+                    .body("rules", hasItems("allowed-pairs", "max-notional"));
+        } finally {
+            given().basePath("/api/admin/rules").header(AdminAccess.HEADER, "test-admin-token").contentType(ContentType.JSON).body("{}").when().put();
+        }
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("API Test 19: correlation id echoed when usable, generated otherwise")
+    void testCorrelationId() {
+        given()
+                .header("X-Correlation-Id", "batch-2024-01-15.7")
+                .when()
+                .get("/health")
+                .then()
+                .header("X-Correlation-Id", equalTo("batch-2024-01-15.7"));
+
+        given()
+                .header("X-Correlation-Id", "bad id\ninjected")
+                .when()
+                .get("/health")
+                .then()
+                .header("X-Correlation-Id", matchesPattern("[0-9a-f]{16}"));
+    }
+
+    @Test
+    @Order(20)
+    @DisplayName("API Test 20: bulk lookup returns found deals in input order and the missing ids")
+    void testBulkLookup() {
+        List<DealRequest> deals = List.of(
+                new DealRequest("LOOKUP_1", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN),
+                new DealRequest("LOOKUP_2", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.ONE));
+        given().contentType(ContentType.JSON).body(deals).when().post("/bulk").then().statusCode(201);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of("LOOKUP_2", "LOOKUP_UNKNOWN", "LOOKUP_1", "LOOKUP_2"))
+                .when()
+                .post("/lookup")
+                .then()
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .body("found.dealUniqueId", contains("LOOKUP_2", "LOOKUP_1"))
+                .body("found[0].toCurrencyIsoCode", equalTo("JPY"))
+                .body("missing", contains("LOOKUP_UNKNOWN"));
+    }
+
+    @Test
+    @Order(21)
+    @DisplayName("API Test 21: a single deal is immutable: weak ETag, Last-Modified, 304 on revalidation")
+    void testConditionalGetDeal() {
+        given().contentType(ContentType.JSON)
+                .body(new DealRequest("CACHE_1", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN))
+                .when().post().then().statusCode(201);
+
+        var first = given().when().get("/CACHE_1")
+                .then()
+                .statusCode(200)
+                .header("ETag", matchesPattern("W/\"deal-\\d+-\\d+\""))
+                .header("Cache-Control", allOf(containsString("immutable"), containsString("max-age=31536000")))
+                .header("Last-Modified", notNullValue())
+                .extract();
+
+        given().header("If-None-Match", first.header("ETag"))
+                .when().get("/CACHE_1")
+                .then()
+                .statusCode(304)
+                .header("ETag", equalTo(first.header("ETag")))
+                .body(emptyString());
+        given().header("If-Modified-Since", first.header("Last-Modified"))
+                .when().get("/CACHE_1")
+                .then()
+                .statusCode(304);
+        given().header("If-None-Match", "W/\"deal-0-0\"")
+                .when().get("/CACHE_1")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    @Order(22)
+    @DisplayName("API Test 22: the listing is gzipped, revalidates with its ETag and changes after an import")
+    void testConditionalGetListing() throws Exception {
+        List<DealRequest> deals = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            deals.add(new DealRequest("CACHE_LIST_" + i, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.ONE));
+        }
+        given().contentType(ContentType.JSON).body(deals).when().post("/bulk").then().statusCode(201);
+
+        // plain JDK client: Rest Assured inflates gzip bodies and drops the Content-Encoding header
+        HttpResponse<byte[]> listing = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/deals"))
+                        .header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(listing.statusCode()).isEqualTo(200);
+        assertThat(listing.headers().firstValue("Content-Encoding")).contains("gzip");
+        assertThat(listing.headers().firstValue("Cache-Control")).contains("no-cache");
+        String etag = listing.headers().firstValue("ETag").orElseThrow();
+        // weak: Tomcat does not compress a response carrying a strong ETag
+        assertThat(etag).startsWith("W/\"deals-");
+
+        given().header("If-None-Match", etag).when().get().then().statusCode(304);
+
+        given().contentType(ContentType.JSON)
+                .body(new DealRequest("CACHE_LIST_NEW", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.ONE))
+                .when().post().then().statusCode(201);
+        given().header("If-None-Match", etag).when().get().then().statusCode(200);
+    }
+
+    @Test
+    @Order(23)
+    @DisplayName("API Test 23: gzip body inflating past fx.gzip.max-inflated-size is refused on any endpoint")
+    void testGzipBodyTooLarge() throws Exception {
+        // 65 MB de blancs : ~64 KB compressés, lus sans fin par le parseur JSON
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write('[');
+            byte[] blanks = new byte[1024 * 1024];
+            Arrays.fill(blanks, (byte) ' ');
+            for (int i = 0; i < 65; i++) {
+                gzip.write(blanks);
+            }
+            gzip.write(']');
+        }
+
+        for (String path : List.of("/lookup", "/bulk")) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .header("Content-Encoding", "gzip")
+                    .body(compressed.toByteArray())
+                    .when()
+                    .post(path)
+                    .then()
+                    .statusCode(413)
+                    .body("message", containsString("once inflated"));
+        }
+    }
+
+    private static Map<String, Object> cborDeal(String id, BigDecimal amount) {
+        Map<String, Object> deal = new HashMap<>();
+        deal.put("dealUniqueId", id);
+        deal.put("fromCurrencyIsoCode", "USD");
+        deal.put("toCurrencyIsoCode", "EUR");
+        deal.put("dealTimestamp", List.of(2024, 1, 15, 10, 30, 0));
+        deal.put("dealAmount", amount);
+        return deal;
     }
 }
@@ -0,0 +1,85 @@
+package com.progressoft.fxdealsystem.archive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveFileTest {
+
+    private static final String[] CODES = {"USD", "EUR", "GBP", "JPY", "CHF"};
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Deals written to an archive file read back identical, in id order, and the file is read-only")
+    void testRoundTrip() throws Exception {
+        List<ArchivedDeal> deals = deals(5_000);
+        ArchiveFile file = ArchiveFile.write(directory.resolve("deals-1.fxa"), deals, 0.01);
+
+        List<ArchivedDeal> read = new ArrayList<>();
+        ArchiveFile.open(file.path()).forEach(read::add);
+
+        assertThat(read).hasSize(deals.size());
+        assertThat(read).containsExactlyInAnyOrderElementsOf(deals);
+        assertThat(read).isSortedAccordingTo((a, b) -> a.dealUniqueId().compareTo(b.dealUniqueId()));
+        assertThat(Files.getPosixFilePermissions(file.path())).doesNotContain(PosixFilePermission.OWNER_WRITE);
+        assertThat(directory.resolve("deals-1.fxa.tmp")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("find returns the archived deal from its row group, and nothing for an id not in the file")
+    void testFind() throws Exception {
+        List<ArchivedDeal> deals = deals(3_000);
+        ArchiveFile file = ArchiveFile.write(directory.resolve("deals-2.fxa"), deals, 0.01);
+
+        assertThat(file.mightContain("ARCH_000417")).isTrue();
+        assertThat(file.find("ARCH_000417")).contains(deals.get(417));
+        // first row of the second row group, last row of the last one
+        assertThat(file.find("ARCH_001024")).contains(deals.get(ArchiveFile.ROWS_PER_GROUP));
+        assertThat(file.find("ARCH_002999")).contains(deals.get(2_999));
+        assertThat(file.find("ARCH_001024X")).isEmpty();
+        assertThat(file.find("ARCH_999999")).isEmpty();
+        assertThat(file.mightContain("ZZZ")).isFalse();
+    }
+
+    @Test
+    @DisplayName("The Bloom filter keeps close to its false positive rate and the columns compress well")
+    void testBloomAndSize() throws Exception {
+        List<ArchivedDeal> deals = deals(10_000);
+        ArchiveFile file = ArchiveFile.write(directory.resolve("deals-3.fxa"), deals, 0.01);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            // inside the id range, never archived
+            if (file.mightContain("ARCH_%06dX".formatted(i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+
+        long size = Files.size(file.path());
+        assertThat(size - file.bloomSizeInBytes()).isLessThan(deals.size() * 16L);
+    }
+
+    private static List<ArchivedDeal> deals(int count) {
+        List<ArchivedDeal> deals = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2022, 3, 1, 9, 0, 0, 123_456_000);
+        for (int i = 0; i < count; i++) {
+            deals.add(new ArchivedDeal(1_000 + i * 3L, "ARCH_%06d".formatted(i), CODES[i % 5], CODES[(i + 1) % 5],
+                    start.plusSeconds(i * 37L), new BigDecimal(i % 7 == 0 ? "12345678901234.5678" : (i + 1) + ".2500"),
+                    start.plusDays(1).plusNanos(i * 1_000L)));
+        }
+        return deals;
+    }
+}
@@ -0,0 +1,139 @@
+package com.progressoft.fxdealsystem.archive;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.exception.DuplicateDealException;
+import com.progressoft.fxdealsystem.service.DealService;
+import com.progressoft.fxdealsystem.sharding.DealShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archivedb;DB_CLOSE_DELAY=-1",
+        "fx.archive.enabled=true",
+        "fx.archive.schedule=-",
+        "fx.archive.batch-size=3",
+        "fx.archive.delete-chunk-size=2",
+        "fx.archive.rescan-interval=0s"})
+@ActiveProfiles("test")
+class DealArchiveTest {
+
+    private static final Path ARCHIVE = createDirectory();
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("fx.archive.directory", ARCHIVE::toString);
+    }
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2020, 6, 1, 10, 30);
+    private static final LocalDateTime RECENT = LocalDateTime.now().minusDays(1).withNano(0);
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private DealArchive dealArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ArchiveProperties properties;
+
+    @Test
+    @DisplayName("Old deals move to archive files, leave the table, and are still found, deduplicated and reloaded")
+    void testArchive() throws Exception {
+        List<DealRequest> deals = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            deals.add(new DealRequest("ARCHIVE_OLD_" + i, "USD", "EUR", OLD.plusHours(i), new BigDecimal("100.5")));
+        }
+        deals.add(new DealRequest("ARCHIVE_NEW", "GBP", "JPY", RECENT, BigDecimal.TEN));
+        dealService.importDeals(deals);
+        int files = dealArchive.files().size();
+        // une autre instance, démarrée avant l'archivage, sur le même répertoire
+        StaticListableBeanFactory none = new StaticListableBeanFactory();
+        DealArchive other = new DealArchive(properties, jdbcTemplate,
+                none.getBeanProvider(DealShards.class), none.getBeanProvider(MeterRegistry.class));
+
+        int archived = dealArchive.archiveOlderThan(LocalDateTime.of(2021, 1, 1, 0, 0));
+
+        assertThat(archived).isEqualTo(7);
+        assertThat(dealArchive.files()).hasSize(files + 3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM deals WHERE deal_unique_id LIKE 'ARCHIVE_%'",
+                Integer.class)).isEqualTo(1);
+
+        DealResponse fromArchive = dealService.getDealByUniqueId("ARCHIVE_OLD_4");
+        assertThat(fromArchive.getMessage()).isEqualTo("Deal fetched from archive");
+        assertThat(fromArchive.getDealTimestamp()).isEqualTo(OLD.plusHours(4));
+        assertThat(fromArchive.getDealAmount()).isEqualByComparingTo("100.5");
+        assertThat(fromArchive.getId()).isNotNull();
+        assertThat(dealService.getDealByUniqueId("ARCHIVE_NEW").getMessage()).isEqualTo("Deal fetched successfully");
+
+        List<String> found = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        dealService.lookupDeals(List.of("ARCHIVE_OLD_0", "ARCHIVE_NEW", "ARCHIVE_NONE"),
+                d -> found.add(d.getDealUniqueId()), missing::add);
+        assertThat(found).containsExactly("ARCHIVE_OLD_0", "ARCHIVE_NEW");
+        assertThat(missing).containsExactly("ARCHIVE_NONE");
+
+        // an archived id is still taken
+        assertThatThrownBy(() -> dealService.importDeal(
+                new DealRequest("ARCHIVE_OLD_1", "USD", "EUR", OLD, BigDecimal.ONE)))
+                .isInstanceOf(DuplicateDealException.class);
+        assertThat(dealService.importDeals(List.of(new DealRequest("ARCHIVE_OLD_2", "USD", "EUR", OLD, BigDecimal.ONE))))
+                .extracting(DealResponse::getStatus).containsExactly("FAILED");
+
+        // the other instance picks up the new files on a miss, a new one finds them on disk
+        assertThat(other.find("ARCHIVE_OLD_5")).isPresent();
+        DealArchive reloaded = new DealArchive(properties, jdbcTemplate,
+                none.getBeanProvider(DealShards.class), none.getBeanProvider(MeterRegistry.class));
+        assertThat(reloaded.find("ARCHIVE_OLD_6")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Only the instance holding the archival lease archives; an expired lease is taken over")
+    void testArchiveLock() {
+        LocalDateTime cutoff = LocalDateTime.of(2021, 1, 1, 0, 0);
+        dealArchive.archiveOlderThan(LocalDateTime.of(2000, 1, 1, 0, 0));
+        dealService.importDeal(new DealRequest("LOCKED_OLD", "USD", "EUR", OLD, BigDecimal.TEN));
+
+        jdbcTemplate.update("UPDATE fx_locks SET locked_until = ?, locked_by = 'other-instance' WHERE name = 'deal-archive'",
+                LocalDateTime.now().plusHours(1));
+        assertThat(dealArchive.archiveOlderThan(cutoff)).isZero();
+        assertThat(dealArchive.find("LOCKED_OLD")).isEmpty();
+
+        jdbcTemplate.update("UPDATE fx_locks SET locked_until = ? WHERE name = 'deal-archive'",
+                LocalDateTime.now().minusMinutes(1));
+        assertThat(dealArchive.archiveOlderThan(cutoff)).isEqualTo(1);
+        assertThat(dealArchive.find("LOCKED_OLD")).isPresent();
+    }
+
+    private static Path createDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("archive");
+            directory.toFile().deleteOnExit();
+            return directory;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.progressoft.fxdealsystem.chunking;
+
+import com.progressoft.fxdealsystem.controller.AdminAccess;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:chunkingdb;DB_CLOSE_DELAY=-1", "fx.writer=jdbc",
+                "fx.bulk.adaptive=true", "fx.bulk.chunk-size=10", "fx.bulk.min-chunk-size=5",
+                "fx.bulk.max-parallelism=3", "fx.bulk.window=2"})
+@ActiveProfiles("test")
+class BulkChunkingApiTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api";
+    }
+
+    @Test
+    @DisplayName("Pinned chunking: chunks written in parallel, responses kept in request order")
+    void testPinnedParallelChunks() {
+        given().header(AdminAccess.HEADER, "test-admin-token").contentType(ContentType.JSON)
+                .body(Map.of("chunkSize", 5, "parallelism", 3))
+                .when().put("/admin/bulk-chunking")
+                .then()
+                .statusCode(200)
+                .body("chunkSize", equalTo(5))
+                .body("parallelism", equalTo(3))
+                .body("adaptive", equalTo(false));
+
+        List<DealRequest> deals = deals("PINNED_", 60);
+        // doublon dans un autre lot du même import, et une ligne invalide
+        deals.set(37, deals("PINNED_", 1).get(0));
+        deals.get(50).setDealAmount(BigDecimal.ZERO);
+        List<Map<String, Object>> responses = given().contentType(ContentType.JSON)
+                .body(deals)
+                .when().post("/deals/bulk")
+                .then()
+                .statusCode(201)
+                .extract().jsonPath().getList("$");
+
+        assertThat(responses).hasSize(60);
+        for (int i = 0; i < 60; i++) {
+            assertThat(responses.get(i).get("dealUniqueId")).isEqualTo(deals.get(i).getDealUniqueId());
+            assertThat(responses.get(i).get("status")).as("deal %d", i).isEqualTo(i == 37 || i == 50 ? "FAILED" : "SUCCESS");
+        }
+        assertThat(responses.get(37).get("message").toString()).endsWith("already exists");
+    }
+
+    @Test
+    @DisplayName("Adaptive chunking samples every chunk and exposes its current values")
+    void testAdaptiveChunking() {
+        given().header(AdminAccess.HEADER, "test-admin-token").contentType(ContentType.JSON)
+                .body(Map.of("chunkSize", 10, "parallelism", 1, "adaptive", true))
+                .when().put("/admin/bulk-chunking")
+                .then()
+                .statusCode(200)
+                .body("adaptive", equalTo(true));
+
+        given().contentType(ContentType.JSON)
+                .body(deals("ADAPTIVE_", 200))
+                .when().post("/deals/bulk")
+                .then()
+                .statusCode(201);
+
+        Map<String, Object> view = given().header(AdminAccess.HEADER, "test-admin-token").when().get("/admin/bulk-chunking")
+                .then()
+                .statusCode(200)
+                .extract().jsonPath().getMap("$");
+        assertThat(((Number) view.get("samples")).longValue()).isPositive();
+        assertThat(((Number) view.get("microsPerDeal")).doubleValue()).isPositive();
+        assertThat(meterRegistry.get("fx.bulk.chunk-size").gauge().value()).isEqualTo(((Number) view.get("chunkSize")).doubleValue());
+        assertThat(meterRegistry.get("fx.bulk.chunk.latency").timer().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("A non-positive chunk size is refused")
+    void testInvalidOverride() {
+        given().header(AdminAccess.HEADER, "test-admin-token").contentType(ContentType.JSON)
+                .body(Map.of("chunkSize", 0))
+                .when().put("/admin/bulk-chunking")
+                .then()
+                .statusCode(400)
+                .body("error", equalTo("Invalid Configuration"));
+    }
+
+    @Test
+    @DisplayName("Without the admin token the chunking is neither read nor changed")
+    void testAdminTokenRequired() {
+        given().contentType(ContentType.JSON)
+                .body(Map.of("chunkSize", 1))
+                .when().put("/admin/bulk-chunking")
+                .then()
+                .statusCode(403);
+        given().header(AdminAccess.HEADER, "wrong-token")
+                .when().get("/admin/bulk-chunking")
+                .then()
+                .statusCode(403);
+    }
+
+    private static List<DealRequest> deals(String prefix, int count) {
+        List<DealRequest> deals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            deals.add(new DealRequest(prefix + i, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30),
+                    new BigDecimal("1000.50")));
+        }
+        return deals;
+    }
+}
@@ -0,0 +1,55 @@
+package com.progressoft.fxdealsystem.chunking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkChunkingTest {
+
+    @Test
+    @DisplayName("Parallel chunks of all bulks hold at most fx.lanes.batch.threads connections")
+    void testConnectionBudget() throws Exception {
+        ChunkingProperties properties = new ChunkingProperties();
+        properties.setMaxParallelism(4);
+        BulkChunking chunking = new BulkChunking(properties,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), true, 2);
+        AtomicInteger holding = new AtomicInteger();
+        AtomicInteger mostHeld = new AtomicInteger();
+        try {
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                chunks.add(chunking.submit(() -> chunking.withConnection(() -> {
+                    mostHeld.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                    sleep(50);
+                    return holding.decrementAndGet();
+                })));
+            }
+            // et un bulk sans parallélisme, sur son propre thread
+            chunking.withConnection(() -> {
+                mostHeld.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                return holding.decrementAndGet();
+            });
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        } finally {
+            chunking.destroy();
+        }
+        assertThat(mostHeld.get()).isEqualTo(2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
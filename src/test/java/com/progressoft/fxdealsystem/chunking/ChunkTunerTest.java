@@ -0,0 +1,110 @@
+package com.progressoft.fxdealsystem.chunking;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ChunkTunerTest {
+
+    // 20 ms per transaction + 0.1 ms per deal: 2 300 deals commit in 250 ms
+    private static final long FIXED_NANOS = 20_000_000;
+    private static final long NANOS_PER_DEAL = 100_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Chunk size converges to the size that commits in the target latency")
+    void testChunkSizeConverges() {
+        ChunkTuner tuner = new ChunkTuner(settings(1), clock::get);
+
+        for (int i = 0; i < 40; i++) {
+            record(tuner, tuner.getChunkSize(), latency(tuner.getChunkSize(), 1.0));
+        }
+        assertThat(tuner.getChunkSize()).isCloseTo(2_300, within(100));
+
+        // the database slows down: chunks shrink to keep the commit latency
+        for (int i = 0; i < 40; i++) {
+            record(tuner, tuner.getChunkSize(), 4 * latency(tuner.getChunkSize(), 1.0));
+        }
+        assertThat(tuner.getChunkSize()).isCloseTo(425, within(50));
+    }
+
+    @Test
+    @DisplayName("Parallelism settles around the throughput peak")
+    void testParallelismClimbsToPeak() {
+        ChunkTuner tuner = new ChunkTuner(settings(6), clock::get);
+        // slowdown of each chunk with 1..6 chunks in flight: throughput peaks at 3
+        double[] contention = {1.0, 1.0, 1.0, 1.0, 1.6, 2.6, 4.0};
+        int[] windowsAt = new int[7];
+
+        for (int window = 0; window < 300; window++) {
+            for (int i = 0; i < 4; i++) {
+                int size = tuner.getChunkSize();
+                record(tuner, size, latency(size, contention[tuner.getParallelism()]));
+            }
+            windowsAt[tuner.getParallelism()]++;
+        }
+        int mode = 1;
+        for (int p = 1; p < windowsAt.length; p++) {
+            if (windowsAt[p] > windowsAt[mode]) {
+                mode = p;
+            }
+        }
+        assertThat(mode).isEqualTo(3);
+        assertThat(windowsAt[3]).isGreaterThan(200);
+    }
+
+    @Test
+    @DisplayName("Pinned values are bounded and left alone until adaptation resumes")
+    void testPinAndResume() {
+        ChunkTuner tuner = new ChunkTuner(settings(4), clock::get);
+
+        tuner.pin(100_000, 9);
+        assertThat(tuner.getChunkSize()).isEqualTo(5_000);
+        assertThat(tuner.getParallelism()).isEqualTo(4);
+        record(tuner, 5_000, latency(5_000, 1.0));
+        assertThat(tuner.getChunkSize()).isEqualTo(5_000);
+        assertThat(tuner.isAdaptive()).isFalse();
+
+        tuner.resume();
+        record(tuner, 5_000, latency(5_000, 1.0));
+        assertThat(tuner.getChunkSize()).isLessThan(5_000);
+        assertThat(tuner.isAdaptive()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Chunks far below the current size are not sampled")
+    void testSmallChunksIgnored() {
+        ChunkTuner tuner = new ChunkTuner(settings(1), clock::get);
+
+        record(tuner, 10, latency(10, 1.0));
+        assertThat(tuner.getSamples()).isZero();
+        assertThat(tuner.getChunkSize()).isEqualTo(500);
+    }
+
+    /**
+     * A chunk committed while `parallelism` chunks are in flight: wall-clock time advances by a
+     * share of its latency.
+     */
+    private void record(ChunkTuner tuner, int deals, long nanos) {
+        clock.addAndGet(nanos / tuner.getParallelism());
+        tuner.record(deals, nanos);
+    }
+
+    private static ChunkingProperties settings(int maxParallelism) {
+        ChunkingProperties settings = new ChunkingProperties();
+        settings.setTargetLatency(Duration.ofMillis(250));
+        settings.setMaxParallelism(maxParallelism);
+        settings.setWindow(4);
+        return settings;
+    }
+
+    private static long latency(int deals, double contention) {
+        return (long) ((FIXED_NANOS + NANOS_PER_DEAL * deals) * contention);
+    }
+}
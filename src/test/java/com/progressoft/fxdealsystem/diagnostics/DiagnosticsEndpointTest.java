@@ -0,0 +1,122 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.startsWith;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"fx.diagnostics.single-threshold=0ms", "fx.diagnostics.continuous=true",
+                "management.endpoints.web.exposure.include=health,diagnostics"})
+@ActiveProfiles("test")
+class DiagnosticsEndpointTest {
+
+    private static final Path RECORDINGS = createDirectory();
+
+    @DynamicPropertySource
+    static void recordingDirectory(DynamicPropertyRegistry registry) {
+        registry.add("fx.diagnostics.directory", RECORDINGS::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "";
+    }
+
+    @Test
+    @DisplayName("A slow import is listed with its stages and captures a JFR recording that can be downloaded")
+    void testSlowImportCapture() throws Exception {
+        given().contentType(ContentType.JSON)
+                .body(new DealRequest("DIAG_1", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN))
+                .when().post("/api/deals")
+                .then().statusCode(201);
+
+        given().when().get("/actuator/diagnostics")
+                .then()
+                .statusCode(200)
+                .body("continuousRecording", equalTo(true))
+                .body("slowest[0].operation", equalTo("importDeal"))
+                .body("slowest[0].stagesMs", hasKey("fx.import.insert"));
+
+        String name = awaitRecording();
+        assertThat(name).startsWith("fx-slow-importDeal-");
+        byte[] recording = given().when().get("/actuator/diagnostics/" + name)
+                .then().statusCode(200).extract().asByteArray();
+        assertThat(new String(recording, 0, 4)).isEqualTo("FLR\0");
+        // pas d'environnement ni de propriétés système : les mots de passe n'en sortent pas
+        Path file = Files.write(Files.createTempFile(RECORDINGS, "download", ".jfr"), recording);
+        assertThat(RecordingFile.readAllEvents(file)).extracting(event -> event.getEventType().getName())
+                .doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+        Files.delete(file);
+
+        given().when().get("/actuator/diagnostics/missing.jfr").then().statusCode(404);
+    }
+
+    @Test
+    @DisplayName("POST dumps the continuous recording now, or records for the given duration")
+    void testOnDemandRecording() {
+        given().contentType(ContentType.JSON).body("{}")
+                .when().post("/actuator/diagnostics")
+                .then()
+                .statusCode(200)
+                .body("name", startsWith("fx-on-demand-"))
+                .body("state", equalTo("complete"));
+
+        given().contentType(ContentType.JSON).body("{\"duration\": \"1s\"}")
+                .when().post("/actuator/diagnostics")
+                .then()
+                .statusCode(200)
+                .body("state", equalTo("running"));
+        given().when().get("/actuator/diagnostics").then().body("running.state", equalTo("running"));
+    }
+
+    private String awaitRecording() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (System.nanoTime() < deadline) {
+            List<String> names = given().when().get("/actuator/diagnostics").then().extract().path("recordings.name");
+            for (String name : names) {
+                if (name.startsWith("fx-slow-")) {
+                    return name;
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("No recording captured in " + RECORDINGS);
+    }
+
+    private static Path createDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("recordings");
+            directory.toFile().deleteOnExit();
+            return directory;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTimingsTest {
+
+    @Test
+    @DisplayName("Stages recorded on workers carrying the timings add up to the import, nested imports are not timed")
+    void testWorkersRecordIntoTheImport() {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        RequestTimings timings = RequestTimings.begin(ImportDiagnostics.BULK, 1000);
+        try {
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int chunk = 0; chunk < 100; chunk++) {
+                chunks.add(CompletableFuture.runAsync(() -> RequestTimings.callWith(timings, () -> {
+                    assertThat(RequestTimings.begin(ImportDiagnostics.SINGLE, 1)).isNull();
+                    RequestTimings.current().record("fx.import.insert", 10);
+                    RequestTimings.current().record("fx.import.dedup", 1);
+                    return null;
+                }), workers));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+
+            assertThat(timings.getStageNanos()).containsEntry("fx.import.insert", 1000L).containsEntry("fx.import.dedup", 100L);
+            // the workers are left without timings
+            assertThat(CompletableFuture.supplyAsync(RequestTimings::current, workers).join()).isNull();
+        } finally {
+            timings.end();
+            workers.shutdown();
+        }
+        assertThat(RequestTimings.current()).isNull();
+    }
+}
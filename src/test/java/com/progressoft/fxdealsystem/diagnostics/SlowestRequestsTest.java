@@ -0,0 +1,44 @@
+package com.progressoft.fxdealsystem.diagnostics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowestRequestsTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-15T10:30:00Z");
+
+    @Test
+    @DisplayName("Keeps the N slowest imports, slowest first")
+    void testKeepsSlowest() {
+        SlowestRequests slowest = new SlowestRequests(3, Duration.ofHours(1));
+        for (int millis : new int[]{5, 50, 1, 20, 80, 10}) {
+            slowest.offer(entry(NOW, millis));
+        }
+
+        assertThat(slowest.snapshot(NOW)).extracting(SlowestRequests.Entry::millis).containsExactly(80.0, 50.0, 20.0);
+        assertThat(slowest.floorMillis()).isEqualTo(20.0);
+    }
+
+    @Test
+    @DisplayName("Imports older than the window leave the list and make room for faster ones")
+    void testWindow() {
+        SlowestRequests slowest = new SlowestRequests(2, Duration.ofMinutes(10));
+        slowest.offer(entry(NOW.minus(Duration.ofMinutes(30)), 900));
+        slowest.offer(entry(NOW.minus(Duration.ofMinutes(5)), 300));
+
+        assertThat(slowest.snapshot(NOW)).extracting(SlowestRequests.Entry::millis).containsExactly(300.0);
+
+        slowest.offer(entry(NOW, 10));
+        assertThat(slowest.snapshot(NOW)).extracting(SlowestRequests.Entry::millis).containsExactly(300.0, 10.0);
+    }
+
+    private static SlowestRequests.Entry entry(Instant at, double millis) {
+        return new SlowestRequests.Entry(at, ImportDiagnostics.SINGLE, 1, millis, Map.of(), null);
+    }
+}
@@ -0,0 +1,119 @@
+package com.progressoft.fxdealsystem.dto;
+
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import com.progressoft.fxdealsystem.rules.RuleContext;
+import com.progressoft.fxdealsystem.service.DealValidator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DealBatchTest {
+
+    private static final LocalDateTime TS = LocalDateTime.of(2024, 1, 15, 10, 30, 15, 123_456_000);
+
+    @Test
+    @DisplayName("Columns give back the values of the requests")
+    void testRoundTrip() {
+        DealBatch batch = new DealBatch(1);
+        batch.add(new DealRequest("DEAL_1", "usd", "EUR", TS, new BigDecimal("1000.50")));
+        batch.add(new DealRequest("DEAL_ÉTÉ_2", "GBP", "jpy", TS.minusDays(400), new BigDecimal("0.00005")));
+        batch.add(new DealRequest(null, null, "", null, null));
+
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(batch.id(0)).isEqualTo("DEAL_1");
+        assertThat(batch.id(1)).isEqualTo("DEAL_ÉTÉ_2");
+        assertThat(batch.fromCode(0)).isEqualTo("USD");
+        assertThat(batch.toCode(1)).isEqualTo("JPY");
+        assertThat(batch.amountUnscaled(0)).isEqualTo(10_005_000L);
+        assertThat(batch.amount(0)).isEqualByComparingTo("1000.50");
+        assertThat(batch.amount(1)).isEqualByComparingTo("0.0001");
+        assertThat(batch.timestamp(0)).isEqualTo(TS);
+        assertThat(batch.timestamp(1)).isEqualTo(TS.minusDays(400));
+
+        assertThat(batch.id(2)).isNull();
+        assertThat(batch.idIsBlank(2)).isTrue();
+        assertThat(batch.fromCurrency(2)).isEqualTo(DealBatch.MISSING);
+        assertThat(batch.toCurrency(2)).isEqualTo(DealBatch.MISSING);
+        assertThat(batch.amountUnscaled(2)).isEqualTo(DealBatch.NO_AMOUNT);
+        assertThat(batch.timestampMicros(2)).isEqualTo(DealBatch.NO_TIMESTAMP);
+    }
+
+    @Test
+    @DisplayName("Amounts a long cannot hold at scale 4 are kept as BigDecimal up to DECIMAL(19,4)")
+    void testWideAmounts() {
+        DealBatch batch = new DealBatch(1);
+        batch.add(new DealRequest("WIDE", "USD", "EUR", TS, new BigDecimal("999999999999999.9999")));
+        batch.add(new DealRequest("WIDE_NEGATIVE", "USD", "EUR", TS, new BigDecimal("-950000000000000")));
+        batch.add(new DealRequest("TOO_WIDE", "USD", "EUR", TS, new BigDecimal("1000000000000000")));
+        batch.add(new DealRequest("LONG", "USD", "EUR", TS, new BigDecimal("922337203685477.5807")));
+
+        assertThat(batch.amountUnscaled(0)).isEqualTo(DealBatch.WIDE_AMOUNT);
+        assertThat(batch.amount(0)).isEqualByComparingTo("999999999999999.9999");
+        assertThat(batch.amountSignum(0)).isPositive();
+        assertThat(batch.amountAtMost(0, Long.MAX_VALUE)).isFalse();
+        assertThat(batch.amountSignum(1)).isNegative();
+        assertThat(batch.amountUnscaled(2)).isEqualTo(DealBatch.AMOUNT_OUT_OF_RANGE);
+        assertThat(batch.amountUnscaled(3)).isEqualTo(Long.MAX_VALUE);
+
+        DealValidator validator = new DealValidator();
+        RuleContext context = RuleContext.at(LocalDateTime.now(), null);
+        assertThat(validator.check(batch, 0, context)).isNull();
+        assertThat(validator.check(batch, 1, context)).isEqualTo("Deal amount must be positive");
+        assertThat(validator.check(batch, 2, context)).isEqualTo("Deal amount is out of range");
+        assertThat(validator.check(batch, 3, context)).isNull();
+    }
+
+    @Test
+    @DisplayName("Batch validation gives the same verdict and message as request validation")
+    void testCheckMatchesValidate() {
+        LocalDateTime now = LocalDateTime.now();
+        List<DealRequest> requests = List.of(
+                new DealRequest("OK", "USD", "EUR", TS, BigDecimal.TEN),
+                new DealRequest("  ", "USD", "EUR", TS, BigDecimal.TEN),
+                new DealRequest("NO_FROM", null, "EUR", TS, BigDecimal.TEN),
+                new DealRequest("NO_TO", "USD", " ", TS, BigDecimal.TEN),
+                new DealRequest("NO_AMOUNT", "USD", "EUR", TS, null),
+                new DealRequest("NO_TS", "USD", "EUR", null, BigDecimal.TEN),
+                new DealRequest("BAD_FROM", "U$D", "EUR", TS, BigDecimal.TEN),
+                new DealRequest("UNKNOWN_TO", "USD", "ABC", TS, BigDecimal.TEN),
+                new DealRequest("XXX", "XXX", "EUR", TS, BigDecimal.TEN),
+                new DealRequest("LONG", "USDX", "EUR", TS, BigDecimal.TEN),
+                new DealRequest("SAME", "usd", "USD", TS, BigDecimal.TEN),
+                new DealRequest("ZERO", "USD", "EUR", TS, BigDecimal.ZERO),
+                new DealRequest("NEGATIVE", "USD", "EUR", TS, new BigDecimal("-5")),
+                new DealRequest("FUTURE", "USD", "EUR", now.plusDays(1), BigDecimal.TEN));
+
+        DealValidator validator = new DealValidator();
+        DealBatch batch = DealBatch.of(requests);
+        RuleContext context = RuleContext.at(now, null);
+        for (int row = 0; row < requests.size(); row++) {
+            String expected;
+            try {
+                validator.validate(requests.get(row));
+                expected = null;
+            } catch (InvalidDealException ex) {
+                expected = ex.getMessage();
+            }
+            assertThat(validator.check(batch, row, context))
+                    .as(requests.get(row).getDealUniqueId())
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Currency codes: case-insensitive lookup, XXX and non-letters rejected")
+    void testCurrencyCodes() {
+        short usd = CurrencyCodes.encode("USD");
+        assertThat(usd).isNotEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.encode("uSd")).isEqualTo(usd);
+        assertThat(CurrencyCodes.decode(usd)).isEqualTo("USD");
+        assertThat(CurrencyCodes.encode("XXX")).isEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.encode("U1D")).isEqualTo(CurrencyCodes.UNKNOWN);
+        assertThat(CurrencyCodes.encode("US")).isEqualTo(CurrencyCodes.UNKNOWN);
+    }
+}
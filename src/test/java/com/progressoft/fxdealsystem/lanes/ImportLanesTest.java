@@ -0,0 +1,90 @@
+package com.progressoft.fxdealsystem.lanes;
+
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportLanesTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ImportLanes lanes;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        lanes.destroy();
+    }
+
+    @Test
+    @DisplayName("A full batch lane answers 503 while the interactive lane keeps serving")
+    void testBulkhead() throws Exception {
+        LaneProperties properties = new LaneProperties();
+        properties.setBatch(new LaneProperties.Lane(1, 1));
+        lanes = lanes(properties);
+
+        lanes.batch(this::blocked);
+        lanes.batch(this::blocked);
+        CompletableFuture<Object> rejected = lanes.batch(this::blocked);
+
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ImportRejectedException.class);
+        assertThat(lanes.interactive(() -> "captured").get(5, TimeUnit.SECONDS)).isEqualTo("captured");
+        assertThat(registry.get("fx.lanes.queue-depth").tag("lane", "batch").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("fx.lanes.rejections").tag("lane", "batch").counter().count()).isEqualTo(1);
+        assertThat(registry.get("fx.lanes.latency").tag("lane", "interactive").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Bulks pause between chunks while the interactive lane is busy, up to max-yield")
+    void testBatchYields() throws Exception {
+        LaneProperties properties = new LaneProperties();
+        properties.setInteractiveBusyThreshold(1);
+        properties.setMaxYield(Duration.ofMillis(200));
+        lanes = lanes(properties);
+
+        long idle = lanes.batch(this::timedYield).get(5, TimeUnit.SECONDS);
+        lanes.interactive(this::blocked);
+        long busy = lanes.batch(this::timedYield).get(5, TimeUnit.SECONDS);
+        long outsideLane = timedYield();
+
+        assertThat(idle).isLessThan(50);
+        assertThat(busy).isBetween(200L, 2_000L);
+        assertThat(outsideLane).isLessThan(50);
+    }
+
+    private ImportLanes lanes(LaneProperties properties) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("registry", registry);
+        return new ImportLanes(properties, beans.getBeanProvider(MeterRegistry.class), 10);
+    }
+
+    private Object blocked() {
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private long timedYield() {
+        long start = System.nanoTime();
+        lanes.yieldToInteractive();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
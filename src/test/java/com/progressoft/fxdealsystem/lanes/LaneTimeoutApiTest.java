@@ -0,0 +1,97 @@
+package com.progressoft.fxdealsystem.lanes;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:lanetimeoutdb;DB_CLOSE_DELAY=-1",
+                "spring.mvc.async.request-timeout=300ms", "fx.lanes.interactive.timeout=300ms",
+                "fx.lanes.batch.timeout=0"})
+@ActiveProfiles("test")
+class LaneTimeoutApiTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/deals";
+        // chaque insertion prend 2 s : un import lent (Tomcat vérifie les délais chaque seconde)
+        jdbcTemplate.execute("CREATE TRIGGER IF NOT EXISTS slow_insert BEFORE INSERT ON deals FOR EACH ROW CALL '"
+                + SlowInsert.class.getName() + "'");
+    }
+
+    @Test
+    @DisplayName("A bulk slower than the async request timeout still gets its responses")
+    void testSlowBulkNotTimedOut() {
+        List<DealRequest> deals = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            deals.add(new DealRequest("SLOW_BULK_" + i, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN));
+        }
+
+        long start = System.nanoTime();
+        given().contentType(ContentType.JSON)
+                .body(deals)
+                .when().post("/bulk")
+                .then()
+                .statusCode(201)
+                .body("status", equalTo(List.of("SUCCESS", "SUCCESS")));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThan(2_000);
+    }
+
+    @Test
+    @DisplayName("A single deal past the interactive timeout gets 503 while its import carries on")
+    void testSlowSingleDealTimesOut() throws Exception {
+        given().contentType(ContentType.JSON)
+                .body(new DealRequest("SLOW_SINGLE", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN))
+                .when().post()
+                .then()
+                .statusCode(503)
+                .header("Retry-After", equalTo("1"))
+                .body("message", containsString("still running"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (given().when().get("/SLOW_SINGLE").statusCode() != 200 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        given().when().get("/SLOW_SINGLE").then().statusCode(200);
+    }
+
+    public static class SlowInsert implements Trigger {
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.progressoft.fxdealsystem.limit;
+
+import com.progressoft.fxdealsystem.chunking.BulkChunking;
+import com.progressoft.fxdealsystem.chunking.ChunkingProperties;
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import com.progressoft.fxdealsystem.exception.InvalidDealException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionLimitsTest {
+
+    @Test
+    @DisplayName("Token bucket admits a bulk larger than the burst, then makes the client wait it out")
+    void testTokenBucketDebt() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(100, 500, clock::get);
+
+        assertThat(bucket.tryAcquire(2_000)).isZero();
+        // 1 500 deals of debt at 100/s
+        assertThat(bucket.tryAcquire(1)).isEqualTo(15_000_000_000L);
+
+        clock.addAndGet(15_000_000_000L);
+        assertThat(bucket.tryAcquire(1)).isZero();
+        assertThat(bucket.isFull()).isFalse();
+
+        clock.addAndGet(60_000_000_000L);
+        assertThat(bucket.isFull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Concurrency limit grows at stable latency and shrinks when latency rises")
+    void testGradient() {
+        LimitProperties.Concurrency settings = new LimitProperties.Concurrency();
+        settings.setInitialLimit(100);
+        settings.setMinLimit(10);
+        settings.setMaxLimit(1_000);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(settings);
+
+        for (int i = 0; i < 20; i++) {
+            saturateAndSample(limit, 1_000_000);
+        }
+        int grown = limit.getLimit();
+        assertThat(grown).isGreaterThan(100);
+
+        for (int i = 0; i < 20; i++) {
+            saturateAndSample(limit, 10_000_000);
+        }
+        assertThat(limit.getLimit()).isLessThan(grown);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("A request alone is admitted whatever its weight, others must fit under the limit")
+    void testWeights() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new LimitProperties.Concurrency());
+
+        assertThat(limit.tryAcquire(5_000)).isTrue();
+        assertThat(limit.tryAcquire(1)).isFalse();
+        limit.release(5_000);
+        assertThat(limit.tryAcquire(500)).isTrue();
+        assertThat(limit.tryAcquire(1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Clients are keyed by remote address, a 503 refunds the rate tokens, new clients past max-clients share a bucket")
+    void testImportLimiterClients() {
+        LimitProperties properties = new LimitProperties();
+        properties.setDealsPerSecond(0.001);
+        properties.setBurst(10);
+        properties.setMaxClients(2);
+        properties.getConcurrency().setInitialLimit(100);
+        StaticListableBeanFactory none = new StaticListableBeanFactory();
+        BulkChunking chunking = new BulkChunking(new ChunkingProperties(), none.getBeanProvider(MeterRegistry.class), false, 4);
+        ImportLimiter limiter = new ImportLimiter(properties, chunking, none.getBeanProvider(MeterRegistry.class));
+        try {
+            limiter.acquire(request("10.0.0.1", "id-1"), 20).close();
+            // changer d'en-tête ne remet pas le compteur à zéro
+            assertThat(status(() -> limiter.acquire(request("10.0.0.1", "id-2"), 1))).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+            ImportLimiter.Permit bulk = limiter.acquire(request("10.0.0.2", null), 100_000);
+            assertThat(status(() -> limiter.acquire(request("10.0.0.3", null), 15))).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            bulk.close();
+            limiter.acquire(request("10.0.0.3", null), 15).close();
+
+            // 10.0.0.3 et 10.0.0.4 partagent le seau de débordement, maintenant en dette
+            assertThat(status(() -> limiter.acquire(request("10.0.0.4", null), 1))).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        } finally {
+            chunking.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Admission before the body is read charges nothing and refuses what acquire would refuse")
+    void testImportLimiterAdmit() {
+        LimitProperties properties = new LimitProperties();
+        properties.setDealsPerSecond(0.001);
+        properties.setBurst(10);
+        properties.getConcurrency().setInitialLimit(100);
+        StaticListableBeanFactory none = new StaticListableBeanFactory();
+        BulkChunking chunking = new BulkChunking(new ChunkingProperties(), none.getBeanProvider(MeterRegistry.class), false, 4);
+        ImportLimiter limiter = new ImportLimiter(properties, chunking, none.getBeanProvider(MeterRegistry.class));
+        try {
+            // admit ne consomme aucun jeton
+            for (int i = 0; i < 20; i++) {
+                limiter.admit(request("10.0.0.1", null));
+            }
+            limiter.acquire(request("10.0.0.1", null), 20).close();
+            assertThat(status(() -> limiter.admit(request("10.0.0.1", null)))).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+            ImportLimiter.Permit bulk = limiter.acquire(request("10.0.0.2", null), 100_000);
+            assertThat(status(() -> limiter.admit(request("10.0.0.3", null)))).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            bulk.close();
+            limiter.admit(request("10.0.0.3", null));
+        } finally {
+            chunking.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Validation rejections and full lanes free their deals without a latency sample; a full lane refunds the rate tokens")
+    void testPermitFailures() {
+        LimitProperties properties = new LimitProperties();
+        properties.setDealsPerSecond(0.001);
+        properties.setBurst(10);
+        properties.getConcurrency().setInitialLimit(100);
+        StaticListableBeanFactory none = new StaticListableBeanFactory();
+        BulkChunking chunking = new BulkChunking(new ChunkingProperties(), none.getBeanProvider(MeterRegistry.class), false, 4);
+        ImportLimiter limiter = new ImportLimiter(properties, chunking, none.getBeanProvider(MeterRegistry.class));
+        AdaptiveConcurrencyLimit concurrency = limiter.getConcurrency();
+        try {
+            // couloir plein : ni échantillon ni jetons consommés, le client peut recommencer
+            for (int i = 0; i < 3; i++) {
+                limiter.acquire(request("10.0.0.1", null), 10)
+                        .fail(new ImportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 1, "The batch import lane is full"));
+            }
+            limiter.acquire(request("10.0.0.2", null), 11).fail(new InvalidDealException("Deal amount must be positive"));
+            assertThat(concurrency.getInFlight()).isZero();
+            assertThat(concurrency.drainNanos()).isZero();
+
+            limiter.acquire(request("10.0.0.1", null), 10).close();
+            assertThat(concurrency.getInFlight()).isZero();
+            assertThat(concurrency.drainNanos()).isPositive();
+            // la validation a bien consommé ses jetons
+            assertThat(status(() -> limiter.acquire(request("10.0.0.2", null), 1))).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        } finally {
+            chunking.destroy();
+        }
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+
+    private static HttpStatus status(Runnable call) {
+        try {
+            call.run();
+        } catch (ImportRejectedException ex) {
+            return ex.getStatus();
+        }
+        return HttpStatus.OK;
+    }
+
+    private static void saturateAndSample(AdaptiveConcurrencyLimit limit, long rtt) {
+        long weight = limit.getLimit();
+        assertThat(limit.tryAcquire(weight)).isTrue();
+        limit.release(weight, rtt);
+    }
+}
@@ -0,0 +1,64 @@
+package com.progressoft.fxdealsystem.limit;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"fx.limits.enabled=true", "fx.limits.deals-per-second=1", "fx.limits.burst=5",
+                "fx.limits.client-header=X-Client-Id"})
+@ActiveProfiles("test")
+class ImportLimiterApiTest {
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/deals";
+    }
+
+    @Test
+    @DisplayName("A client over its deal rate gets 429 with Retry-After; other clients are unaffected")
+    void testRateLimitedPerClient() {
+        List<DealRequest> bulk = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bulk.add(deal("LIMIT_BULK_" + i));
+        }
+
+        given().header("X-Client-Id", "flooder").contentType(ContentType.JSON).body(bulk)
+                .when().post("/bulk")
+                .then().statusCode(201);
+
+        given().header("X-Client-Id", "flooder").contentType(ContentType.JSON).body(deal("LIMIT_SINGLE_1"))
+                .when().post()
+                .then()
+                .statusCode(429)
+                .header("Retry-After", notNullValue())
+                .body("error", equalTo("Too Many Requests"));
+
+        given().header("X-Client-Id", "well-behaved").contentType(ContentType.JSON).body(deal("LIMIT_SINGLE_2"))
+                .when().post()
+                .then().statusCode(201);
+    }
+
+    private static DealRequest deal(String id) {
+        return new DealRequest(id, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,45 @@
+package com.progressoft.fxdealsystem.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("sampled-log-test");
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(events);
+    }
+
+    @Test
+    @DisplayName("Lines beyond the rate are dropped and counted on the next line that gets through")
+    void testSuppression() throws InterruptedException {
+        events.start();
+        logger.addAppender(events);
+        SampledLog log = new SampledLog(logger, 5);
+
+        // stay within one second window
+        long second = System.nanoTime() / 1_000_000_000L;
+        while (System.nanoTime() / 1_000_000_000L == second) {
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < 1_000; i++) {
+            log.warn("Invalid deal {}", i);
+        }
+        assertThat(events.list).hasSize(5);
+
+        Thread.sleep(1_100);
+        log.warn("Invalid deal {}", "late");
+        assertThat(events.list).hasSize(6);
+        assertThat(events.list.get(5).getFormattedMessage()).isEqualTo("Invalid deal late (+995 similar suppressed)");
+    }
+}
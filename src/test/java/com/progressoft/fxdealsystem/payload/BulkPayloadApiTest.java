@@ -0,0 +1,275 @@
+package com.progressoft.fxdealsystem.payload;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.exception.ImportRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import io.restassured.config.EncoderConfig;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:payloaddb;DB_CLOSE_DELAY=-1",
+                "fx.bulk.payload.max-bytes=64KB", "fx.bulk.payload.max-deals=100",
+                "fx.bulk.payload.spill-threshold=2KB", "fx.bulk.payload.slice-deals=7",
+                "fx.bulk.payload.max-buffered=3KB"})
+@ActiveProfiles("test")
+class BulkPayloadApiTest {
+
+    private static final Path SPILL = createSpillDirectory();
+
+    @DynamicPropertySource
+    static void spillDirectory(DynamicPropertyRegistry registry) {
+        registry.add("fx.bulk.payload.spill-directory", SPILL::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BulkPayloads bulkPayloads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/deals";
+    }
+
+    @Test
+    @DisplayName("A body over the spill threshold is imported from disk, slice by slice, responses in order")
+    void testSpilledBulk() throws Exception {
+        double spilledBefore = meterRegistry.get("fx.bulk.payload.spilled").counter().count();
+        List<DealRequest> deals = deals("SPILL_", 40);
+        // doublon dans une autre tranche, et une ligne invalide
+        deals.set(20, deals("SPILL_", 4).get(3));
+        deals.get(30).setDealAmount(BigDecimal.ZERO);
+
+        List<Map<String, Object>> responses = given().contentType(ContentType.JSON)
+                .body(deals)
+                .when().post("/bulk")
+                .then()
+                .statusCode(201)
+                .contentType(ContentType.JSON)
+                .extract().jsonPath().getList("$");
+
+        assertThat(responses).hasSize(40);
+        for (int i = 0; i < 40; i++) {
+            assertThat(responses.get(i).get("dealUniqueId")).isEqualTo(deals.get(i).getDealUniqueId());
+            assertThat(responses.get(i).get("status")).as("deal %d", i).isEqualTo(i == 20 || i == 30 ? "FAILED" : "SUCCESS");
+        }
+        assertThat(responses.get(20).get("message").toString()).endsWith("already exists");
+        assertThat(meterRegistry.get("fx.bulk.payload.spilled").counter().count()).isEqualTo(spilledBefore + 1);
+        assertThat(meterRegistry.get("fx.bulk.payload.allocated").summary().count()).isPositive();
+        assertSpillDirectoryEmpty();
+        assertThat(meterRegistry.get("fx.bulk.payload.in-flight").gauge().value()).isZero();
+        assertThat(meterRegistry.get("fx.bulk.payload.buffered").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("A spilled CBOR body is answered in the format of the request")
+    void testSpilledCborBulk() throws Exception {
+        CBORMapper cbor = new CBORMapper();
+        List<Map<String, Object>> deals = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            deals.add(cborDeal("SPILL_CBOR_" + i));
+        }
+
+        byte[] result = given()
+                .config(RestAssured.config().encoderConfig(
+                        EncoderConfig.encoderConfig().appendDefaultContentCharsetToContentTypeIfUndefined(false)))
+                .contentType("application/cbor")
+                .body(cbor.writeValueAsBytes(deals))
+                .when().post("/bulk")
+                .then()
+                .statusCode(201)
+                .contentType("application/cbor")
+                .extract().asByteArray();
+
+        List<Map<String, Object>> responses = cbor.readValue(result, new TypeReference<>() {});
+        assertThat(responses).hasSize(30).allSatisfy(r -> assertThat(r.get("status")).isEqualTo("SUCCESS"));
+        assertThat(responses.get(29).get("dealUniqueId")).isEqualTo("SPILL_CBOR_29");
+    }
+
+    @Test
+    @DisplayName("Bodies over max-bytes or max-deals are refused with 413 and import nothing")
+    void testLimits() throws Exception {
+        double bytesBefore = meterRegistry.get("fx.bulk.payload.rejections").tag("reason", "bytes").counter().count();
+        double dealsBefore = meterRegistry.get("fx.bulk.payload.rejections").tag("reason", "deals").counter().count();
+
+        // Content-Length au-delà de max-bytes : refusé avant lecture
+        given().contentType(ContentType.JSON)
+                .body(deals("BIG_", 600))
+                .when().post("/bulk")
+                .then()
+                .statusCode(413)
+                .body("message", containsString("at most 65536 accepted"));
+
+        // gzip : pas de Content-Length, coupé à la lecture
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(RestAssured.config().getObjectMapperConfig().jackson2ObjectMapperFactory()
+                    .create(List.class, StandardCharsets.UTF_8.name()).writeValueAsBytes(deals("GZIP_", 600)));
+        }
+        given().contentType(ContentType.JSON)
+                .header("Content-Encoding", "gzip")
+                .body(compressed.toByteArray())
+                .when().post("/bulk")
+                .then()
+                .statusCode(413);
+
+        given().contentType(ContentType.JSON)
+                .body(deals("MANY_", 101))
+                .when().post("/bulk")
+                .then()
+                .statusCode(413)
+                .body("message", containsString("More than 100 deals"));
+
+        assertThat(meterRegistry.get("fx.bulk.payload.rejections").tag("reason", "bytes").counter().count())
+                .isEqualTo(bytesBefore + 2);
+        assertThat(meterRegistry.get("fx.bulk.payload.rejections").tag("reason", "deals").counter().count())
+                .isEqualTo(dealsBefore + 1);
+        for (String id : List.of("BIG_0", "GZIP_0", "MANY_0")) {
+            assertNotImported(id);
+        }
+        assertSpillDirectoryEmpty();
+    }
+
+    @Test
+    @DisplayName("A body whose Content-Length does not fit in max-buffered is refused with 503 before it is read")
+    void testBufferedBudget() throws Exception {
+        double before = meterRegistry.get("fx.bulk.payload.rejections").tag("reason", "buffered").counter().count();
+        byte[] body = objectMapper.writeValueAsBytes(deals("BUDGET_", 13));
+        assertThat(body.length).isBetween(1537, 2048);
+
+        try (BulkPayload held = bulkPayloads.read(bulkRequest(body))) {
+            assertThat(held.isSpilled()).isFalse();
+            assertThat(meterRegistry.get("fx.bulk.payload.buffered").gauge().value()).isEqualTo(body.length);
+
+            MockHttpServletRequest second = bulkRequest(body);
+            assertThatThrownBy(() -> bulkPayloads.read(second))
+                    .isInstanceOfSatisfying(ImportRejectedException.class,
+                            ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+            // corps non lu
+            assertThat(second.getInputStream().available()).isEqualTo(body.length);
+            // au-delà du seuil, écrit sur disque : hors budget
+            byte[] large = objectMapper.writeValueAsBytes(deals("BUDGET_LARGE_", 30));
+            try (BulkPayload spilled = bulkPayloads.read(bulkRequest(large))) {
+                assertThat(spilled.isSpilled()).isTrue();
+            }
+        }
+        assertThat(meterRegistry.get("fx.bulk.payload.buffered").gauge().value()).isZero();
+        assertThat(meterRegistry.get("fx.bulk.payload.rejections").tag("reason", "buffered").counter().count())
+                .isEqualTo(before + 1);
+        assertSpillDirectoryEmpty();
+    }
+
+    @Test
+    @DisplayName("A malformed spilled body is refused with 400 before any deal is imported")
+    void testMalformedSpilledBody() throws Exception {
+        String json = RestAssured.config().getObjectMapperConfig().jackson2ObjectMapperFactory()
+                .create(List.class, StandardCharsets.UTF_8.name()).writeValueAsString(deals("TRUNCATED_", 30));
+
+        given().contentType(ContentType.JSON)
+                .body(json.substring(0, json.length() - 40))
+                .when().post("/bulk")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("Malformed bulk body"));
+
+        assertNotImported("TRUNCATED_0");
+        assertSpillDirectoryEmpty();
+    }
+
+    private static MockHttpServletRequest bulkRequest(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/deals/bulk");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body);
+        return request;
+    }
+
+    private static void assertNotImported(String dealUniqueId) {
+        given().when().get("/" + dealUniqueId).then().body("message", containsString("not found"));
+    }
+
+    private static void assertSpillDirectoryEmpty() throws Exception {
+        // le fichier des réponses est supprimé une fois envoyé, juste après la réponse
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try (Stream<Path> files = Files.list(SPILL)) {
+                List<Path> left = files.toList();
+                if (left.isEmpty() || System.currentTimeMillis() > deadline) {
+                    assertThat(left).isEmpty();
+                    return;
+                }
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<DealRequest> deals(String prefix, int count) {
+        List<DealRequest> deals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            deals.add(new DealRequest(prefix + i, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30),
+                    new BigDecimal("1000.50")));
+        }
+        return deals;
+    }
+
+    private static Map<String, Object> cborDeal(String id) {
+        Map<String, Object> deal = new HashMap<>();
+        deal.put("dealUniqueId", id);
+        deal.put("fromCurrencyIsoCode", "USD");
+        deal.put("toCurrencyIsoCode", "EUR");
+        deal.put("dealTimestamp", List.of(2024, 1, 15, 10, 30, 0));
+        deal.put("dealAmount", new BigDecimal("250.75"));
+        return deal;
+    }
+
+    private static Path createSpillDirectory() {
+        try {
+            return Files.createTempDirectory("fx-bulk-spill");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
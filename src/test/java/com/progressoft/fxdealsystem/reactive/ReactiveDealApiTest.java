@@ -0,0 +1,100 @@
+package com.progressoft.fxdealsystem.reactive;
+
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivedb;DB_CLOSE_DELAY=-1",
+        "fx.reactive.url=r2dbc:h2:mem:///reactivedb?options=DB_CLOSE_DELAY=-1",
+        "fx.reactive.username=sa",
+        "fx.reactive.password=",
+        "fx.reactive.chunk-size=2"
+})
+@ActiveProfiles({"test", "reactive"})
+class ReactiveDealApiTest {
+
+    private static final String DEAL = """
+            {"dealUniqueId":"%s","fromCurrencyIsoCode":"%s","toCurrencyIsoCode":"EUR",
+             "dealTimestamp":"2024-01-15T10:30:00","dealAmount":1000.50}
+            """;
+
+    @Autowired
+    private WebTestClient client;
+
+    @Test
+    @DisplayName("Single import, duplicate and lookup through the reactive stack")
+    void testSingleImport() {
+        client.post().uri("/api/deals").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(DEAL.formatted("RX_001", "usd"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("SUCCESS")
+                .jsonPath("$.id").isNotEmpty();
+
+        client.post().uri("/api/deals").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(DEAL.formatted("RX_001", "USD"))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        client.get().uri("/api/deals/RX_001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.fromCurrencyIsoCode").isEqualTo("USD")
+                .jsonPath("$.dealAmount").isEqualTo(1000.5);
+
+        client.get().uri("/api/deals/RX_404")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Validation errors keep the servlet error format")
+    void testValidationError() {
+        client.post().uri("/api/deals").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"dealUniqueId\":\"RX_BAD\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Invalid Deal")
+                .jsonPath("$.message").isEqualTo("From currency ISO code is required");
+    }
+
+    @Test
+    @DisplayName("NDJSON bulk import: results in request order across chunks")
+    void testBulkImportNdjson() {
+        String body = String.join("\n",
+                DEAL.formatted("RX_B1", "USD").replace("\n", ""),
+                DEAL.formatted("RX_B2", "XXX").replace("\n", ""),
+                DEAL.formatted("RX_B3", "GBP").replace("\n", ""),
+                DEAL.formatted("RX_B1", "GBP").replace("\n", ""),
+                DEAL.formatted("RX_B5", "JPY").replace("\n", ""));
+
+        List<DealResponse> responses = client.post().uri("/api/deals/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBodyList(DealResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(responses).extracting(DealResponse::getDealUniqueId)
+                .containsExactly("RX_B1", "RX_B2", "RX_B3", "RX_B1", "RX_B5");
+        assertThat(responses).extracting(DealResponse::getStatus)
+                .containsExactly("SUCCESS", "FAILED", "SUCCESS", "FAILED", "SUCCESS");
+        assertThat(responses.get(3).getMessage()).contains("already exists");
+    }
+}
@@ -0,0 +1,55 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReconcileJobTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("A file much larger than the table is split into ranges of about rangeSize deals")
+    void testRepartitionOversizedRanges() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        // table de 3 deals : une seule borne, le fichier tombe presque entier dans le dernier intervalle
+        try (ReconcileJob job = new ReconcileJob(List.of("D00002"), directory, () -> closed.set(true))) {
+            for (int i = 0; i < 10_000; i++) {
+                job.add(new ReconcileDeal("D%05d".formatted(i), "USD", "EUR",
+                        LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN));
+            }
+            job.finishWriting();
+
+            int added = job.repartition(500);
+
+            assertThat(added).isGreaterThanOrEqualTo(15);
+            assertThat(job.ranges()).isEqualTo(2 + added);
+            long total = 0;
+            for (int range = 0; range < job.ranges(); range++) {
+                int r = range;
+                List<String> ids = new ArrayList<>();
+                job.forEach(range, deal -> ids.add(deal.dealUniqueId()));
+                assertThat(ids).hasSizeLessThanOrEqualTo(3 * 500);
+                assertThat(ids).allSatisfy(id -> assertThat(job.rangeOf(id)).isEqualTo(r));
+                total += ids.size();
+            }
+            assertThat(total).isEqualTo(10_000);
+            assertThat(job.repartition(3 * 500)).isZero();
+        }
+        assertThat(closed).isTrue();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
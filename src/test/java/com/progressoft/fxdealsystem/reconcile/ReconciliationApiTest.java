@@ -0,0 +1,119 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciledb;DB_CLOSE_DELAY=-1",
+        "fx.reconcile.range-size=2",
+        "fx.reconcile.parallelism=2",
+        "fx.reconcile.page-size=1"})
+@ActiveProfiles("test")
+class ReconciliationApiTest {
+
+    private static final String STORED = """
+            [
+              {"dealUniqueId": "R01", "fromCurrencyIsoCode": "USD", "toCurrencyIsoCode": "EUR", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 1000.5},
+              {"dealUniqueId": "R02", "fromCurrencyIsoCode": "USD", "toCurrencyIsoCode": "EUR", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 200},
+              {"dealUniqueId": "R03", "fromCurrencyIsoCode": "GBP", "toCurrencyIsoCode": "JPY", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 300},
+              {"dealUniqueId": "R04", "fromCurrencyIsoCode": "GBP", "toCurrencyIsoCode": "JPY", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 400},
+              {"dealUniqueId": "R05", "fromCurrencyIsoCode": "EUR", "toCurrencyIsoCode": "CHF", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 500}
+            ]
+            """;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/deals";
+        if (given().when().get("/R01").statusCode() != 200) {
+            given().contentType(ContentType.JSON).body(STORED).when().post("/bulk").then().statusCode(201);
+        }
+    }
+
+    @Test
+    @DisplayName("A JSON file is diffed range by range: matches, mismatches, duplicates, missing and extra deals")
+    void testReconcileJson() {
+        String file = """
+                [
+                  {"dealUniqueId": "R01", "fromCurrencyIsoCode": "usd", "toCurrencyIsoCode": "EUR", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 1000.5000},
+                  {"dealUniqueId": "R02", "fromCurrencyIsoCode": "USD", "toCurrencyIsoCode": "EUR", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 250},
+                  {"dealUniqueId": "R03", "fromCurrencyIsoCode": "GBP", "toCurrencyIsoCode": "JPY", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 300},
+                  {"dealUniqueId": "R03", "fromCurrencyIsoCode": "GBP", "toCurrencyIsoCode": "JPY", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 300},
+                  {"dealUniqueId": "R09", "fromCurrencyIsoCode": "EUR", "toCurrencyIsoCode": "CHF", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 900}
+                ]
+                """;
+
+        var response = given().contentType(ContentType.JSON).body(file)
+                .when().post("/reconcile")
+                .then()
+                .statusCode(200)
+                .body("summary.fileDeals", equalTo(5))
+                .body("summary.storedDeals", equalTo(5))
+                .body("summary.matched", equalTo(2))
+                .body("summary.mismatched", equalTo(1))
+                .body("summary.missing", equalTo(1))
+                .body("summary.extra", equalTo(2))
+                .body("summary.duplicates", equalTo(1))
+                // R02..R04 holds three file deals: split at R03
+                .body("summary.ranges", equalTo(4))
+                .extract().jsonPath();
+
+        List<Map<String, Object>> differences = response.getList("differences");
+        assertThat(differences).extracting(d -> d.get("type") + ":" + d.get("dealUniqueId"))
+                .containsExactlyInAnyOrder("MISMATCH:R02", "DUPLICATE:R03", "MISSING:R09", "EXTRA:R04", "EXTRA:R05");
+        assertThat(differences).filteredOn(d -> d.get("type").equals("MISMATCH"))
+                .extracting(d -> d.get("fields")).containsExactly(List.of("dealAmount"));
+    }
+
+    @Test
+    @DisplayName("A CSV file with a header line is reconciled the same way")
+    void testReconcileCsv() {
+        String file = """
+                dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount
+                R01,USD,EUR,2024-01-15T10:30:00,1000.5
+                R02,USD,EUR,2024-01-15T10:30:00,200
+                R03,GBP,JPY,2024-01-15T10:30:00,300
+                R04,GBP,JPY,2024-01-15T11:00:00,400
+                R05,EUR,CHF,2024-01-15T10:30:00,500
+                """;
+
+        given().contentType("text/csv").body(file)
+                .when().post("/reconcile")
+                .then()
+                .statusCode(200)
+                .body("summary.matched", equalTo(4))
+                .body("summary.mismatched", equalTo(1))
+                .body("summary.missing", equalTo(0))
+                .body("summary.extra", equalTo(0))
+                .body("differences[0].type", equalTo("MISMATCH"))
+                .body("differences[0].dealUniqueId", equalTo("R04"))
+                .body("differences[0].fields[0]", equalTo("dealTimestamp"));
+    }
+
+    @Test
+    @DisplayName("A malformed file is rejected with 400 before anything is streamed")
+    void testMalformedFile() {
+        given().contentType("text/csv").body("R01,USD,EUR,not-a-date,10\n")
+                .when().post("/reconcile")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("Line 1"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.progressoft.fxdealsystem.reconcile;
+
+import com.progressoft.fxdealsystem.sharding.ShardKeys;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "fx.sharding.enabled=true",
+        "fx.sharding.shards[0].url=jdbc:h2:mem:reconcileshard0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "fx.sharding.shards[0].username=sa",
+        "fx.sharding.shards[1].url=jdbc:h2:mem:reconcileshard1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "fx.sharding.shards[1].username=sa",
+        "fx.sharding.shards[2].url=jdbc:h2:mem:reconcileshard2;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "fx.sharding.shards[2].username=sa",
+        "fx.reconcile.range-size=2",
+        "fx.reconcile.parallelism=2",
+        "fx.reconcile.page-size=1"})
+@ActiveProfiles("test")
+class ShardedReconciliationApiTest {
+
+    private static final String STORED = """
+            [
+              {"dealUniqueId": "S01", "fromCurrencyIsoCode": "USD", "toCurrencyIsoCode": "EUR", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 100},
+              {"dealUniqueId": "S02", "fromCurrencyIsoCode": "USD", "toCurrencyIsoCode": "EUR", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 200},
+              {"dealUniqueId": "S03", "fromCurrencyIsoCode": "GBP", "toCurrencyIsoCode": "JPY", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 300},
+              {"dealUniqueId": "S04", "fromCurrencyIsoCode": "GBP", "toCurrencyIsoCode": "JPY", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 400},
+              {"dealUniqueId": "S05", "fromCurrencyIsoCode": "EUR", "toCurrencyIsoCode": "CHF", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 500},
+              {"dealUniqueId": "S06", "fromCurrencyIsoCode": "EUR", "toCurrencyIsoCode": "CHF", "dealTimestamp": "2024-01-15T10:30:00", "dealAmount": 600}
+            ]
+            """;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/deals";
+        if (given().when().get("/S01").statusCode() != 200) {
+            given().contentType(ContentType.JSON).body(STORED).when().post("/bulk").then().statusCode(201);
+        }
+    }
+
+    @Test
+    @DisplayName("When sharded, each shard is joined against the file deals that hash to it")
+    void testReconcileEveryShard() {
+        // The stored deals span several shards: a join against shard 0 alone would miss some
+        assertThat(Stream.of("S01", "S02", "S03", "S04", "S05", "S06").map(id -> ShardKeys.shardOf(id, 3)).distinct())
+                .hasSizeGreaterThan(1);
+
+        String file = """
+                dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount
+                S01,USD,EUR,2024-01-15T10:30:00,100
+                S02,USD,EUR,2024-01-15T10:30:00,250
+                S03,GBP,JPY,2024-01-15T10:30:00,300
+                S04,GBP,JPY,2024-01-15T10:30:00,400
+                S05,EUR,CHF,2024-01-15T10:30:00,500
+                S09,EUR,CHF,2024-01-15T10:30:00,900
+                """;
+
+        var response = given().contentType("text/csv").body(file)
+                .when().post("/reconcile")
+                .then()
+                .statusCode(200)
+                .body("summary.fileDeals", equalTo(6))
+                .body("summary.storedDeals", equalTo(6))
+                .body("summary.matched", equalTo(4))
+                .body("summary.mismatched", equalTo(1))
+                .body("summary.missing", equalTo(1))
+                .body("summary.extra", equalTo(1))
+                .extract().jsonPath();
+
+        List<Map<String, Object>> differences = response.getList("differences");
+        assertThat(differences).extracting(d -> d.get("type") + ":" + d.get("dealUniqueId"))
+                .containsExactlyInAnyOrder("MISMATCH:S02", "MISSING:S09", "EXTRA:S06");
+    }
+}
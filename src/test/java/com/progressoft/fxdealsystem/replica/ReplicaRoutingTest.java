@@ -0,0 +1,92 @@
+package com.progressoft.fxdealsystem.replica;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.service.DealService;
+import com.progressoft.fxdealsystem.sharding.ShardingConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "fx.replicas.nodes[1].url=" + ReplicaRoutingTest.REPLICA_URL,
+        "spring.datasource.url=jdbc:h2:mem:primarydb;DB_CLOSE_DELAY=-1",
+        "fx.replicas.enabled=true",
+        // first replica is down: it must be skipped, not fail the reads
+        "fx.replicas.nodes[0].url=jdbc:h2:mem:missingreplica;IFEXISTS=TRUE",
+        "fx.replicas.nodes[0].username=sa",
+        "fx.replicas.nodes[1].username=sa"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:replicadb;MODE=MySQL;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:db/deals-schema.sql'";
+
+    @Autowired
+    private DealService dealService;
+
+    @Test
+    @DisplayName("Reads go to the healthy replica, a just-imported deal is read from the primary")
+    void testReadsRoutedToReplica() throws Exception {
+        // only the replica has this one
+        try (Connection c = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+            c.createStatement().executeUpdate("INSERT INTO deals (deal_unique_id, from_currency_iso_code, "
+                    + "to_currency_iso_code, deal_timestamp, deal_amount, created_at) VALUES "
+                    + "('REPLICA_ONLY', 'USD', 'EUR', TIMESTAMP '2024-01-15 10:30:00', 10, TIMESTAMP '2024-01-15 10:30:00')");
+        }
+        // only the primary has this one (no replication in the test)
+        DealResponse imported = dealService.importDeal(new DealRequest("PRIMARY_ONLY", "USD", "EUR",
+                LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("20.00")));
+        assertThat(imported.getStatus()).isEqualTo("SUCCESS");
+
+        assertThat(dealService.getDealByUniqueId("REPLICA_ONLY").getDealUniqueId()).isEqualTo("REPLICA_ONLY");
+        assertThat(dealService.getAllDeals()).extracting(DealResponse::getDealUniqueId)
+                .contains("REPLICA_ONLY")
+                .doesNotContain("PRIMARY_ONLY");
+
+        // read-your-writes
+        assertThat(dealService.getDealByUniqueId("PRIMARY_ONLY").getDealUniqueId()).isEqualTo("PRIMARY_ONLY");
+    }
+
+    @Test
+    @DisplayName("Duplicate checks of single and bulk imports read the primary, not a lagging replica")
+    void testDedupReadsPrimary() throws Exception {
+        // sur le réplica seulement : un contrôle lu sur le réplica y verrait un doublon
+        try (Connection c = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+            for (String id : new String[]{"DEDUP_SINGLE", "DEDUP_BULK"}) {
+                c.createStatement().executeUpdate("INSERT INTO deals (deal_unique_id, from_currency_iso_code, "
+                        + "to_currency_iso_code, deal_timestamp, deal_amount, created_at) VALUES ('" + id + "', 'USD', "
+                        + "'EUR', TIMESTAMP '2024-01-15 10:30:00', 10, TIMESTAMP '2024-01-15 10:30:00')");
+            }
+        }
+
+        assertThat(dealService.importDeal(new DealRequest("DEDUP_SINGLE", "USD", "EUR",
+                LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("20.00"))).getStatus()).isEqualTo("SUCCESS");
+        assertThat(dealService.importDeals(List.of(new DealRequest("DEDUP_BULK", "USD", "EUR",
+                LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("20.00")))))
+                .extracting(DealResponse::getStatus).containsExactly("SUCCESS");
+    }
+
+    @Test
+    @DisplayName("Replicas with sharding fail at startup with a clear message")
+    void testReplicasWithSharding() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(ReplicaConfig.class, ShardingConfig.class)
+                .withPropertyValues("fx.replicas.enabled=true", "fx.sharding.enabled=true")
+                .run(context -> assertThat(context).getFailure()
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessageContaining("cannot be combined with fx.sharding.enabled=true"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.progressoft.fxdealsystem.repository;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.service.DealService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "fx.writer=jdbc")
+@ActiveProfiles("test")
+class JdbcDealWriterTest {
+
+    @Autowired
+    private DealWriter dealWriter;
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Test
+    @DisplayName("Bulk import through the JDBC writer: ids returned, duplicates in the batch fail alone")
+    void testBulkImportWithJdbcWriter() {
+        assertThat(dealWriter).isInstanceOf(JdbcDealWriter.class);
+
+        LocalDateTime ts = LocalDateTime.of(2024, 1, 15, 10, 30);
+        List<DealResponse> responses = dealService.importDeals(List.of(
+                new DealRequest("JDBC_001", "usd", "EUR", ts, new BigDecimal("10.50")),
+                new DealRequest("JDBC_002", "GBP", "JPY", ts, new BigDecimal("20")),
+                new DealRequest("JDBC_001", "USD", "CHF", ts, new BigDecimal("30"))));
+
+        assertThat(responses).extracting(DealResponse::getStatus).containsExactly("SUCCESS", "SUCCESS", "FAILED");
+        assertThat(responses.get(0).getId()).isNotNull();
+        assertThat(responses.get(0).getCreatedAt()).isNotNull();
+        assertThat(responses.get(2).getMessage()).contains("already exists");
+
+        var stored = dealRepository.findByDealUniqueId("JDBC_001").orElseThrow();
+        assertThat(stored.getId()).isEqualTo(responses.get(0).getId());
+        assertThat(stored.getFromCurrencyIsoCode()).isEqualTo("USD");
+        assertThat(stored.getDealAmount()).isEqualByComparingTo("10.50");
+        assertThat(stored.getDealTimestamp()).isEqualTo(ts);
+    }
+
+    @Test
+    @DisplayName("Fewer generated keys than inserted rows fail the chunk instead of answering id 0")
+    void testMissingGeneratedKeys() throws Exception {
+        ResultSet keys = mock(ResultSet.class);
+        when(keys.next()).thenReturn(true, false);
+        when(keys.getLong(1)).thenReturn(41L);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.getGeneratedKeys()).thenReturn(keys);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(JdbcDealWriter.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)).thenReturn(ps);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+
+        LocalDateTime ts = LocalDateTime.of(2024, 1, 15, 10, 30);
+        DealBatch batch = DealBatch.of(List.of(
+                new DealRequest("KEYS_1", "USD", "EUR", ts, BigDecimal.ONE),
+                new DealRequest("KEYS_2", "USD", "EUR", ts, BigDecimal.TEN)));
+
+        assertThatThrownBy(() -> new JdbcDealWriter(jdbcTemplate).insertBatch(batch, new int[]{0, 1}, ts))
+                .isInstanceOf(JdbcUpdateAffectedIncorrectNumberOfRowsException.class);
+        verify(ps, times(2)).setTimestamp(4, Timestamp.valueOf(ts));
+    }
+}
@@ -0,0 +1,90 @@
+package com.progressoft.fxdealsystem.rules;
+
+import com.progressoft.fxdealsystem.dto.DealBatch;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.exception.InvalidRuleConfigException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DealRulesTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 3, 18, 0);
+
+    @Test
+    @DisplayName("Configured rules reject by pair, notional and cut-off, and count per rule")
+    void testConfiguredRules() {
+        RuleProperties properties = new RuleProperties();
+        properties.setAllowedPairs(List.of("EUR/USD", "USD/JPY"));
+        properties.setMaxNotional(Map.of("EUR/USD", new BigDecimal("1000000")));
+        properties.setCutOff(LocalTime.of(17, 0));
+        Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+        DealRules rules = DealRules.compile(properties, counters);
+
+        DealBatch batch = DealBatch.of(List.of(
+                new DealRequest("OK", "USD", "EUR", NOW.minusHours(1), new BigDecimal("1000000")),
+                new DealRequest("PAIR", "GBP", "USD", NOW.minusHours(1), BigDecimal.TEN),
+                new DealRequest("BIG", "EUR", "USD", NOW.minusHours(1), new BigDecimal("1000000.0001")),
+                new DealRequest("LATE", "JPY", "USD", NOW.minusDays(1), BigDecimal.TEN),
+                new DealRequest("SAME", "USD", "USD", NOW.minusHours(1), BigDecimal.TEN),
+                new DealRequest("WIDE", "EUR", "USD", NOW.minusHours(1), new BigDecimal("999999999999999")),
+                new DealRequest("WIDE_NO_LIMIT", "USD", "JPY", NOW.minusHours(1), new BigDecimal("999999999999999"))));
+        RuleContext context = rules.context(NOW);
+
+        assertThat(rules.check(batch, 0, context)).isNull();
+        assertThat(rules.check(batch, 1, context)).isEqualTo("Currency pair GBP/USD is not allowed");
+        assertThat(rules.check(batch, 2, context))
+                .isEqualTo("Deal amount exceeds the maximum notional of 1000000 for EUR/USD");
+        assertThat(rules.check(batch, 3, context)).isEqualTo("Deal dated 2024-06-02 received after the 17:00 cut-off");
+        assertThat(rules.check(batch, 4, context)).isEqualTo("From and To currencies must be different");
+        assertThat(rules.check(batch, 5, context))
+                .isEqualTo("Deal amount exceeds the maximum notional of 1000000 for EUR/USD");
+        assertThat(rules.check(batch, 6, context)).isNull();
+
+        // before the cut-off, yesterday's deal goes through
+        assertThat(rules.check(batch, 3, rules.context(NOW.withHour(9)))).isNull();
+
+        assertThat(counters.get(DealRules.ALLOWED_PAIRS).sum()).isEqualTo(1);
+        assertThat(counters.get(DealRules.MAX_NOTIONAL).sum()).isEqualTo(2);
+        assertThat(counters.get(DealRules.CUT_OFF).sum()).isEqualTo(1);
+        assertThat(counters.get(DealRules.DISTINCT_CURRENCIES).sum()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Without configuration only the built-in rules run")
+    void testBuiltInOnly() {
+        DealRules rules = DealRules.builtIn();
+
+        assertThat(rules.getRuleNames()).containsExactly(DealRules.MANDATORY_FIELDS, DealRules.CURRENCY_CODES,
+                DealRules.DISTINCT_CURRENCIES, DealRules.POSITIVE_AMOUNT, DealRules.NO_FUTURE_TIMESTAMP);
+        DealBatch batch = DealBatch.of(List.of(
+                new DealRequest("ANY", "GBP", "NOK", NOW.minusYears(1), new BigDecimal("999999999"))));
+        assertThat(rules.check(batch, 0, rules.context(NOW))).isNull();
+    }
+
+    @Test
+    @DisplayName("Unknown pairs and non-positive limits are refused at compile time")
+    void testInvalidConfiguration() {
+        RuleProperties badPair = new RuleProperties();
+        badPair.setAllowedPairs(List.of("EUR/ABC"));
+        assertThatThrownBy(() -> DealRules.compile(badPair, new ConcurrentHashMap<>()))
+                .isInstanceOf(InvalidRuleConfigException.class)
+                .hasMessage("Unknown currency pair: EUR/ABC");
+
+        RuleProperties badLimit = new RuleProperties();
+        badLimit.setMaxNotional(Map.of("EUR/USD", BigDecimal.ZERO));
+        assertThatThrownBy(() -> DealRules.compile(badLimit, new ConcurrentHashMap<>()))
+                .isInstanceOf(InvalidRuleConfigException.class)
+                .hasMessageContaining("must be positive");
+    }
+}
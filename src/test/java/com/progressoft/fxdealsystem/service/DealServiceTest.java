@@ -5,13 +5,21 @@ import com.progressoft.fxdealsystem.exception.DuplicateDealException;
 import com.progressoft.fxdealsystem.exception.InvalidDealException;
 import com.progressoft.fxdealsystem.model.Deal;
 import com.progressoft.fxdealsystem.repository.DealRepository;
+import com.progressoft.fxdealsystem.rules.DealRules;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -161,4 +169,103 @@ class DealServiceTest {
         assertThat(resp.getDealUniqueId()).isEqualTo("D10");
         assertThat(resp.getFromCurrencyIsoCode()).isEqualTo("USD");
     }
+
+    @Test
+    @DisplayName("importDeal - id already being imported on this instance should be rejected without DB access")
+    void testImportDeal_ConcurrentDuplicateRejectedLocally() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("registry", registry);
+        DealIdReservations reservations = new DealIdReservations(beans.getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(dealService, "reservations", reservations);
+        reservations.tryReserve("DEAL006");
+
+        DealRequest request = new DealRequest("DEAL006", "USD", "EUR",
+                LocalDateTime.now(), new BigDecimal("10"));
+
+        assertThatThrownBy(() -> dealService.importDeal(request))
+                .isInstanceOf(DuplicateDealException.class)
+                .hasMessageContaining("Deal with ID DEAL006");
+        verifyNoInteractions(dealRepository);
+        assertThat(registry.get("fx.import.reservations.rejected").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("fx.import.reservations.in-flight").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("importDeals - ids repeated within the bulk fail as duplicates without reaching the repository")
+    void testImportDeals_InBatchDuplicatesCollapsed() {
+        when(dealRepository.existsByDealUniqueId(any())).thenReturn(false);
+        when(dealRepository.save(any(Deal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+        var responses = dealService.importDeals(List.of(
+                new DealRequest("B1", "USD", "EUR", timestamp, new BigDecimal("10")),
+                new DealRequest("B2", "USD", "EUR", timestamp, new BigDecimal("20")),
+                new DealRequest("B1", "USD", "EUR", timestamp, new BigDecimal("30")),
+                new DealRequest("B1", "USD", "JPY", timestamp, new BigDecimal("40")),
+                new DealRequest("B3", "USD", "EUR", timestamp, new BigDecimal("50"))));
+
+        assertThat(responses).extracting("dealUniqueId").containsExactly("B1", "B2", "B1", "B1", "B3");
+        assertThat(responses).extracting("status").containsExactly("SUCCESS", "SUCCESS", "FAILED", "FAILED", "SUCCESS");
+        assertThat(responses.get(2).getMessage()).isEqualTo("Deal with ID B1 already exists");
+        verify(dealRepository, times(1)).existsByDealUniqueId("B1");
+        verify(dealRepository, times(3)).save(any(Deal.class));
+    }
+
+    @Test
+    @DisplayName("importDeals - an invalid first occurrence does not shadow a valid repeat")
+    void testImportDeals_InvalidFirstOccurrenceSkipped() {
+        when(dealRepository.existsByDealUniqueId(any())).thenReturn(false);
+        when(dealRepository.save(any(Deal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+        var responses = dealService.importDeals(List.of(
+                new DealRequest("V1", "USD", "EUR", timestamp, BigDecimal.ZERO),
+                new DealRequest("V1", "USD", "EUR", timestamp, new BigDecimal("10")),
+                new DealRequest("V1", "USD", "EUR", timestamp, new BigDecimal("20")),
+                new DealRequest("V2", "USD", "EUR", timestamp, BigDecimal.ZERO),
+                new DealRequest("V2", "USD", "EUR", timestamp, BigDecimal.ZERO),
+                new DealRequest("V2", "USD", "EUR", timestamp, new BigDecimal("30"))));
+
+        assertThat(responses).extracting("status").containsExactly("FAILED", "SUCCESS", "FAILED", "FAILED", "FAILED", "SUCCESS");
+        assertThat(responses.get(0).getMessage()).isEqualTo("Deal amount must be positive");
+        assertThat(responses.get(2).getMessage()).isEqualTo("Deal with ID V1 already exists");
+        verify(dealRepository, times(2)).save(any(Deal.class));
+        // un seul rejet par ligne invalide, même vérifiée une première fois pour un doublon
+        DealValidator validator = (DealValidator) ReflectionTestUtils.getField(dealService, "dealValidator");
+        assertThat(validator.getRejections()).containsEntry(DealRules.POSITIVE_AMOUNT, 3L);
+    }
+
+    @Test
+    @DisplayName("lookupDeals - one IN query per chunk of ids, results in input order")
+    void testLookupDeals_ChunkedInQueries() {
+        ReflectionTestUtils.setField(dealService, "lookupChunkSize", 2);
+        when(dealRepository.findByDealUniqueIdIn(any())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> !id.equals("L3")).map(DealServiceTest::stored).toList();
+        });
+
+        List<String> found = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        dealService.lookupDeals(List.of("L1", "L2", "L3", "L1", "L4", "L5"),
+                deal -> found.add(deal.getDealUniqueId()), missing::add);
+
+        assertThat(found).containsExactly("L1", "L2", "L4", "L5");
+        assertThat(missing).containsExactly("L3");
+        verify(dealRepository).findByDealUniqueIdIn(List.of("L1", "L2"));
+        verify(dealRepository).findByDealUniqueIdIn(List.of("L3", "L4"));
+        verify(dealRepository).findByDealUniqueIdIn(List.of("L5"));
+        verify(dealRepository, never()).findByDealUniqueId(any());
+    }
+
+    private static Deal stored(String id) {
+        Deal d = new Deal();
+        d.setId((long) id.hashCode());
+        d.setDealUniqueId(id);
+        d.setFromCurrencyIsoCode("USD");
+        d.setToCurrencyIsoCode("EUR");
+        d.setDealTimestamp(LocalDateTime.of(2024, 1, 15, 10, 30));
+        d.setDealAmount(BigDecimal.TEN);
+        return d;
+    }
 }
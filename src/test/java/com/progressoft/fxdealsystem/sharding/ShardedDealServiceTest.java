@@ -0,0 +1,86 @@
+package com.progressoft.fxdealsystem.sharding;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.service.DealService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "fx.sharding.enabled=true",
+        "fx.sharding.shards[0].url=jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "fx.sharding.shards[0].username=sa",
+        "fx.sharding.shards[1].url=jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "fx.sharding.shards[1].username=sa",
+        "fx.sharding.shards[2].url=jdbc:h2:mem:shard2;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "fx.sharding.shards[2].username=sa"
+})
+@ActiveProfiles("test")
+class ShardedDealServiceTest {
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Bulk import spreads deals over the shards, reads find them on their shard")
+    void testShardedImportAndReads() throws Exception {
+        List<DealRequest> requests = IntStream.range(0, 30)
+                .mapToObj(i -> new DealRequest("SHARD_DEAL_" + i, "USD", "EUR",
+                        LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("100.00")))
+                .toList();
+        long chunks = chunkCount();
+
+        List<DealResponse> responses = dealService.importDeals(requests);
+
+        assertThat(responses).extracting(DealResponse::getDealUniqueId)
+                .containsExactlyElementsOf(requests.stream().map(DealRequest::getDealUniqueId).toList());
+        assertThat(responses).allMatch(r -> "SUCCESS".equals(r.getStatus()));
+
+        List<Integer> counts = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            counts.add(countDeals("jdbc:h2:mem:shard" + shard));
+        }
+        assertThat(counts).allMatch(c -> c > 0);
+        assertThat(counts.stream().mapToInt(Integer::intValue).sum()).isEqualTo(30);
+        // each shard writes its deals as chunks: at least one chunk recorded per shard
+        assertThat(chunkCount() - chunks).isGreaterThanOrEqualTo(3);
+
+        assertThat(dealService.getDealByUniqueId("SHARD_DEAL_7").getDealUniqueId()).isEqualTo("SHARD_DEAL_7");
+        assertThat(dealService.getAllDeals())
+                .hasSize(30)
+                .isSortedAccordingTo((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
+
+        DealResponse duplicate = dealService.importDeals(List.of(requests.get(3))).get(0);
+        assertThat(duplicate.getStatus()).isEqualTo("FAILED");
+    }
+
+    private long chunkCount() {
+        return meterRegistry.get("fx.bulk.chunk.latency").timer().count();
+    }
+
+    private int countDeals(String url) throws Exception {
+        try (Connection c = DriverManager.getConnection(url, "sa", "");
+             ResultSet rs = c.createStatement().executeQuery("SELECT COUNT(*) FROM deals")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
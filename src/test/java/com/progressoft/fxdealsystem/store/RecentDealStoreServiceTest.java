@@ -0,0 +1,61 @@
+package com.progressoft.fxdealsystem.store;
+
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import com.progressoft.fxdealsystem.service.DealService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"fx.recent-store.enabled=true", "fx.writer=jdbc"})
+@ActiveProfiles("test")
+class RecentDealStoreServiceTest {
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private RecentDealStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Imported deals are served from the store, without a database read")
+    void testLookupServedFromStore() {
+        LocalDateTime ts = LocalDateTime.of(2024, 1, 15, 10, 30);
+        dealService.importDeal(new DealRequest("STORE_001", "USD", "EUR", ts, new BigDecimal("10.25")));
+        dealService.importDeals(List.of(new DealRequest("STORE_002", "GBP", "JPY", ts, new BigDecimal("20"))));
+
+        // gone from the database, still found: the lookup never reached it
+        jdbcTemplate.update("DELETE FROM deals WHERE deal_unique_id IN ('STORE_001', 'STORE_002')");
+
+        DealResponse single = dealService.getDealByUniqueId("STORE_001");
+        assertThat(single.getDealAmount()).isEqualByComparingTo("10.25");
+        assertThat(dealService.getDealByUniqueId("STORE_002").getToCurrencyIsoCode()).isEqualTo("JPY");
+    }
+
+    @Test
+    @DisplayName("Warm-up loads the deals of the retention window from the database")
+    void testWarmUp() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, "
+                        + "deal_timestamp, deal_amount, created_at) VALUES (?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?)",
+                "WARM_NEW", "USD", "CHF", now.minusDays(1), new BigDecimal("5"), now.minusMinutes(5),
+                "WARM_OLD", "USD", "CHF", now.minusDays(1), new BigDecimal("5"), now.minusDays(1));
+
+        RecentDealStoreConfig.warmUp(store, jdbcTemplate, now.minusHours(4));
+
+        assertThat(store.get("WARM_NEW")).isNotNull();
+        assertThat(store.get("WARM_OLD")).isNull();
+    }
+}
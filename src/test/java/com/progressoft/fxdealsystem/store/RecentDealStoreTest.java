@@ -0,0 +1,79 @@
+package com.progressoft.fxdealsystem.store;
+
+import com.progressoft.fxdealsystem.dto.DealResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentDealStoreTest {
+
+    private static final LocalDateTime TS = LocalDateTime.of(2024, 1, 15, 10, 30, 15, 250_000_000);
+
+    @Test
+    @DisplayName("Stored deal comes back with every field")
+    void testPutAndGet() {
+        RecentDealStore store = new RecentDealStore(100, 4, 40, Duration.ofHours(1));
+        LocalDateTime createdAt = LocalDateTime.now().withNano(123_456_000);
+        store.put(7L, "DEAL_1", "usd", "EUR", TS, new BigDecimal("1000.50"), createdAt);
+
+        DealResponse deal = store.get("DEAL_1");
+        assertThat(deal.getId()).isEqualTo(7L);
+        assertThat(deal.getDealUniqueId()).isEqualTo("DEAL_1");
+        assertThat(deal.getStatus()).isEqualTo("SUCCESS");
+        assertThat(deal.getFromCurrencyIsoCode()).isEqualTo("USD");
+        assertThat(deal.getToCurrencyIsoCode()).isEqualTo("EUR");
+        assertThat(deal.getDealAmount()).isEqualTo(new BigDecimal("1000.5000"));
+        assertThat(deal.getDealTimestamp()).isEqualTo(TS);
+        assertThat(deal.getCreatedAt()).isEqualTo(createdAt);
+
+        assertThat(store.get("DEAL_2")).isNull();
+        assertThat(store.getHits()).isEqualTo(1);
+        assertThat(store.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Once full, the oldest deals are overwritten and the index stays consistent")
+    void testRingEviction() {
+        int capacity = 64;
+        RecentDealStore store = new RecentDealStore(capacity, 1, 40, Duration.ofHours(1));
+        Random random = new Random(42);
+        String[] ids = new String[5_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "D" + Long.toHexString(random.nextLong());
+            store.put((long) i, ids[i], "USD", "EUR", TS, BigDecimal.ONE, LocalDateTime.now());
+        }
+
+        int held = store.size();
+        assertThat(held).isGreaterThanOrEqualTo(capacity).isLessThan(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            DealResponse deal = store.get(ids[i]);
+            if (i >= ids.length - held) {
+                assertThat(deal).as(ids[i]).isNotNull();
+                assertThat(deal.getId()).isEqualTo(i);
+            } else {
+                assertThat(deal).as(ids[i]).isNull();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deals outside the retention window or not representable are not served")
+    void testRetentionAndSkippedDeals() {
+        RecentDealStore store = new RecentDealStore(100, 2, 10, Duration.ofHours(1));
+        store.put(1L, "OLD", "USD", "EUR", TS, BigDecimal.ONE, LocalDateTime.now().minusHours(2));
+        store.put(2L, "AN_ID_LONGER_THAN_10", "USD", "EUR", TS, BigDecimal.ONE, LocalDateTime.now());
+        store.put(3L, "HUGE", "USD", "EUR", TS, new BigDecimal("1E20"), LocalDateTime.now());
+        store.put(4L, "FRESH", "USD", "EUR", TS, BigDecimal.ONE, LocalDateTime.now());
+
+        assertThat(store.get("OLD")).isNull();
+        assertThat(store.get("AN_ID_LONGER_THAN_10")).isNull();
+        assertThat(store.get("HUGE")).isNull();
+        assertThat(store.get("FRESH")).isNotNull();
+    }
+}
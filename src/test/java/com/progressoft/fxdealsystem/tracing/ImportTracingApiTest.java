@@ -0,0 +1,132 @@
+package com.progressoft.fxdealsystem.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progressoft.fxdealsystem.dto.DealRequest;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"management.tracing.sampling.probability=1.0", "fx.bulk.chunk-size=2",
+                "fx.tracing.chunk-sample-every=2"})
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class ImportTracingApiTest {
+
+    private static final Path SPANS = createSpanFile();
+
+    @DynamicPropertySource
+    static void spanFile(DynamicPropertyRegistry registry) {
+        registry.add("fx.tracing.file", SPANS::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/deals";
+    }
+
+    @Test
+    @DisplayName("A bulk import is one trace: HTTP, (de)serialization and the stages of sampled chunks")
+    void testBulkImportSpans() throws Exception {
+        List<DealRequest> bulk = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bulk.add(new DealRequest("TRACE_" + i, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), BigDecimal.TEN));
+        }
+
+        given().contentType(ContentType.JSON).body(bulk)
+                .when().post("/bulk")
+                .then().statusCode(201);
+
+        Map<String, List<JsonNode>> byName = awaitSpans("fx.http.serialize");
+        JsonNode server = byName.get("http post /api/deals/bulk").get(0);
+        String traceId = server.get("traceId").asText();
+        byName.values().forEach(spans -> spans.forEach(span ->
+                assertThat(span.get("traceId").asText()).as(span.get("name").asText()).isEqualTo(traceId)));
+
+        // 3 chunks of 2, 2 and 1 deals: chunks 0 and 2 sampled
+        List<JsonNode> chunks = byName.get("fx.import.chunk");
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks).extracting(span -> attribute(span, "chunk.index")).containsExactlyInAnyOrder("0", "2");
+        assertThat(byName).containsKeys("fx.http.deserialize", "fx.import.validate", "fx.import.dedup",
+                "fx.import.insert", "fx.tx.begin", "fx.jdbc.insert-batch", "fx.tx.commit");
+        assertThat(byName.get("fx.jdbc.insert-batch")).hasSize(2);
+
+        String chunkId = chunks.get(0).get("spanId").asText();
+        JsonNode insert = byName.get("fx.import.insert").stream()
+                .filter(span -> span.get("parentSpanId").asText().equals(chunkId)).findFirst().orElseThrow();
+        assertThat(byName.get("fx.tx.commit")).anySatisfy(span ->
+                assertThat(span.get("parentSpanId").asText()).isEqualTo(insert.get("spanId").asText()));
+        assertThat(byName.get("fx.import.validate")).allSatisfy(span ->
+                assertThat(span.get("parentSpanId").asText()).isIn(chunks.stream().map(c -> c.get("spanId").asText()).toList()));
+    }
+
+    private Map<String, List<JsonNode>> awaitSpans(String last) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+            Map<String, List<JsonNode>> byName = new HashMap<>();
+            for (String line : Files.readAllLines(SPANS)) {
+                for (JsonNode span : mapper.readTree(line).at("/resourceSpans/0/scopeSpans/0/spans")) {
+                    byName.computeIfAbsent(span.get("name").asText(), name -> new ArrayList<>()).add(span);
+                }
+            }
+            if (byName.containsKey(last) || System.nanoTime() > deadline) {
+                return byName;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static String attribute(JsonNode span, String key) {
+        for (JsonNode attribute : span.get("attributes")) {
+            if (attribute.get("key").asText().equals(key)) {
+                return attribute.at("/value/stringValue").asText();
+            }
+        }
+        return null;
+    }
+
+    private static Path createSpanFile() {
+        try {
+            Path file = Files.createTempFile("spans", ".otlp.jsonl");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.progressoft.fxdealsystem.warmup;
+
+import com.progressoft.fxdealsystem.service.DealValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:warmupdb;DB_CLOSE_DELAY=-1",
+                "fx.warm-up.enabled=true", "fx.warm-up.cycles=200", "fx.warm-up.query-rounds=20",
+                "fx.warm-up.connections=4", "fx.warm-up.http-requests=30",
+                "management.endpoint.health.probes.enabled=true"})
+@ActiveProfiles("test")
+class WarmUpTest {
+
+    private static final AtomicReference<ReadinessState> READINESS_AFTER_WARM_UP = new AtomicReference<>();
+
+    @TestConfiguration
+    static class ReadinessProbe {
+
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        ApplicationRunner readinessAfterWarmUp(ApplicationAvailability availability) {
+            return args -> READINESS_AFTER_WARM_UP.set(availability.getReadinessState());
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DealValidator dealValidator;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "";
+    }
+
+    @Test
+    @DisplayName("Readiness is only reported once the warm-up runner has finished")
+    void testReadinessGatedByWarmUp() {
+        assertThat(READINESS_AFTER_WARM_UP.get()).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+
+        given().when().get("/actuator/health/readiness")
+                .then()
+                .statusCode(200)
+                .body("status", equalTo("UP"));
+    }
+
+    @Test
+    @DisplayName("Warm-up duration, connections and first/last iteration times are exposed as metrics")
+    void testWarmUpMetrics() {
+        assertThat(meterRegistry.get("fx.warmup.duration").timeGauge().value(TimeUnit.MILLISECONDS)).isPositive();
+        assertThat(meterRegistry.get("fx.warmup.connections").gauge().value()).isGreaterThanOrEqualTo(4);
+        for (String stage : new String[]{"fx.warmup.cycle", "fx.warmup.lookup", "fx.warmup.request"}) {
+            for (String iteration : new String[]{"first", "last"}) {
+                assertThat(meterRegistry.get(stage).tag("iteration", iteration).timeGauge()
+                        .value(TimeUnit.MICROSECONDS)).as(stage + " " + iteration).isPositive();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The warm-up writes nothing")
+    void testNoSyntheticDealsStored() {
+        given().when().get("/api/deals")
+                .then()
+                .statusCode(200)
+                .body("data", empty());
+    }
+
+    @Test
+    @DisplayName("The invalid synthetic deals are not counted as rule rejections")
+    void testNoRejectionsCounted() {
+        assertThat(dealValidator.getRejections().values()).allMatch(count -> count == 0);
+        assertThat(meterRegistry.find("fx.rules.rejections").functionCounters())
+                .allMatch(counter -> counter.count() == 0);
+    }
+}
@@ -0,0 +1,45 @@
+#!/usr/bin/env sh
+# Time-to-first-accepted-deal: from process start until POST /api/deals answers 201.
+#
+# Usage:
+#   ./startup_benchmark.sh                                  # plain jar from target/
+#   JAVA_OPTS="-XX:SharedArchiveFile=app.jsa" ./startup_benchmark.sh
+#   JAVA_OPTS="-Dspring.aot.enabled=true" ./startup_benchmark.sh     (jar built with -Paot)
+#   SPRING_PROFILES="local,fast-start" ./startup_benchmark.sh
+#
+# Needs a reachable database for the selected profile (default: local, MySQL on port 3307).
+
+JAR=${JAR:-$(ls target/fx-deal-system-*.jar | head -1)}
+SPRING_PROFILES=${SPRING_PROFILES:-local}
+PORT=${PORT:-8081}
+RUNS=${RUNS:-5}
+
+now_ms() { date +%s%3N; }
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    java $JAVA_OPTS -Dspring.profiles.active="$SPRING_PROFILES" -Dserver.port="$PORT" -jar "$JAR" > /dev/null 2>&1 &
+    pid=$!
+
+    status=000
+    while [ "$status" != "201" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "application exited before accepting a deal (run $run)" >&2
+            exit 1
+        fi
+        status=$(curl -s -o /dev/null -w '%{http_code}' -X POST "http://localhost:$PORT/api/deals" \
+            -H 'Content-Type: application/json' \
+            -d "{\"dealUniqueId\":\"STARTUP_${start}_${run}\",\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\",\"dealTimestamp\":\"2024-01-01T10:00:00\",\"dealAmount\":100}")
+        [ "$status" = "201" ] || sleep 0.05
+    done
+
+    elapsed=$(( $(now_ms) - start ))
+    total=$(( total + elapsed ))
+    echo "run $run: first deal accepted after ${elapsed} ms"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+done
+
+echo "average over $RUNS runs: $(( total / RUNS )) ms (JAVA_OPTS='$JAVA_OPTS', profiles=$SPRING_PROFILES)"